@@ -0,0 +1,90 @@
+/**
+ * This file is part of evdev-java - Benchmarks.
+ *
+ * evdev-java - Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of handing one event to 1, 4 or 16 listeners, through {@link InputListener} and through
+ * {@link RawInputListener}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DistributeEventBenchmark {
+
+    private static final int FRAMES = 256;
+    private static final int EVENTS = FRAMES * 3 + (FRAMES / 16) * 2;
+
+    @Param({"1", "4", "16"})
+    public int listenerCount;
+
+    private InputEvent[] events;
+    private ByteBuffer structs;
+    private InputEventView view;
+    private EventDevice listenerDevice;
+    private EventDevice rawListenerDevice;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        events = SyntheticEvents.touchFrames(FRAMES);
+        structs = SyntheticEvents.encode(events, "amd64");
+        view = new InputEventView("synthetic", "amd64");
+        listenerDevice = new EventDevice("synthetic", Collections.emptyMap());
+        rawListenerDevice = new EventDevice("synthetic", Collections.emptyMap());
+        for (int i = 0; i < listenerCount; i++) {
+            listenerDevice.addListener(blackhole::consume);
+            rawListenerDevice.addRawListener(e -> blackhole.consume(e.getValue()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void inputListeners() {
+        for (InputEvent event : events) {
+            listenerDevice.distributeEvent(event);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void rawListeners() {
+        for (int i = 0; i < EVENTS; i++) {
+            view.wrap(structs, i * InputEvent.STRUCT_SIZE_BYTES);
+            rawListenerDevice.distributeEvent(view);
+        }
+    }
+}
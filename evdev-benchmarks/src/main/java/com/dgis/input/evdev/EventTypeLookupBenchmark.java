@@ -0,0 +1,94 @@
+/**
+ * This file is part of evdev-java - Benchmarks.
+ *
+ * evdev-java - Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the dense array lookup of {@link EventType#valueOf(short)} with the boxed HashMap lookup it replaced.
+ * <p/>
+ * Both decode the same mix of event types, as seen from a multitouch panel: mostly EV_ABS and EV_SYN, some
+ * EV_KEY and EV_MSC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventTypeLookupBenchmark {
+
+    private static final int TYPES = 1024;
+
+    private final short[] types = new short[TYPES];
+
+    public EventTypeLookupBenchmark() {
+        short[] mix = {InputEvent.EV_ABS, InputEvent.EV_ABS, InputEvent.EV_ABS, InputEvent.EV_SYN,
+                InputEvent.EV_ABS, InputEvent.EV_KEY, InputEvent.EV_ABS, InputEvent.EV_MSC, InputEvent.EV_SYN};
+        for (int i = 0; i < TYPES; i++) {
+            types[i] = mix[i % mix.length];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TYPES)
+    public void denseLookup(Blackhole blackhole) {
+        for (short type : types) {
+            blackhole.consume(EventType.valueOf(type));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TYPES)
+    public void hashMapLookup(Blackhole blackhole) {
+        for (short type : types) {
+            blackhole.consume(HashMapLookup.valueOf(type));
+        }
+    }
+
+    /**
+     * The lookup EventType used before the dense table, kept as a baseline.
+     */
+    private static final class HashMapLookup {
+        private static final Map<Short, EventType> VALUE_LOOKUP = new HashMap<>();
+
+        static {
+            for (EventType eventType : EventType.values()) {
+                VALUE_LOOKUP.put(eventType.getValue(), eventType);
+            }
+        }
+
+        static EventType valueOf(short value) {
+            if (VALUE_LOOKUP.containsKey(value)) return VALUE_LOOKUP.get(value);
+            throw new IllegalArgumentException(String.format("Unknown event type: %s", value));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * This file is part of evdev-java - Benchmarks.
+ *
+ * evdev-java - Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import com.dgis.input.evdev.devices.AccelerationProfile;
+import com.dgis.input.evdev.devices.EvdevJoystickFilter;
+import com.dgis.input.evdev.devices.EvdevMouseFilter;
+import com.dgis.input.evdev.devices.IMouseListener;
+import com.dgis.input.evdev.devices.JoystickListener;
+import com.dgis.input.evdev.devices.JoystickState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per event of the {@link EvdevJoystickFilter} and {@link EvdevMouseFilter} pipelines, from
+ * {@code event()} to the filter listeners.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FilterBenchmark {
+
+    private static final int FRAMES = 256;
+
+    /**
+     * Per joystick frame: two axes, SYN_REPORT, and a button every fourth frame.
+     */
+    private static final int JOYSTICK_EVENTS = FRAMES * 3 + FRAMES / 4;
+
+    /**
+     * Per mouse frame: REL_X, REL_Y and SYN_REPORT, and a button every sixteenth frame.
+     */
+    private static final int MOUSE_EVENTS = FRAMES * 3 + FRAMES / 16;
+
+    private static final int BUTTONS = 32;
+    private static final int AXES = 8;
+
+    private EvdevJoystickFilter joystickFilter;
+    private InputEvent[] joystickEvents;
+
+    private EvdevMouseFilter mouseFilter;
+    private EvdevMouseFilter acceleratedMouseFilter;
+    private InputEvent[] mouseEvents;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        setUpJoystick(blackhole);
+        setUpMouse(blackhole);
+    }
+
+    private void setUpJoystick(final Blackhole blackhole) {
+        Map<Integer, List<Integer>> supportedEvents = new HashMap<>();
+        List<Integer> buttons = new ArrayList<>();
+        for (int i = 0; i < BUTTONS; i++) buttons.add(InputEvent.BTN_JOYSTICK + i);
+        List<Integer> axes = new ArrayList<>();
+        for (int i = 0; i < AXES; i++) axes.add(i);
+        supportedEvents.put((int) InputEvent.EV_KEY, buttons);
+        supportedEvents.put((int) InputEvent.EV_ABS, axes);
+
+        joystickFilter = new EvdevJoystickFilter(new EventDevice("synthetic-joystick", supportedEvents));
+        joystickFilter.addListener(new JoystickListener() {
+            @Override
+            public void joystickMoved(boolean[] axesChanged, JoystickState state, String source) {
+                blackhole.consume(state);
+            }
+
+            @Override
+            public void buttonChanged(boolean[] buttonsChanged, JoystickState state, String source) {
+                blackhole.consume(state);
+            }
+        });
+
+        joystickEvents = new InputEvent[JOYSTICK_EVENTS];
+        int i = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            long micros = frame * 2000L;
+            if (frame % 4 == 0) {
+                /* The last buttons of the device, the worst case for a linear code lookup */
+                joystickEvents[i++] = SyntheticEvents.event(micros, InputEvent.EV_KEY,
+                        (short) (InputEvent.BTN_JOYSTICK + BUTTONS - 1 - frame / 4 % 4), frame / 16 % 2);
+            }
+            joystickEvents[i++] = SyntheticEvents.event(micros, InputEvent.EV_ABS, (short) (AXES - 1), frame * 31 % 1024);
+            joystickEvents[i++] = SyntheticEvents.event(micros, InputEvent.EV_ABS, (short) (AXES - 2), frame * 17 % 1024);
+            joystickEvents[i++] = SyntheticEvents.event(micros, InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        }
+    }
+
+    private void setUpMouse(final Blackhole blackhole) {
+        IMouseListener listener = new IMouseListener() {
+            @Override
+            public void mouseMoved(int x, int y) {
+                blackhole.consume(x + y);
+            }
+
+            @Override
+            public void mouseDragged(int x, int y) {
+                blackhole.consume(x + y);
+            }
+
+            @Override
+            public void mousePressed(MouseButton btn, int x, int y) {
+                blackhole.consume(btn);
+            }
+
+            @Override
+            public void mouseReleased(MouseButton btn, int x, int y) {
+                blackhole.consume(btn);
+            }
+
+            @Override
+            public void mouseWheel(WheelDirection dir, int velocity, int x, int y) {
+                blackhole.consume(velocity);
+            }
+        };
+        mouseFilter = new EvdevMouseFilter(new EventDevice("synthetic-mouse", new HashMap<>()),
+                new Rectangle(0, 0, 3840, 2160));
+        mouseFilter.addMouseListener(listener);
+        acceleratedMouseFilter = new EvdevMouseFilter(new EventDevice("synthetic-mouse", new HashMap<>()),
+                new Rectangle(0, 0, 3840, 2160));
+        acceleratedMouseFilter.setAccelerationProfile(AccelerationProfile.adaptive(0.4, 0.3, 4.0));
+        acceleratedMouseFilter.addMouseListener(listener);
+
+        mouseEvents = new InputEvent[MOUSE_EVENTS];
+        int i = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            long micros = frame * 1000L;
+            if (frame % 16 == 0) {
+                mouseEvents[i++] = SyntheticEvents.event(micros, InputEvent.EV_KEY, InputEvent.BTN_LEFT, frame / 16 % 2);
+            }
+            /* Back and forth diagonal moves, so the pointer never sticks to a screen edge */
+            int delta = frame % 64 < 32 ? 3 : -3;
+            mouseEvents[i++] = SyntheticEvents.event(micros, InputEvent.EV_REL, InputEvent.REL_X, delta);
+            mouseEvents[i++] = SyntheticEvents.event(micros, InputEvent.EV_REL, InputEvent.REL_Y, delta);
+            mouseEvents[i++] = SyntheticEvents.event(micros, InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOYSTICK_EVENTS)
+    public void joystickFilter() {
+        for (InputEvent event : joystickEvents) {
+            joystickFilter.event(event);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOUSE_EVENTS)
+    public void mouseFilter() {
+        for (InputEvent event : mouseEvents) {
+            mouseFilter.event(event);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOUSE_EVENTS)
+    public void acceleratedMouseFilter() {
+        for (InputEvent event : mouseEvents) {
+            acceleratedMouseFilter.event(event);
+        }
+    }
+}
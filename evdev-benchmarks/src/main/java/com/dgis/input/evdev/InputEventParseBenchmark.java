@@ -0,0 +1,119 @@
+/**
+ * This file is part of evdev-java - Benchmarks.
+ *
+ * evdev-java - Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing cost per event, for the 24 byte input_event layout and the 16 byte layout of 32 bit ARM.
+ * <p/>
+ * {@link #parse(Blackhole)} measures {@link InputEvent#parse(java.nio.ShortBuffer, String, String)}, which
+ * allocates an InputEvent per struct. {@link #readViews()} measures the batched read path of EventDevice,
+ * which hands out a reused {@link InputEventView}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InputEventParseBenchmark {
+
+    private static final int FRAMES = 256;
+
+    @Param({"amd64", "arm"})
+    public String arch;
+
+    private ByteBuffer structs;
+    private int structSize;
+    private int eventCount;
+    private InputEventReader reader;
+    private long sum;
+    private final RawInputListener summingListener = e -> sum += e.getTimeMicroSec() + e.getCode() + e.getValue();
+
+    @Setup
+    public void setUp() {
+        InputEvent[] events = SyntheticEvents.touchFrames(FRAMES);
+        eventCount = events.length;
+        structs = SyntheticEvents.encode(events, arch);
+        structSize = InputEventReader.structSize(arch);
+        reader = new InputEventReader(new RepeatingChannel(structs), "synthetic", arch, eventCount);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES * 3 + (FRAMES / 16) * 2)
+    public void parse(Blackhole blackhole) {
+        for (int i = 0; i < eventCount; i++) {
+            structs.position(i * structSize);
+            blackhole.consume(InputEvent.parse(structs.asShortBuffer(), "synthetic", arch));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES * 3 + (FRAMES / 16) * 2)
+    public long readViews() throws IOException {
+        reader.read(summingListener);
+        return sum;
+    }
+
+    /**
+     * Channel serving the same bytes again on every read.
+     */
+    private static final class RepeatingChannel implements ReadableByteChannel {
+        private final ByteBuffer data;
+
+        private RepeatingChannel(ByteBuffer data) {
+            this.data = data.duplicate();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            data.rewind();
+            int count = Math.min(dst.remaining(), data.remaining());
+            data.limit(count);
+            dst.put(data);
+            data.limit(data.capacity());
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
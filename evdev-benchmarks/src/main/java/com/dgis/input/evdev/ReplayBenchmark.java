@@ -0,0 +1,197 @@
+/**
+ * This file is part of evdev-java - Benchmarks.
+ *
+ * evdev-java - Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import com.dgis.input.evdev.devices.EvdevJoystickFilter;
+import com.dgis.input.evdev.devices.EvdevMouseFilter;
+import com.dgis.input.evdev.devices.IMouseListener;
+import com.dgis.input.evdev.devices.JoystickListener;
+import com.dgis.input.evdev.devices.JoystickState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per event of replaying a recorded event log as fast as possible into an {@link EvdevJoystickFilter} or an
+ * {@link EvdevMouseFilter}, from the memory mapped segments to the filter listeners.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReplayBenchmark {
+
+    private static final int FRAMES = 65536;
+    private static final int EVENTS = FRAMES * 3 + (FRAMES / 16) * 2;
+
+    @Param({"true", "false"})
+    public boolean deltaTimestamps;
+
+    private File directory;
+    private File joystickLog;
+    private File mouseLog;
+    private RawInputListener joystickDistributor;
+    private RawInputListener mouseDistributor;
+    private EventLogReplay joystickReplay;
+    private EventLogReplay mouseReplay;
+
+    @Setup(Level.Trial)
+    public void setUp(final Blackhole blackhole) throws IOException {
+        directory = Files.createTempDirectory("evdev-replay-benchmark").toFile();
+        setUpJoystick(blackhole);
+        setUpMouse(blackhole);
+    }
+
+    private void setUpJoystick(final Blackhole blackhole) throws IOException {
+        Map<Integer, List<Integer>> supportedEvents = new HashMap<>();
+        supportedEvents.put((int) InputEvent.EV_KEY, Arrays.asList((int) InputEvent.BTN_TOUCH));
+        supportedEvents.put((int) InputEvent.EV_ABS, Arrays.asList((int) InputEvent.ABS_X, (int) InputEvent.ABS_Y));
+        joystickLog = record(DeviceInfo.of("synthetic-touch", supportedEvents), "event0",
+                SyntheticEvents.touchFrames(FRAMES));
+
+        EventDevice device = new EventDevice("synthetic-touch", supportedEvents);
+        EvdevJoystickFilter filter = new EvdevJoystickFilter(device);
+        filter.addListener(new JoystickListener() {
+            @Override
+            public void joystickMoved(boolean[] axesChanged, JoystickState state, String source) {
+                blackhole.consume(state);
+            }
+
+            @Override
+            public void buttonChanged(boolean[] buttonsChanged, JoystickState state, String source) {
+                blackhole.consume(state);
+            }
+        });
+        joystickDistributor = device::distributeEvent;
+    }
+
+    private void setUpMouse(final Blackhole blackhole) throws IOException {
+        Map<Integer, List<Integer>> supportedEvents = new HashMap<>();
+        supportedEvents.put((int) InputEvent.EV_KEY, Arrays.asList((int) InputEvent.BTN_LEFT));
+        supportedEvents.put((int) InputEvent.EV_REL, Arrays.asList((int) InputEvent.REL_X, (int) InputEvent.REL_Y));
+        mouseLog = record(DeviceInfo.of("synthetic-mouse", supportedEvents), "event1",
+                SyntheticEvents.mouseFrames(FRAMES));
+
+        EventDevice device = new EventDevice("synthetic-mouse", supportedEvents);
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 3840, 2160));
+        filter.addMouseListener(new IMouseListener() {
+            @Override
+            public void mouseMoved(int x, int y) {
+                blackhole.consume(x + y);
+            }
+
+            @Override
+            public void mouseDragged(int x, int y) {
+                blackhole.consume(x + y);
+            }
+
+            @Override
+            public void mousePressed(MouseButton btn, int x, int y) {
+                blackhole.consume(btn);
+            }
+
+            @Override
+            public void mouseReleased(MouseButton btn, int x, int y) {
+                blackhole.consume(btn);
+            }
+
+            @Override
+            public void mouseWheel(WheelDirection dir, int velocity, int x, int y) {
+                blackhole.consume(velocity);
+            }
+        });
+        mouseDistributor = device::distributeEvent;
+    }
+
+    /**
+     * Record the events into the first segment of a log.
+     */
+    private File record(DeviceInfo deviceInfo, String prefix, InputEvent[] events) throws IOException {
+        /* The ring holds the whole recording, so the recorder never drops events */
+        EventRecorder recorder = new EventRecorder(deviceInfo, prefix, directory, EventRecorder.DEFAULT_SEGMENT_SIZE,
+                deltaTimestamps, EVENTS);
+        ByteBuffer structs = SyntheticEvents.encode(events, "amd64");
+        InputEventView view = new InputEventView("synthetic", "amd64");
+        for (int offset = 0; offset < structs.limit(); offset += InputEvent.STRUCT_SIZE_BYTES) {
+            view.wrap(structs, offset);
+            recorder.event(view);
+        }
+        recorder.close();
+        return new File(directory, EventLogFormat.segmentName(prefix, 0));
+    }
+
+    @Setup(Level.Invocation)
+    public void openReplay() throws IOException {
+        joystickReplay = new EventLogReplay(joystickLog, EventDevice.AS_FAST_AS_POSSIBLE);
+        mouseReplay = new EventLogReplay(mouseLog, EventDevice.AS_FAST_AS_POSSIBLE);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeReplay() {
+        joystickReplay.close();
+        mouseReplay.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void replayIntoJoystickFilter() throws IOException {
+        while (joystickReplay.read(joystickDistributor, EventDevice.DEFAULT_BATCH_SIZE) >= 0) {
+            /* Until the end of the log */
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void replayIntoMouseFilter() throws IOException {
+        while (mouseReplay.read(mouseDistributor, EventDevice.DEFAULT_BATCH_SIZE) >= 0) {
+            /* Until the end of the log */
+        }
+    }
+}
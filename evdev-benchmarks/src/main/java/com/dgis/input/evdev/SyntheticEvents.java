@@ -0,0 +1,102 @@
+/**
+ * This file is part of evdev-java - Benchmarks.
+ *
+ * evdev-java - Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Builds synthetic input events and their input_event struct encoding, so benchmarks run without a device.
+ */
+final class SyntheticEvents {
+
+    private SyntheticEvents() {
+    }
+
+    /**
+     * Create an event at the given offset, in microseconds, from an arbitrary start time.
+     */
+    static InputEvent event(long micros, short type, short code, int value) {
+        return new InputEvent(1500000000L + micros / 1000000, micros % 1000000, EventType.valueOf(type), code, value,
+                "synthetic");
+    }
+
+    /**
+     * Encode events as the kernel would write them, using the struct layout of the given architecture.
+     *
+     * @return a little endian buffer, ready to be read.
+     */
+    static ByteBuffer encode(InputEvent[] events, String arch) {
+        boolean arm = "arm".equals(arch);
+        int structSize = arm ? InputEvent.STRUCT_SIZE_BYTES_ARM : InputEvent.STRUCT_SIZE_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(events.length * structSize).order(ByteOrder.LITTLE_ENDIAN);
+        for (InputEvent event : events) {
+            if (arm) {
+                buffer.putInt((int) event.timeSec);
+                buffer.putInt((int) event.timeMicroSec);
+            } else {
+                buffer.putLong(event.timeSec);
+                buffer.putLong(event.timeMicroSec);
+            }
+            buffer.putShort(event.type.getValue());
+            buffer.putShort(event.code);
+            buffer.putInt(event.value);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Absolute pointer frames as sent by a touch panel: X, Y and SYN_REPORT, with a touch every 16 frames.
+     */
+    static InputEvent[] touchFrames(int frames) {
+        InputEvent[] events = new InputEvent[frames * 3 + (frames / 16) * 2];
+        int i = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            long micros = frame * 8000L;
+            if (frame % 16 == 0) {
+                events[i++] = event(micros, InputEvent.EV_KEY, InputEvent.BTN_TOUCH, (frame / 16) % 2);
+                events[i++] = event(micros, InputEvent.EV_MSC, InputEvent.MSC_SCAN, 0x90001);
+            }
+            events[i++] = event(micros, InputEvent.EV_ABS, InputEvent.ABS_X, frame * 7 % 4096);
+            events[i++] = event(micros, InputEvent.EV_ABS, InputEvent.ABS_Y, frame * 13 % 4096);
+            events[i++] = event(micros, InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        }
+        return events;
+    }
+
+    /**
+     * Relative pointer frames as sent by a mouse: REL_X, REL_Y and SYN_REPORT, with a left click every 16 frames.
+     * Moves go back and forth diagonally, so the pointer never sticks to a screen edge.
+     */
+    static InputEvent[] mouseFrames(int frames) {
+        InputEvent[] events = new InputEvent[frames * 3 + (frames / 16) * 2];
+        int i = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            long micros = frame * 1000L;
+            if (frame % 16 == 0) {
+                events[i++] = event(micros, InputEvent.EV_MSC, InputEvent.MSC_SCAN, 0x90001);
+                events[i++] = event(micros, InputEvent.EV_KEY, InputEvent.BTN_LEFT, (frame / 16) % 2);
+            }
+            int delta = frame % 64 < 32 ? 3 : -3;
+            events[i++] = event(micros, InputEvent.EV_REL, InputEvent.REL_X, delta);
+            events[i++] = event(micros, InputEvent.EV_REL, InputEvent.REL_Y, delta);
+            events[i++] = event(micros, InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        }
+        return events;
+    }
+}
@@ -30,4 +30,68 @@ public class NativeEventDevice {
 
     native int ioctlEVIOCGRAB(int fd, int flags);
 
+    /* ioctls on an already open device */
+
+    /**
+     * Read the input_absinfo struct of one axis: value, minimum, maximum, fuzz, flat and resolution.
+     *
+     * @return false if the ioctl failed.
+     */
+    native boolean ioctlEVIOCGABS(int fd, int[] resp, int axis);
+
+    /**
+     * Describe a device in a single call: ID, name, capability bitmaps and input_absinfo of every supported axis.
+     *
+     * @param fd      Descriptor of the open device.
+     * @param id      Receives bus, vendor, product and version.
+     * @param name    Receives the NUL terminated device name.
+     * @param bits    Receives one capability bitmap per event type, each of bits.length / EV_CNT longs. The
+     *                bitmap of type 0 lists the supported event types.
+     * @param absInfo Receives 6 ints per axis, as in ioctlEVIOCGABS, for each axis flagged in the EV_ABS bitmap.
+     * @return the evdev version, or -1 if the descriptor is not an evdev device.
+     */
+    native int ioctlDescribe(int fd, short[] id, byte[] name, long[] bits, int[] absInfo);
+
+    /**
+     * Read which keys and buttons are down, one bit per key code.
+     *
+     * @param bits Receives the bitmap, bits.length * 64 codes. Bits of higher codes are cleared.
+     * @return a negative value if the ioctl failed.
+     */
+    native int ioctlEVIOCGKEY(int fd, long[] bits);
+
+    /**
+     * Read which LEDs are lit, one bit per LED code.
+     *
+     * @return a negative value if the ioctl failed.
+     */
+    native int ioctlEVIOCGLED(int fd, long[] bits);
+
+    /**
+     * Read which switches are set, one bit per switch code.
+     *
+     * @return a negative value if the ioctl failed.
+     */
+    native int ioctlEVIOCGSW(int fd, long[] bits);
+
+    /* epoll based event loop */
+
+    native int epollCreate();
+
+    native int epollAdd(int epfd, int fd);
+
+    native int epollRemove(int epfd, int fd);
+
+    native int epollWait(int epfd, int[] readyFds, int timeoutMillis);
+
+    native int eventfdCreate();
+
+    native int eventfdSignal(int fd);
+
+    native int eventfdClear(int fd);
+
+    native int setNonBlocking(int fd);
+
+    native int closeFd(int fd);
+
 }
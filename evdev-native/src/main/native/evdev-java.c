@@ -19,8 +19,11 @@
 #include <linux/input.h>
 
 #include <string.h>
+#include <errno.h>
 #include <fcntl.h>
 #include <unistd.h>
+#include <sys/epoll.h>
+#include <sys/eventfd.h>
 
 #include <jni.h>
 #include "com_dgis_input_evdev_NativeEventDevice.h"
@@ -144,7 +147,7 @@ JNIEXPORT jboolean JNICALL Java_com_dgis_input_evdev_NativeEventDevice_ioctlEVIO
  * Method:    ioctlEVIOCGABS
  * Signature: (Ljava/lang/String;[II)Z
  */
-JNIEXPORT jboolean JNICALL Java_com_dgis_input_evdev_NativeEventDevice_ioctlEVIOCGABS
+JNIEXPORT jboolean JNICALL Java_com_dgis_input_evdev_NativeEventDevice_ioctlEVIOCGABS__Ljava_lang_String_2_3II
 	(JNIEnv *env, jobject obj, jstring device_name, jintArray out, jint axis) {
 	
 	if((*env)->GetArrayLength(env, out) < 5) return 0;
@@ -170,6 +173,138 @@ JNIEXPORT jboolean JNICALL Java_com_dgis_input_evdev_NativeEventDevice_ioctlEVIO
 	return retval;
 }
 
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    ioctlEVIOCGABS
+ * Signature: (I[II)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_dgis_input_evdev_NativeEventDevice_ioctlEVIOCGABS__I_3II
+	(JNIEnv *env, jobject obj, jint fd, jintArray out, jint axis) {
+
+	if((*env)->GetArrayLength(env, out) < 6) return 0;
+
+	/* Do the ioctl */
+	struct input_absinfo absinfo;
+	if (ioctl(fd, EVIOCGABS(axis), &absinfo) < 0) return 0;
+
+	/* Copy the fields to the Java array */
+	jint fields[6] = { absinfo.value, absinfo.minimum, absinfo.maximum,
+			absinfo.fuzz, absinfo.flat, absinfo.resolution };
+	(*env)->SetIntArrayRegion(env, out, 0, 6, fields);
+
+	return 1;
+}
+
+#define ABS_INFO_FIELDS 6
+
+static int test_bit(const jlong* bits, int bit) {
+	return (((uint64_t) bits[bit / 64]) >> (bit % 64)) & 1;
+}
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    ioctlDescribe
+ * Signature: (I[S[B[J[I)I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_ioctlDescribe
+	(JNIEnv *env, jobject obj, jint fd, jshortArray id_out, jbyteArray name_out, jlongArray bits_out, jintArray abs_out) {
+
+	int version;
+	if (ioctl(fd, EVIOCGVERSION, &version) < 0) return -1;
+
+	/* Get C references to Java objects */
+	jshort* id = (*env)->GetShortArrayElements (env, id_out, NULL);
+	jbyte* name = (*env)->GetByteArrayElements (env, name_out, NULL);
+	jlong* bits = (*env)->GetLongArrayElements (env, bits_out, NULL);
+	jint* abs = (*env)->GetIntArrayElements (env, abs_out, NULL);
+	int name_length = (*env)->GetArrayLength(env, name_out);
+	int words = (*env)->GetArrayLength(env, bits_out) / EV_CNT;
+	int axes = (*env)->GetArrayLength(env, abs_out) / ABS_INFO_FIELDS;
+
+	/* Do the ioctls */
+	ioctl(fd, EVIOCGID, id);
+	if (name_length > 0 && ioctl(fd, EVIOCGNAME(name_length - 1), name) < 0) {
+		name[0] = 0;
+	}
+	ioctl(fd, EVIOCGBIT(0, words * sizeof(jlong)), bits);
+	int type, axis;
+	for (type = 1; type < EV_CNT && type < words * 64; type++) {
+		if (test_bit(bits, type)) {
+			ioctl(fd, EVIOCGBIT(type, words * sizeof(jlong)), bits + type * words);
+		}
+	}
+	if (test_bit(bits, EV_ABS)) {
+		struct input_absinfo absinfo;
+		for (axis = 0; axis < axes && axis < words * 64; axis++) {
+			if (test_bit(bits + EV_ABS * words, axis) && ioctl(fd, EVIOCGABS(axis), &absinfo) >= 0) {
+				jint* fields = abs + axis * ABS_INFO_FIELDS;
+				fields[0] = absinfo.value;
+				fields[1] = absinfo.minimum;
+				fields[2] = absinfo.maximum;
+				fields[3] = absinfo.fuzz;
+				fields[4] = absinfo.flat;
+				fields[5] = absinfo.resolution;
+			}
+		}
+	}
+
+	/* Release C references to Java objects */
+	(*env)->ReleaseIntArrayElements (env, abs_out, abs, 0);
+	(*env)->ReleaseLongArrayElements (env, bits_out, bits, 0);
+	(*env)->ReleaseByteArrayElements (env, name_out, name, 0);
+	(*env)->ReleaseShortArrayElements (env, id_out, id, 0);
+
+	return version;
+}
+
+/* Read one of the state bitmaps, nr being the number of EVIOCGKEY, EVIOCGLED or EVIOCGSW */
+static jint ioctl_state(JNIEnv *env, jint fd, jlongArray bits_out, int nr) {
+
+	jsize size = (*env)->GetArrayLength(env, bits_out) * sizeof(jlong);
+	jlong* bits = (*env)->GetLongArrayElements (env, bits_out, NULL);
+
+	/* The ioctl only writes the bytes the kernel knows about */
+	memset(bits, 0, size);
+	int result = ioctl(fd, _IOC(_IOC_READ, 'E', nr, size), bits);
+
+	(*env)->ReleaseLongArrayElements (env, bits_out, bits, result < 0 ? JNI_ABORT : 0);
+
+	return result;
+}
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    ioctlEVIOCGKEY
+ * Signature: (I[J)I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_ioctlEVIOCGKEY
+	(JNIEnv *env, jobject obj, jint fd, jlongArray bits_out) {
+
+	return ioctl_state(env, fd, bits_out, _IOC_NR(EVIOCGKEY(0)));
+}
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    ioctlEVIOCGLED
+ * Signature: (I[J)I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_ioctlEVIOCGLED
+	(JNIEnv *env, jobject obj, jint fd, jlongArray bits_out) {
+
+	return ioctl_state(env, fd, bits_out, _IOC_NR(EVIOCGLED(0)));
+}
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    ioctlEVIOCGSW
+ * Signature: (I[J)I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_ioctlEVIOCGSW
+	(JNIEnv *env, jobject obj, jint fd, jlongArray bits_out) {
+
+	return ioctl_state(env, fd, bits_out, _IOC_NR(EVIOCGSW(0)));
+}
+
 /*
  * Class:     com_dgis_input_evdev_NativeEventDevice
  * Method:    ioctlEVIOCGRAB
@@ -181,3 +316,133 @@ JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_ioctlEVIOCGRA
     return ioctl(fd, EVIOCGRAB, flags);
 
 }
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    epollCreate
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_epollCreate
+	(JNIEnv *env, jobject obj) {
+
+	return epoll_create1(EPOLL_CLOEXEC);
+}
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    epollAdd
+ * Signature: (II)I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_epollAdd
+	(JNIEnv *env, jobject obj, jint epfd, jint fd) {
+
+	struct epoll_event event;
+	memset(&event, 0, sizeof(event));
+	event.events = EPOLLIN;
+	event.data.fd = fd;
+	return epoll_ctl(epfd, EPOLL_CTL_ADD, fd, &event);
+}
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    epollRemove
+ * Signature: (II)I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_epollRemove
+	(JNIEnv *env, jobject obj, jint epfd, jint fd) {
+
+	struct epoll_event event;
+	memset(&event, 0, sizeof(event));
+	return epoll_ctl(epfd, EPOLL_CTL_DEL, fd, &event);
+}
+
+#define MAX_EPOLL_EVENTS 64
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    epollWait
+ * Signature: (I[II)I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_epollWait
+	(JNIEnv *env, jobject obj, jint epfd, jintArray ready_fds, jint timeout) {
+
+	struct epoll_event events[MAX_EPOLL_EVENTS];
+	jint fds[MAX_EPOLL_EVENTS];
+	int max = (*env)->GetArrayLength(env, ready_fds);
+	if (max > MAX_EPOLL_EVENTS) max = MAX_EPOLL_EVENTS;
+	if (max < 1) return -1;
+
+	/* Do the wait */
+	int count = epoll_wait(epfd, events, max, timeout);
+	if (count < 0) {
+		return errno == EINTR ? 0 : -1;
+	}
+
+	/* Copy the ready file descriptors to the Java array */
+	int i;
+	for (i = 0; i < count; i++) {
+		fds[i] = events[i].data.fd;
+	}
+	(*env)->SetIntArrayRegion(env, ready_fds, 0, count, fds);
+
+	return count;
+}
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    eventfdCreate
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_eventfdCreate
+	(JNIEnv *env, jobject obj) {
+
+	return eventfd(0, EFD_NONBLOCK | EFD_CLOEXEC);
+}
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    eventfdSignal
+ * Signature: (I)I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_eventfdSignal
+	(JNIEnv *env, jobject obj, jint fd) {
+
+	uint64_t one = 1;
+	return write(fd, &one, sizeof(one)) == sizeof(one) ? 0 : -1;
+}
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    eventfdClear
+ * Signature: (I)I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_eventfdClear
+	(JNIEnv *env, jobject obj, jint fd) {
+
+	uint64_t count;
+	return read(fd, &count, sizeof(count)) == sizeof(count) ? 0 : -1;
+}
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    setNonBlocking
+ * Signature: (I)I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_setNonBlocking
+	(JNIEnv *env, jobject obj, jint fd) {
+
+	int flags = fcntl(fd, F_GETFL);
+	if (flags < 0) return -1;
+	return fcntl(fd, F_SETFL, flags | O_NONBLOCK);
+}
+
+/*
+ * Class:     com_dgis_input_evdev_NativeEventDevice
+ * Method:    closeFd
+ * Signature: (I)I
+ */
+JNIEXPORT jint JNICALL Java_com_dgis_input_evdev_NativeEventDevice_closeFd
+	(JNIEnv *env, jobject obj, jint fd) {
+
+	return close(fd);
+}
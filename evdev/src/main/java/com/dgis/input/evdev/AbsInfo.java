@@ -0,0 +1,63 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Snapshot of the input_absinfo struct of one axis: value, minimum, maximum, fuzz, flat and resolution.
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode
+public final class AbsInfo {
+
+    static final int VALUE_INDEX = 0;
+    static final int MIN_INDEX = 1;
+    static final int MAX_INDEX = 2;
+    static final int FUZZ_INDEX = 3;
+    static final int FLAT_INDEX = 4;
+    static final int RESOLUTION_INDEX = 5;
+
+    @Getter private final int value;
+    @Getter private final int min;
+    @Getter private final int max;
+    @Getter private final int fuzz;
+    @Getter private final int flat;
+    @Getter private final int resolution;
+
+    public AbsInfo(int value, int min, int max, int fuzz, int flat, int resolution) {
+        this.value = value;
+        this.min = min;
+        this.max = max;
+        this.fuzz = fuzz;
+        this.flat = flat;
+        this.resolution = resolution;
+    }
+
+    /**
+     * Read a snapshot from DeviceInfo.ABS_INFO_FIELDS ints laid out as by EVIOCGABS.
+     */
+    static AbsInfo of(int[] fields, int offset) {
+        return new AbsInfo(fields[offset + VALUE_INDEX], fields[offset + MIN_INDEX], fields[offset + MAX_INDEX],
+                fields[offset + FUZZ_INDEX], fields[offset + FLAT_INDEX], fields[offset + RESOLUTION_INDEX]);
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import javax.annotation.concurrent.Immutable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Event types and codes supported by a device, kept as the capability bitmaps reported by EVIOCGBIT.
+ * <p/>
+ * Lookups are O(1) and do not allocate. For each supported type a dense code to index table is precomputed, so
+ * filters can map event codes to array slots without searching.
+ */
+@Immutable
+public final class DeviceCapabilities {
+
+    /**
+     * Number of longs in the bitmap of one event type, enough for KEY_CNT codes.
+     */
+    static final int BITMAP_WORDS = (InputEvent.KEY_CNT + 63) / 64;
+
+    /**
+     * Number of codes covered by the bitmap, and length of the index tables.
+     */
+    public static final int CODE_CNT = BITMAP_WORDS * 64;
+
+    /**
+     * One bitmap of BITMAP_WORDS longs per event type. The bitmap of type 0 lists the supported types.
+     */
+    private final long[] bits;
+
+    /**
+     * Code to index tables per event type, null for unsupported types.
+     */
+    private final short[][] indexTables = new short[InputEvent.EV_CNT][];
+    private final int[] counts = new int[InputEvent.EV_CNT];
+
+    /**
+     * Legacy view, built on first use.
+     */
+    private volatile Map<Integer, List<Integer>> supportedEvents;
+
+    DeviceCapabilities(long[] bits) {
+        if (bits.length != InputEvent.EV_CNT * BITMAP_WORDS) {
+            throw new IllegalArgumentException("Malformed capability bitmaps");
+        }
+        this.bits = bits.clone();
+        for (int type = 1; type < InputEvent.EV_CNT; type++) {
+            if (supports(type)) {
+                short[] table = new short[CODE_CNT];
+                short index = 0;
+                for (int code = 0; code < CODE_CNT; code++) {
+                    table[code] = testBit(type * BITMAP_WORDS, code) ? index++ : -1;
+                }
+                indexTables[type] = table;
+                counts[type] = index;
+            }
+        }
+    }
+
+    /**
+     * Capabilities of a virtual device supporting the given event types and codes.
+     *
+     * @param supportedEvents Maps supported event types to lists of supported event codes. An EV_SYN entry is
+     *                        ignored, as the first bitmap holds the supported types.
+     */
+    static DeviceCapabilities of(Map<Integer, List<Integer>> supportedEvents) {
+        long[] bits = new long[InputEvent.EV_CNT * BITMAP_WORDS];
+        for (Map.Entry<Integer, List<Integer>> entry : supportedEvents.entrySet()) {
+            int type = entry.getKey();
+            if (type == InputEvent.EV_SYN) {
+                continue;
+            }
+            setBit(bits, 0, type);
+            for (int code : entry.getValue()) {
+                setBit(bits, type * BITMAP_WORDS, code);
+            }
+        }
+        return new DeviceCapabilities(bits);
+    }
+
+    private static void setBit(long[] bits, int offset, int bit) {
+        bits[offset + bit / 64] |= 1L << (bit % 64);
+    }
+
+    private boolean testBit(int offset, int bit) {
+        return ((bits[offset + bit / 64] >>> (bit % 64)) & 1) != 0;
+    }
+
+    /**
+     * Write the capability bitmaps, EV_CNT * BITMAP_WORDS longs.
+     */
+    void writeTo(ByteBuffer buffer) {
+        for (long word : bits) {
+            buffer.putLong(word);
+        }
+    }
+
+    /**
+     * Read capability bitmaps written by {@link #writeTo(ByteBuffer)}.
+     */
+    static DeviceCapabilities readFrom(ByteBuffer buffer) {
+        long[] bits = new long[InputEvent.EV_CNT * BITMAP_WORDS];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = buffer.getLong();
+        }
+        return new DeviceCapabilities(bits);
+    }
+
+    /**
+     * @return true if the device reports events of the given type.
+     */
+    public boolean supports(int type) {
+        return type > 0 && type < InputEvent.EV_CNT && testBit(0, type);
+    }
+
+    /**
+     * @return true if the device reports events of the given type and code.
+     */
+    public boolean supports(int type, int code) {
+        return supports(type) && code >= 0 && code < CODE_CNT && testBit(type * BITMAP_WORDS, code);
+    }
+
+    /**
+     * @return the number of codes supported for the given type.
+     */
+    public int getCodeCount(int type) {
+        return supports(type) ? counts[type] : 0;
+    }
+
+    /**
+     * @return the position of a code among the supported codes of its type, in ascending code order, or -1 if the
+     * code is not supported.
+     */
+    public int indexOf(int type, int code) {
+        return supports(type) && code >= 0 && code < CODE_CNT ? indexTables[type][code] : -1;
+    }
+
+    /**
+     * @return a copy of the code to index table of the given type: CODE_CNT entries, -1 for unsupported codes.
+     */
+    public short[] getIndexTable(int type) {
+        if (!supports(type)) {
+            short[] table = new short[CODE_CNT];
+            Arrays.fill(table, (short) -1);
+            return table;
+        }
+        return indexTables[type].clone();
+    }
+
+    /**
+     * @return the supported codes of the given type, in ascending order. The inverse of the index table.
+     */
+    public int[] getCodes(int type) {
+        int[] codes = new int[getCodeCount(type)];
+        int index = 0;
+        for (int code = 0; index < codes.length; code++) {
+            if (testBit(type * BITMAP_WORDS, code)) {
+                codes[index++] = code;
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Legacy view of the capabilities: supported event types mapped to lists of supported codes. Built on first use
+     * and shared by all callers, so neither the map nor its lists can be modified.
+     */
+    public Map<Integer, List<Integer>> asMap() {
+        Map<Integer, List<Integer>> map = supportedEvents;
+        if (map == null) {
+            Map<Integer, List<Integer>> built = new HashMap<>();
+            for (int type = 1; type < InputEvent.EV_CNT; type++) {
+                if (supports(type)) {
+                    List<Integer> codes = new ArrayList<>(counts[type]);
+                    for (int code : getCodes(type)) {
+                        codes.add(code);
+                    }
+                    built.put(type, Collections.unmodifiableList(codes));
+                }
+            }
+            map = Collections.unmodifiableMap(built);
+            supportedEvents = map;
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("DeviceCapabilities(");
+        for (int type = 1; type < InputEvent.EV_CNT; type++) {
+            if (supports(type)) {
+                if (sb.length() > "DeviceCapabilities(".length()) sb.append(", ");
+                sb.append(EventType.valueOf((short) type)).append('=').append(counts[type]);
+            }
+        }
+        return sb.append(')').toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DeviceCapabilities)) return false;
+        return Arrays.equals(bits, ((DeviceCapabilities) o).bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bits);
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+import static sun.misc.SharedSecrets.getJavaIOFileDescriptorAccess;
+
+/**
+ * Reads an evdev device node, described with ioctls on its open descriptor. Needs the native library, which is
+ * loaded on first use.
+ * <p/>
+ * A FIFO or a regular file can be opened too; it does not answer the ioctls and is reported as "Unknown Device"
+ * with no capabilities. Use {@link FileEventSource} to read them without the native library.
+ */
+public final class DeviceEventSource implements EventSource {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String path;
+    private final NativeEventDevice nativeEventDevice;
+    private final FileChannel channel;
+    private final int fd;
+    private final DeviceInfo deviceInfo;
+    private final InputEventReader reader;
+
+    /**
+     * @param device The path to the device file. Usually one of /dev/input/event*
+     * @throws IOException If the device is not found, or is otherwise inaccessible.
+     */
+    public DeviceEventSource(File device) throws IOException {
+        this(device, EventDevice.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param device    The path to the device file. Usually one of /dev/input/event*
+     * @param batchSize Maximum number of events fetched by a single read. Must be at least 1.
+     * @throws IOException If the device is not found, or is otherwise inaccessible.
+     */
+    public DeviceEventSource(File device, int batchSize) throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size has to be at least 1");
+        }
+        String arch = System.getProperty("os.arch");
+        logger.info("EventDevice: System: {}", arch);
+        NativeLibraryLoader.load();
+        this.path = device.getAbsolutePath();
+        this.nativeEventDevice = new NativeEventDevice();
+
+        FileInputStream fis = new FileInputStream(path);
+        channel = fis.getChannel();
+        fd = getJavaIOFileDescriptorAccess().get(fis.getFD());
+
+        DeviceInfo info = DeviceInfo.read(nativeEventDevice, fd);
+        if (info == null) {
+            logger.error("WARN: couldn't get device ID: {}", path);
+            info = DeviceInfo.unknown("Unknown Device");
+        }
+        deviceInfo = info;
+        reader = new InputEventReader(channel, path, arch, batchSize);
+    }
+
+    @Override
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public DeviceInfo getDeviceInfo() {
+        return deviceInfo;
+    }
+
+    @Override
+    public int read(RawInputListener listener, int maxEvents) throws IOException {
+        return reader.read(listener, maxEvents);
+    }
+
+    int getFd() {
+        return fd;
+    }
+
+    NativeEventDevice getNativeEventDevice() {
+        return nativeEventDevice;
+    }
+
+    /**
+     * Make reads return 0 instead of waiting for input.
+     */
+    void setNonBlocking() throws IOException {
+        if (nativeEventDevice.setNonBlocking(fd) < 0) {
+            throw new IOException("Cannot make " + path + " non blocking");
+        }
+    }
+
+    /**
+     * Read the input_absinfo struct of one axis.
+     *
+     * @return false if the ioctl failed.
+     */
+    boolean ioctlEVIOCGABS(int[] resp, int axis) {
+        return channel.isOpen() && nativeEventDevice.ioctlEVIOCGABS(fd, resp, axis);
+    }
+
+    /**
+     * @return the current key, switch, LED and axis state of the device, read with EVIOCGKEY, EVIOCGSW, EVIOCGLED
+     * and EVIOCGABS.
+     */
+    EventResync.DeviceState getDeviceState() {
+        return new EventResync.DeviceState() {
+            @Override
+            public boolean readKeys(long[] bits) {
+                return channel.isOpen() && nativeEventDevice.ioctlEVIOCGKEY(fd, bits) >= 0;
+            }
+
+            @Override
+            public boolean readSwitches(long[] bits) {
+                return channel.isOpen() && nativeEventDevice.ioctlEVIOCGSW(fd, bits) >= 0;
+            }
+
+            @Override
+            public boolean readLeds(long[] bits) {
+                return channel.isOpen() && nativeEventDevice.ioctlEVIOCGLED(fd, bits) >= 0;
+            }
+
+            @Override
+            public boolean readAxis(int[] resp, int axis) {
+                return ioctlEVIOCGABS(resp, axis);
+            }
+        };
+    }
+
+    /**
+     * @return the result of the EVIOCGRAB ioctl, 0 on success.
+     */
+    int ioctlEVIOCGRAB(int flags) {
+        return nativeEventDevice.ioctlEVIOCGRAB(fd, flags);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The devices found by {@link DeviceProbe#probeAll(File)}, indexed by the event types and codes they support.
+ * <p/>
+ * Queries intersect precomputed sets of devices instead of inspecting every device, e.g.
+ * <pre>
+ * List&lt;File&gt; touchscreens = index.query()
+ *         .supporting(InputEvent.EV_ABS)
+ *         .supporting(InputEvent.EV_KEY, InputEvent.BTN_TOUCH)
+ *         .list();
+ * </pre>
+ * Nodes are ordered by name, event2 before event10.
+ */
+@Immutable
+public final class DeviceIndex {
+
+    private static final Comparator<File> BY_NAME =
+            Comparator.comparingInt((File file) -> file.getName().length()).thenComparing(File::getName);
+
+    private final File[] nodes;
+    private final DeviceInfo[] infos;
+    private final Map<File, DeviceInfo> byNode = new HashMap<>();
+
+    /**
+     * Devices supporting an event type, by type.
+     */
+    private final Map<Integer, BitSet> byType = new HashMap<>();
+
+    /**
+     * Devices supporting an event code, by type * CODE_CNT + code.
+     */
+    private final Map<Integer, BitSet> byCode = new HashMap<>();
+
+    DeviceIndex(Map<File, DeviceInfo> devices) {
+        List<File> sorted = new ArrayList<>(devices.keySet());
+        sorted.sort(BY_NAME);
+        nodes = new File[sorted.size()];
+        infos = new DeviceInfo[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = sorted.get(i).getAbsoluteFile();
+            infos[i] = devices.get(sorted.get(i));
+            byNode.put(nodes[i], infos[i]);
+            DeviceCapabilities capabilities = infos[i].getCapabilities();
+            for (int type = 0; type < InputEvent.EV_CNT; type++) {
+                if (!capabilities.supports(type)) continue;
+                byType.computeIfAbsent(type, t -> new BitSet(nodes.length)).set(i);
+                for (int code : capabilities.getCodes(type)) {
+                    byCode.computeIfAbsent(type * DeviceCapabilities.CODE_CNT + code, c -> new BitSet(nodes.length))
+                            .set(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of devices.
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * @return every node of the index.
+     */
+    public List<File> getNodes() {
+        return Collections.unmodifiableList(Arrays.asList(nodes.clone()));
+    }
+
+    /**
+     * @return the description of the node, or null if it is not in the index.
+     */
+    public DeviceInfo getDeviceInfo(File node) {
+        return byNode.get(node.getAbsoluteFile());
+    }
+
+    /**
+     * @return a query matching every device, to be narrowed down.
+     */
+    public Query query() {
+        BitSet all = new BitSet(nodes.length);
+        all.set(0, nodes.length);
+        return new Query(all);
+    }
+
+    /**
+     * A set of devices of the index. Each refinement returns a new query, the original is left unchanged.
+     */
+    @Immutable
+    public final class Query {
+
+        private final BitSet matches;
+
+        private Query(BitSet matches) {
+            this.matches = matches;
+        }
+
+        /**
+         * @return the devices of this query supporting the event type.
+         */
+        public Query supporting(int type) {
+            return and(byType.get(type));
+        }
+
+        /**
+         * @return the devices of this query supporting the event code.
+         */
+        public Query supporting(int type, int code) {
+            if (code < 0 || code >= DeviceCapabilities.CODE_CNT) {
+                return and(null);
+            }
+            return and(byCode.get(type * DeviceCapabilities.CODE_CNT + code));
+        }
+
+        /**
+         * @return the devices of this query accepted by the predicate, e.g. {@link DeviceManager#product(int, int)}.
+         */
+        public Query matching(Predicate<? super DeviceInfo> predicate) {
+            BitSet result = (BitSet) matches.clone();
+            for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                if (!predicate.test(infos[i])) {
+                    result.clear(i);
+                }
+            }
+            return new Query(result);
+        }
+
+        private Query and(BitSet devices) {
+            BitSet result = (BitSet) matches.clone();
+            if (devices == null) {
+                result.clear();
+            } else {
+                result.and(devices);
+            }
+            return new Query(result);
+        }
+
+        /**
+         * @return the number of matching devices.
+         */
+        public int count() {
+            return matches.cardinality();
+        }
+
+        /**
+         * @return the matching nodes, ordered by name.
+         */
+        public List<File> list() {
+            List<File> result = new ArrayList<>(matches.cardinality());
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                result.add(nodes[i]);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import javax.annotation.concurrent.Immutable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Static description of an evdev device: ID, name, evdev version, capability bitmaps and axis parameters.
+ * <p/>
+ * Read from an open device with a single native call, see {@link #read(NativeEventDevice, int)}.
+ */
+@Immutable
+public final class DeviceInfo {
+
+    /**
+     * Number of ints describing one axis: value, minimum, maximum, fuzz, flat and resolution.
+     */
+    static final int ABS_INFO_FIELDS = 6;
+
+    private static final int NAME_LENGTH = 256;
+
+    private final short[] id;
+    private final String name;
+    private final int evdevVersion;
+
+    private final DeviceCapabilities capabilities;
+
+    /**
+     * ABS_INFO_FIELDS ints per axis, zero for unsupported axes.
+     */
+    private final int[] absInfo;
+
+    DeviceInfo(short[] id, String name, int evdevVersion, long[] bits, int[] absInfo) {
+        this(id, name, evdevVersion, new DeviceCapabilities(bits), absInfo);
+    }
+
+    private DeviceInfo(short[] id, String name, int evdevVersion, DeviceCapabilities capabilities, int[] absInfo) {
+        if (id.length != 4 || absInfo.length != InputEvent.ABS_CNT * ABS_INFO_FIELDS) {
+            throw new IllegalArgumentException("Malformed device description");
+        }
+        this.id = id.clone();
+        this.name = name;
+        this.evdevVersion = evdevVersion;
+        this.capabilities = capabilities;
+        this.absInfo = absInfo.clone();
+    }
+
+    /**
+     * Describe the device open on the given descriptor.
+     *
+     * @return the description, or null if the descriptor is not an evdev device (a FIFO or a regular file).
+     */
+    static DeviceInfo read(NativeEventDevice nativeEventDevice, int fd) {
+        short[] id = new short[4];
+        byte[] name = new byte[NAME_LENGTH];
+        long[] bits = new long[InputEvent.EV_CNT * DeviceCapabilities.BITMAP_WORDS];
+        int[] absInfo = new int[InputEvent.ABS_CNT * ABS_INFO_FIELDS];
+        int version = nativeEventDevice.ioctlDescribe(fd, id, name, bits, absInfo);
+        if (version < 0) {
+            return null;
+        }
+        return new DeviceInfo(id, decodeName(name), version, bits, absInfo);
+    }
+
+    /**
+     * Description of a device that does not answer evdev ioctls: no ID, no capabilities.
+     */
+    static DeviceInfo unknown(String name) {
+        return new DeviceInfo(new short[4], name, 0, new long[InputEvent.EV_CNT * DeviceCapabilities.BITMAP_WORDS],
+                new int[InputEvent.ABS_CNT * ABS_INFO_FIELDS]);
+    }
+
+    /**
+     * Description of a virtual device supporting the given event types and codes.
+     *
+     * @param supportedEvents Maps supported event types to lists of supported event codes.
+     */
+    public static DeviceInfo of(String name, Map<Integer, List<Integer>> supportedEvents) {
+        return new DeviceInfo(new short[4], name, 0, DeviceCapabilities.of(supportedEvents),
+                new int[InputEvent.ABS_CNT * ABS_INFO_FIELDS]);
+    }
+
+    private static String decodeName(byte[] name) {
+        int length = 0;
+        while (length < name.length && name[length] != 0) length++;
+        return new String(name, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write this description: ID, evdev version, name length and UTF-8 bytes, capability bitmaps and absinfo.
+     */
+    void writeTo(ByteBuffer buffer) {
+        for (short part : id) {
+            buffer.putShort(part);
+        }
+        buffer.putInt(evdevVersion);
+        byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) encodedName.length);
+        buffer.put(encodedName);
+        capabilities.writeTo(buffer);
+        for (int field : absInfo) {
+            buffer.putInt(field);
+        }
+    }
+
+    /**
+     * @return the number of bytes written by {@link #writeTo(ByteBuffer)}.
+     */
+    int encodedSize() {
+        return id.length * 2 + 4 + 2 + name.getBytes(StandardCharsets.UTF_8).length
+                + InputEvent.EV_CNT * DeviceCapabilities.BITMAP_WORDS * 8 + absInfo.length * 4;
+    }
+
+    /**
+     * Read a description written by {@link #writeTo(ByteBuffer)}.
+     */
+    static DeviceInfo readFrom(ByteBuffer buffer) {
+        short[] id = new short[4];
+        for (int i = 0; i < id.length; i++) {
+            id[i] = buffer.getShort();
+        }
+        int evdevVersion = buffer.getInt();
+        byte[] encodedName = new byte[buffer.getShort() & 0xffff];
+        buffer.get(encodedName);
+        DeviceCapabilities capabilities = DeviceCapabilities.readFrom(buffer);
+        int[] absInfo = new int[InputEvent.ABS_CNT * ABS_INFO_FIELDS];
+        for (int i = 0; i < absInfo.length; i++) {
+            absInfo[i] = buffer.getInt();
+        }
+        return new DeviceInfo(id, new String(encodedName, StandardCharsets.UTF_8), evdevVersion, capabilities, absInfo);
+    }
+
+    public short getBusID() {
+        return id[InputEvent.ID_BUS];
+    }
+
+    public short getVendorID() {
+        return id[InputEvent.ID_VENDOR];
+    }
+
+    public short getProductID() {
+        return id[InputEvent.ID_PRODUCT];
+    }
+
+    public short getVersionID() {
+        return id[InputEvent.ID_VERSION];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getEvdevVersion() {
+        return evdevVersion;
+    }
+
+    public DeviceCapabilities getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * @return the parameters of an absolute axis as read when the device was opened, or null if the device does
+     * not report that axis.
+     */
+    public AbsInfo getAbsInfo(int axis) {
+        if (axis >= InputEvent.ABS_CNT || !capabilities.supports(InputEvent.EV_ABS, axis)) {
+            return null;
+        }
+        return AbsInfo.of(absInfo, axis * ABS_INFO_FIELDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DeviceInfo(name=%s, bus=0x%x, vendor=0x%x, product=0x%x, version=0x%x, evdevVersion=0x%x)",
+                name, getBusID(), getVendorID(), getProductID(), getVersionID(), evdevVersion);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DeviceInfo)) return false;
+        DeviceInfo that = (DeviceInfo) o;
+        return evdevVersion == that.evdevVersion && Arrays.equals(id, that.id) && name.equals(that.name)
+                && capabilities.equals(that.capabilities) && Arrays.equals(absInfo, that.absInfo);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(id) + name.hashCode();
+    }
+}
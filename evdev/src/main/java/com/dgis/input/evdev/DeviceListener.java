@@ -0,0 +1,38 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+/**
+ * Notified by a {@link DeviceManager} when matching devices appear and disappear.
+ */
+public interface DeviceListener {
+    /**
+     * Called when a matching device was opened, before it is read. Register the listeners of the device here to
+     * receive all its events.
+     *
+     * @param device The opened device.
+     */
+    void deviceAdded(EventDevice device);
+
+    /**
+     * Called after a device was closed, because its node was removed or replaced, or the manager was closed.
+     *
+     * @param device The closed device.
+     */
+    default void deviceRemoved(EventDevice device) {
+    }
+}
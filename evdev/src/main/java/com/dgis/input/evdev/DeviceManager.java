@@ -0,0 +1,342 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Opens the evdev nodes of a directory, usually /dev/input, as they come and go.
+ * <p/>
+ * The directory is enumerated when the manager is created, then watched with a {@link WatchService}, which is
+ * backed by inotify on Linux. Nodes named event<i>N</i> whose {@link DeviceInfo} passes the filter are opened
+ * into the given event loop and handed to the {@link DeviceListener}; nodes that are removed or replaced are
+ * closed. Changes are applied one node at a time: a node is only opened again if it was replaced (a different
+ * inode under the same name) or its last open failed, e.g. because udev had not set its permissions yet. Only a
+ * watch overflow leads to a full rescan, which is incremental as well.
+ * <p/>
+ * The listener is called from the creating thread for the initial nodes, then from the watcher thread.
+ */
+public class DeviceManager implements Closeable {
+
+    /**
+     * Where the kernel creates evdev nodes.
+     */
+    public static final File INPUT_DIRECTORY = new File("/dev/input");
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Path directory;
+    private final EventLoop eventLoop;
+    private final Predicate<? super DeviceInfo> filter;
+    private final DeviceListener listener;
+    private final WatchService watchService;
+    private final Thread watcherThread;
+
+    /**
+     * Every node seen, by name, opened or not. Guarded by this.
+     */
+    private final Map<String, Node> nodes = new HashMap<>();
+
+    /**
+     * The open devices, by name, readable without locking.
+     */
+    private final Map<String, EventDevice> devices = new ConcurrentHashMap<>();
+
+    private volatile boolean terminate = false;
+
+    /**
+     * Open the matching devices of /dev/input, now and when they are plugged in.
+     *
+     * @param eventLoop The event loop reading the devices, or null to give each device its own reader thread.
+     * @param filter    Selects the devices to open, e.g. {@link #product(int, int)}.
+     * @param listener  Notified when devices are opened and closed.
+     * @throws IOException If the directory cannot be watched.
+     */
+    public DeviceManager(EventLoop eventLoop, Predicate<? super DeviceInfo> filter, DeviceListener listener)
+            throws IOException {
+        this(INPUT_DIRECTORY, eventLoop, filter, listener);
+    }
+
+    /**
+     * Open the matching devices of the given directory, now and when they appear.
+     *
+     * @param directory The directory holding the nodes. FIFOs are opened like evdev nodes, as "Unknown Device".
+     * @param eventLoop The event loop reading the devices, or null to give each device its own reader thread.
+     * @param filter    Selects the devices to open.
+     * @param listener  Notified when devices are opened and closed.
+     * @throws IOException If the directory cannot be watched.
+     */
+    public DeviceManager(File directory, EventLoop eventLoop, Predicate<? super DeviceInfo> filter,
+                         DeviceListener listener) throws IOException {
+        this.directory = directory.toPath();
+        this.eventLoop = eventLoop;
+        this.filter = filter;
+        this.listener = listener;
+        this.watchService = this.directory.getFileSystem().newWatchService();
+        try {
+            /* Watch before listing, so that no node falls between the two */
+            this.directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            rescan();
+        } catch (IOException | RuntimeException e) {
+            watchService.close();
+            throw e;
+        }
+        watcherThread = new Thread(this::watch, "evdev-device-manager");
+        watcherThread.setDaemon(true); /* We don't want this thread to prevent the JVM from terminating */
+        watcherThread.start();
+    }
+
+    /**
+     * Matches devices of the given vendor.
+     */
+    public static Predicate<DeviceInfo> vendor(int vendorId) {
+        return info -> (info.getVendorID() & 0xffff) == vendorId;
+    }
+
+    /**
+     * Matches devices with the given vendor and product IDs.
+     */
+    public static Predicate<DeviceInfo> product(int vendorId, int productId) {
+        return info -> (info.getVendorID() & 0xffff) == vendorId && (info.getProductID() & 0xffff) == productId;
+    }
+
+    /**
+     * Matches devices whose name contains a match of the given regular expression.
+     */
+    public static Predicate<DeviceInfo> name(String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        return info -> pattern.matcher(info.getName()).find();
+    }
+
+    /**
+     * @return the devices currently open.
+     */
+    public List<EventDevice> getDevices() {
+        return new ArrayList<>(devices.values());
+    }
+
+    /**
+     * Compare the directory with the nodes seen so far: open new and replaced nodes, retry failed ones and close
+     * the devices of removed nodes. Unchanged devices stay open.
+     *
+     * @throws IOException If the directory cannot be listed.
+     */
+    public synchronized void rescan() throws IOException {
+        Set<String> present = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (DeviceProbe.EVENT_NODE.matcher(name).matches()) {
+                    present.add(name);
+                    update(name, true);
+                }
+            }
+        }
+        for (String name : new ArrayList<>(nodes.keySet())) {
+            if (!present.contains(name)) {
+                remove(name);
+            }
+        }
+    }
+
+    /**
+     * Stop watching the directory and close every device opened by this manager. The event loop is left running.
+     */
+    @Override
+    public void close() {
+        terminate = true;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.error("Error in close", e);
+        }
+        try {
+            watcherThread.join();
+        } catch (InterruptedException e) {
+            logger.error("Interrupted in close", e);
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (String name : new ArrayList<>(nodes.keySet())) {
+                remove(name);
+            }
+        }
+    }
+
+    private void watch() {
+        while (!terminate) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                try {
+                    handle(event);
+                } catch (IOException e) {
+                    logger.error("Cannot rescan {}", directory, e);
+                }
+            }
+            if (!key.reset()) {
+                logger.warn("{} cannot be watched anymore", directory);
+                return;
+            }
+        }
+    }
+
+    private synchronized void handle(WatchEvent<?> event) throws IOException {
+        if (terminate) return;
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            logger.info("Missed changes of {}, rescanning", directory);
+            rescan();
+            return;
+        }
+        String name = event.context().toString();
+        if (!DeviceProbe.EVENT_NODE.matcher(name).matches()) return;
+        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            remove(name);
+        } else {
+            update(name, event.kind() == StandardWatchEventKinds.ENTRY_CREATE);
+        }
+    }
+
+    /**
+     * Open the node if it is new, was replaced, or failed to open before.
+     *
+     * @param created True if the node may have been replaced, false if only its attributes changed.
+     */
+    private void update(String name, boolean created) {
+        Path path = directory.resolve(name);
+        Object fileKey;
+        try {
+            fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        } catch (NoSuchFileException e) {
+            remove(name);
+            return;
+        } catch (IOException e) {
+            logger.warn("Cannot inspect {}", path, e);
+            return;
+        }
+        Node node = nodes.get(name);
+        if (node != null) {
+            boolean replaced = created && !Objects.equals(node.fileKey, fileKey);
+            if (!replaced && !node.failed) return;
+            remove(name);
+        }
+        nodes.put(name, open(path, fileKey));
+    }
+
+    private Node open(Path path, Object fileKey) {
+        DeviceEventSource source;
+        try {
+            source = new DeviceEventSource(path.toFile());
+        } catch (IOException e) {
+            logger.warn("Cannot open {}, retrying when it changes", path, e);
+            return new Node(fileKey, null, true);
+        }
+        if (!filter.test(source.getDeviceInfo())) {
+            logger.debug("Ignoring {}: {}", path, source.getDeviceInfo());
+            closeQuietly(source);
+            return new Node(fileKey, null, false);
+        }
+        String name = path.getFileName().toString();
+        EventDevice device = new EventDevice(source, eventLoop);
+        devices.put(name, device);
+        try {
+            listener.deviceAdded(device);
+        } catch (RuntimeException e) {
+            logger.error("Device listener failed on {}", path, e);
+        }
+        try {
+            device.startReading();
+        } catch (IOException e) {
+            logger.warn("Cannot read {}, retrying when it changes", path, e);
+            devices.remove(name);
+            notifyRemoved(device);
+            return new Node(fileKey, null, true);
+        }
+        logger.info("Opened {}: {}", path, device.getDeviceInfo());
+        return new Node(fileKey, device, false);
+    }
+
+    private void remove(String name) {
+        Node node = nodes.remove(name);
+        if (node == null || node.device == null) return;
+        devices.remove(name);
+        node.device.close();
+        logger.info("Closed {}", node.device.getDevicePath());
+        notifyRemoved(node.device);
+    }
+
+    private void notifyRemoved(EventDevice device) {
+        try {
+            listener.deviceRemoved(device);
+        } catch (RuntimeException e) {
+            logger.error("Device listener failed on {}", device.getDevicePath(), e);
+        }
+    }
+
+    private void closeQuietly(EventSource source) {
+        try {
+            source.close();
+        } catch (IOException e) {
+            logger.warn("Error closing {}", source.getPath(), e);
+        }
+    }
+
+    /**
+     * A node of the directory: its identity, and the device opened from it, if any.
+     */
+    private static final class Node {
+        private final Object fileKey;
+        private final EventDevice device;
+        private final boolean failed;
+
+        private Node(Object fileKey, EventDevice device, boolean failed) {
+            this.fileKey = fileKey;
+            this.device = device;
+            this.failed = failed;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static sun.misc.SharedSecrets.getJavaIOFileDescriptorAccess;
+
+/**
+ * Describes evdev nodes without opening an {@link EventDevice}: each node is opened, described by a single
+ * native call reading ID, name, capability bitmaps and axis ranges, and closed again. No reader, no thread, no
+ * event buffer. Whole directories are probed in parallel into a {@link DeviceIndex}.
+ */
+public final class DeviceProbe {
+
+    /**
+     * Names of the evdev nodes in /dev/input.
+     */
+    static final Pattern EVENT_NODE = Pattern.compile("event\\d+");
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceProbe.class);
+
+    private DeviceProbe() {
+    }
+
+    /**
+     * Describe one node.
+     *
+     * @param node The node, usually one of /dev/input/event*
+     * @return the description, or null if the node is not an evdev device.
+     * @throws IOException If the node cannot be opened.
+     */
+    public static DeviceInfo probe(File node) throws IOException {
+        NativeLibraryLoader.load();
+        NativeEventDevice nativeEventDevice = new NativeEventDevice();
+        try (FileInputStream in = new FileInputStream(node)) {
+            return DeviceInfo.read(nativeEventDevice, getJavaIOFileDescriptorAccess().get(in.getFD()));
+        }
+    }
+
+    /**
+     * Probe the evdev nodes of a directory in parallel, on at most one thread per processor.
+     *
+     * @param directory The directory holding the nodes, usually {@link DeviceManager#INPUT_DIRECTORY}.
+     * @return the evdev devices found. Nodes that cannot be opened are left out.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public static DeviceIndex probeAll(File directory) throws IOException {
+        List<File> nodes = listNodes(directory);
+        int threads = Math.max(1, Math.min(nodes.size(), Runtime.getRuntime().availableProcessors()));
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "evdev-probe-" + count.getAndIncrement());
+            thread.setDaemon(true); /* We don't want this thread to prevent the JVM from terminating */
+            return thread;
+        });
+        try {
+            return probeAll(nodes, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Probe the evdev nodes of a directory in parallel.
+     *
+     * @param directory The directory holding the nodes, usually {@link DeviceManager#INPUT_DIRECTORY}.
+     * @param executor  Runs the probes, one task per node. A bounded pool keeps the number of open nodes bounded.
+     * @return the evdev devices found. Nodes that cannot be opened are left out.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public static DeviceIndex probeAll(File directory, Executor executor) throws IOException {
+        return probeAll(listNodes(directory), executor);
+    }
+
+    private static DeviceIndex probeAll(List<File> nodes, Executor executor) {
+        List<CompletableFuture<DeviceInfo>> probes = new ArrayList<>(nodes.size());
+        for (File node : nodes) {
+            probes.add(CompletableFuture.supplyAsync(() -> probeQuietly(node), executor));
+        }
+        Map<File, DeviceInfo> devices = new LinkedHashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            DeviceInfo info = probes.get(i).join();
+            if (info != null) {
+                devices.put(nodes.get(i), info);
+            }
+        }
+        return new DeviceIndex(devices);
+    }
+
+    private static DeviceInfo probeQuietly(File node) {
+        try {
+            return probe(node);
+        } catch (IOException e) {
+            logger.warn("Cannot probe {}", node, e);
+            return null;
+        }
+    }
+
+    private static List<File> listNodes(File directory) throws IOException {
+        File[] files = directory.listFiles((dir, name) -> EVENT_NODE.matcher(name).matches());
+        if (files == null) {
+            throw new IOException("Cannot list " + directory);
+        }
+        List<File> nodes = new ArrayList<>();
+        for (File file : files) {
+            nodes.add(file.getAbsoluteFile());
+        }
+        return nodes;
+    }
+}
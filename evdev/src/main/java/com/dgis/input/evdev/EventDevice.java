@@ -19,24 +19,15 @@ package com.dgis.input.evdev;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
-
-import static sun.misc.SharedSecrets.getJavaIOFileDescriptorAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Represents a connection to a Linux Evdev device.
@@ -50,29 +41,58 @@ import static sun.misc.SharedSecrets.getJavaIOFileDescriptorAccess;
  */
 public class EventDevice {
 
-    private final Logger logger = LoggerFactory.getLogger(getClass());
+    /**
+     * Default number of input_event structs fetched by a single read.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
 
-    private final NativeEventDevice nativeEventDevice;
+    /**
+     * Replay speed of {@link #replay(File, double)} that delivers events without waiting.
+     */
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
 
-    /** system architecture, for arch-specific struct handling */
-    private String arch = "amd64";
+    private final Logger logger = LoggerFactory.getLogger(getClass());
 
     /**
      * Notify these guys about input events.
      */
     private final List<InputListener> listeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * Notify these guys about input events, without allocating an InputEvent.
+     * Copied on write, so that dispatch iterates over a plain array.
+     */
+    private volatile RawInputListener[] rawListeners = new RawInputListener[0];
+
+    /**
+     * Groups events into frames for the InputFrameListeners.
+     */
+    private final InputFrameAssembler frameAssembler;
+
     /**
      * Device filename we're using.
      */
     private final String device;
 
     /**
-     * Attached to device we're using.
+     * Where the events are read from.
      */
-    private FileChannel deviceInput;
-    private final ByteBuffer inputBuffer;
-    private int fd;
+    private final EventSource source;
+
+    /**
+     * The source if it is an evdev node, which supports ioctls and event loops; null otherwise.
+     */
+    private final DeviceEventSource deviceSource;
+
+    /**
+     * Maximum number of events fetched by a single read.
+     */
+    private final int batchSize;
+
+    /**
+     * Passes the events read on, and recovers from SYN_DROPPED.
+     */
+    private final EventResync resync;
 
 
     /**
@@ -81,26 +101,40 @@ public class EventDevice {
     private volatile boolean terminate = false;
 
     /**
-     * This thread repeatedly calls readEvent().
+     * This thread repeatedly calls readEvents(), unless the device is read by an event loop.
      */
-    private Thread readerThread;
+    private volatile Thread readerThread;
 
-    private final short[] idResponse = new short[4];
+    /**
+     * The event loop reading this device, or null if the device has its own reader thread.
+     */
+    private final EventLoop eventLoop;
 
-    private int evdevVersionResponse;
+    /**
+     * True if the device has neither a reader thread nor an event loop, and is read by calling drain().
+     */
+    private final boolean polled;
 
-    private String deviceNameResponse;
+    /**
+     * Hands the events read to the listeners, or to the ring of the dispatch thread once dispatch is decoupled.
+     */
+    private volatile RawInputListener dispatcher = this::distributeEvent;
+
+    /**
+     * Distributes events taken from a ring when dispatch is decoupled from reading, null otherwise.
+     */
+    private Thread dispatchThread;
 
     /**
-     * Maps supported event types (keys) to lists of supported event codes.
+     * ID, name, version and capabilities, read once when the device is opened.
      */
-    private final HashMap<Integer, List<Integer>> supportedEvents = new HashMap<>();
+    private DeviceInfo deviceInfo;
 
 
     /**
      * Ensures only one instance of InputAxisParameters is created for each axis (more would be wasteful).
      */
-    private final HashMap<Integer, InputAxisParameters> axisParams = new HashMap<>();
+    private final AtomicReferenceArray<InputAxisParameters> axisParams = new AtomicReferenceArray<>(InputEvent.ABS_CNT);
 
     /**
      * Create an EventDevice by connecting to the provided device filename.
@@ -110,74 +144,227 @@ public class EventDevice {
      * @throws IOException If the device is not found, or is otherwise inaccessible.
      */
     public EventDevice(File device) throws IOException {
-        // check for embedded library:
-        arch = System.getProperty("os.arch");
-        logger.info("EventDevice: System: {}", arch);
-        if (arch.equals("arm")) {
-            inputBuffer = ByteBuffer.allocate(InputEvent.STRUCT_SIZE_BYTES_ARM);
-        } else {
-            inputBuffer = ByteBuffer.allocate(InputEvent.STRUCT_SIZE_BYTES);
-        }
-        String libPath = "/evdev-native.so";
-        logger.info("EventDevice: libPath: {}", libPath);
-        InputStream in = EventDevice.class.getResourceAsStream(libPath);
-        logger.info("EventDevice: in: {}", in);
-        if (in != null) {
-            final File nativeLibFile = File.createTempFile("libevdev-java", ".so");
-            nativeLibFile.deleteOnExit();
-
-            final OutputStream out = new BufferedOutputStream(new FileOutputStream(nativeLibFile));
-
-            int len;
-            byte[] buffer = new byte[8192];
-            while ((len = in.read(buffer)) > -1) {
-                out.write(buffer, 0, len);
-            }
-            out.close();
-            in.close();
+        this(device, DEFAULT_BATCH_SIZE);
+    }
 
-            System.load(nativeLibFile.getAbsolutePath());
-        } else {
-            logger.warn("EventDevice: falling back to java.library.path.");
-            System.loadLibrary("evdev-java");
-        }
-        this.device = device.getAbsolutePath();
-        this.nativeEventDevice = new NativeEventDevice();
-        inputBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        initDevice();
+    /**
+     * Create an EventDevice by connecting to the provided device filename, reading up to batchSize events
+     * with each read.
+     * <p/>
+     * The device can also be a FIFO or a regular file of recorded input_event structs; the reader thread
+     * terminates when the end of the file is reached.
+     *
+     * @param device    The path to the device file. Usually one of /dev/input/event*
+     * @param batchSize Maximum number of events fetched by a single read. Must be at least 1.
+     * @throws IOException If the device is not found, or is otherwise inaccessible.
+     */
+    public EventDevice(File device, int batchSize) throws IOException {
+        this(device, batchSize, null);
+    }
+
+    /**
+     * Create an EventDevice by connecting to the provided device filename, and read it from the given event
+     * loop instead of a dedicated reader thread.
+     *
+     * @param device    The path to the device file. Usually one of /dev/input/event*
+     * @param eventLoop The event loop reading this device.
+     * @throws IOException If the device is not found, or is otherwise inaccessible.
+     */
+    public EventDevice(File device, EventLoop eventLoop) throws IOException {
+        this(device, DEFAULT_BATCH_SIZE, eventLoop);
     }
 
     /**
-     * Get various ID info. Then, open the file, get the channel, and start the reader thread.
+     * Create an EventDevice by connecting to the provided device filename, reading up to batchSize events
+     * with each read.
      *
-     * @throws IOException
+     * @param device    The path to the device file. Usually one of /dev/input/event*
+     * @param batchSize Maximum number of events fetched by a single read. Must be at least 1.
+     * @param eventLoop The event loop reading this device, or null to start a dedicated reader thread.
+     * @throws IOException If the device is not found, or is otherwise inaccessible.
+     */
+    public EventDevice(File device, int batchSize, EventLoop eventLoop) throws IOException {
+        this(device, batchSize, eventLoop, false);
+    }
+
+    /**
+     * Create an EventDevice by connecting to the provided device filename, without any reader thread. Events
+     * are read on the caller's thread by {@link #drain(RawInputListener, int)} or {@link #drain(int)}.
+     *
+     * @param device The path to the device file. Usually one of /dev/input/event*
+     * @throws IOException If the device is not found, or is otherwise inaccessible.
      */
-    private void initDevice() throws IOException {
-        if (!nativeEventDevice.ioctlGetID(device, idResponse)) {
-            logger.error("WARN: couldn't get device ID: {}", device);
-            Arrays.fill(idResponse, (short) 0);
+    public static EventDevice polled(File device) throws IOException {
+        return polled(device, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create an EventDevice by connecting to the provided device filename, without any reader thread, reading
+     * up to batchSize events with each read.
+     *
+     * @param device    The path to the device file. Usually one of /dev/input/event*
+     * @param batchSize Maximum number of events fetched by a single read. Must be at least 1.
+     * @throws IOException If the device is not found, or is otherwise inaccessible.
+     */
+    public static EventDevice polled(File device, int batchSize) throws IOException {
+        return new EventDevice(device, batchSize, null, true);
+    }
+
+    private EventDevice(File device, int batchSize, EventLoop eventLoop, boolean polled) throws IOException {
+        this(new DeviceEventSource(device, batchSize), batchSize, eventLoop, polled);
+        startReading();
+    }
+
+    /**
+     * Create an EventDevice reading the given source with a dedicated reader thread. Register the listeners, then
+     * call {@link #start()}; the reader thread terminates at the end of the source.
+     *
+     * @param source The source of the events, e.g. a {@link FileEventSource} or a {@link MemoryEventSource}.
+     */
+    public EventDevice(EventSource source) {
+        this(source, DEFAULT_BATCH_SIZE, null, false);
+    }
+
+    /**
+     * Create an EventDevice reading the given source without any reader thread. Events are read on the caller's
+     * thread by {@link #drain(RawInputListener, int)} or {@link #drain(int)}. Evdev nodes are made non blocking;
+     * other sources block if their reads do.
+     *
+     * @param source The source of the events.
+     * @throws IOException If an evdev node cannot be made non blocking.
+     */
+    public static EventDevice polled(EventSource source) throws IOException {
+        EventDevice device = new EventDevice(source, DEFAULT_BATCH_SIZE, null, true);
+        device.startReading();
+        return device;
+    }
+
+    /**
+     * Create a virtual EventDevice replaying an event log written by {@link EventRecorder}, at the recorded pace.
+     * It reports the recorded ID, name and capabilities. Register the listeners, then call {@link #startReplay()};
+     * the reader thread terminates at the end of the log.
+     *
+     * @param log The first segment file of the log. Following segments of the same name are replayed after it.
+     * @throws IOException If the log cannot be read.
+     */
+    public static EventDevice replay(File log) throws IOException {
+        return replay(log, 1.0);
+    }
+
+    /**
+     * Create a virtual EventDevice replaying an event log written by {@link EventRecorder}.
+     *
+     * @param log   The first segment file of the log. Following segments of the same name are replayed after it.
+     * @param speed Replay speed relative to the recorded pace, e.g. 10 for ten times faster, or
+     *              {@link #AS_FAST_AS_POSSIBLE}.
+     * @throws IOException If the log cannot be read.
+     */
+    public static EventDevice replay(File log, double speed) throws IOException {
+        return new EventDevice(new EventLogReplay(log, speed), DEFAULT_BATCH_SIZE, null, false);
+    }
+
+    /**
+     * Start delivering the events of a device created by {@link #replay(File, double)}.
+     *
+     * @throws IllegalStateException If the device does not replay a log, or was already started.
+     */
+    public void startReplay() {
+        if (!(source instanceof EventLogReplay)) {
+            throw new IllegalStateException("Not a replay device: " + device);
         }
-        evdevVersionResponse = nativeEventDevice.ioctlGetEvdevVersion(device);
-        byte[] devName = new byte[255];
-        if (nativeEventDevice.ioctlGetDeviceName(device, devName)) {
-            deviceNameResponse = new String(devName);
-        } else {
-            logger.error("WARN: couldn't get device name: {}", device);
-            deviceNameResponse = "Unknown Device";
+        start();
+    }
+
+    /**
+     * Start the reader thread of a device created by {@link #EventDevice(EventSource)} or
+     * {@link #replay(File, double)}. Devices opened from a file start reading when they are created.
+     *
+     * @throws IllegalStateException If the device is polled, read by an event loop, or was already started.
+     */
+    public synchronized void start() {
+        if (polled || eventLoop != null || readerThread != null) {
+            throw new IllegalStateException("Reading already started, or not read by a thread: " + device);
         }
+        startReaderThread();
+    }
 
-        readSupportedEvents();
+    /**
+     * Create an EventDevice that is not connected to any device file, for tests and benchmarks. No reader
+     * thread is started, events are injected through distributeEvent().
+     *
+     * @param device          The name reported as device path and device name.
+     * @param supportedEvents Maps supported event types to lists of supported event codes.
+     */
+    EventDevice(String device, Map<Integer, List<Integer>> supportedEvents) {
+        this(new MemoryEventSource(device, ByteBuffer.allocate(0), DeviceInfo.of(device, supportedEvents)),
+                DEFAULT_BATCH_SIZE, null, false);
+    }
+
+    /**
+     * Create an EventDevice for the given open node, read by the event loop once startReading() is called.
+     *
+     * @param source    The open evdev node.
+     * @param eventLoop The event loop reading the device, or null to start a dedicated reader thread.
+     */
+    EventDevice(DeviceEventSource source, EventLoop eventLoop) {
+        this(source, DEFAULT_BATCH_SIZE, eventLoop, false);
+    }
+
+    /**
+     * Take ID info and capabilities from the source. Reading starts with startReading() or startReaderThread().
+     *
+     * @param source    Where the events are read from.
+     * @param batchSize Maximum number of events fetched by a single read. Must be at least 1.
+     * @param eventLoop The event loop reading this device, or null. Needs a DeviceEventSource.
+     * @param polled    True if the device is read by drain().
+     */
+    private EventDevice(EventSource source, int batchSize, EventLoop eventLoop, boolean polled) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size has to be at least 1");
+        }
+        this.source = source;
+        this.deviceSource = source instanceof DeviceEventSource ? (DeviceEventSource) source : null;
+        this.batchSize = batchSize;
+        this.eventLoop = eventLoop;
+        this.polled = polled;
+        this.device = source.getPath();
+        this.frameAssembler = new InputFrameAssembler(device);
+        this.deviceInfo = source.getDeviceInfo();
+        this.resync = new EventResync(deviceSource == null ? null : deviceSource.getDeviceState(), deviceInfo, device);
+    }
 
-        FileInputStream fis = new FileInputStream(device);
-        deviceInput = fis.getChannel();
-        fd = getJavaIOFileDescriptorAccess().get(fis.getFD());
+    /**
+     * Register with the event loop, prepare for polling, or start the reader thread. Closes the source on failure.
+     *
+     * @throws IOException If the device cannot be registered or made non blocking.
+     */
+    void startReading() throws IOException {
+        try {
+            if (eventLoop != null) {
+                eventLoop.register(this, deviceSource.getFd());
+            } else if (polled) {
+                if (deviceSource != null) {
+                    deviceSource.setNonBlocking();
+                }
+            } else {
+                startReaderThread();
+            }
+        } catch (IOException e) {
+            try {
+                source.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
 
+    private void startReaderThread() {
         readerThread = new Thread() {
             @Override
             public void run() {
                 while (!terminate) {
-                    InputEvent ev = readEvent();
-                    distributeEvent(ev);
+                    if (!readEvents()) break;
                 }
             }
         };
@@ -187,127 +374,222 @@ public class EventDevice {
     }
 
     /**
-     * Get supported events from device, and place into supportedEvents.
-     * Adapted from evtest.c.
-     */
-    private void readSupportedEvents() {
-        //System.out.println("Detecting device capabilities...");
-        long[][] bit = new long[InputEvent.EV_MAX][NBITS(InputEvent.KEY_MAX)];
-        nativeEventDevice.ioctlEVIOCGBIT(device, bit[0], 0, bit[0].length);
-        /* Loop over event types */
-        for (int i = 0; i < InputEvent.EV_MAX; i++) {
-            if (testBit(bit[0], i)) { /* Is this event supported? */
-                //System.out.printf("  Event type %d\n", i);
-                if (i == 0) continue;
-                ArrayList<Integer> supportedTypes = new ArrayList<>();
-                nativeEventDevice.ioctlEVIOCGBIT(device, bit[i], i, InputEvent.KEY_MAX);
-                /* Loop over event codes for type */
-                for (int j = 0; j < InputEvent.KEY_MAX; j++)
-                    if (testBit(bit[i], j)) { /* Is this event code supported? */
-                        //System.out.printf("    Event code %d\n", j);
-                        supportedTypes.add(j);
-                    }
-                supportedEvents.put(i, supportedTypes);
+     * Distribute an event to all registered listeners. InputListeners get their own copy of the event, which is
+     * only allocated when at least one of them is registered.
+     *
+     * @param view The event to distribute.
+     */
+    void distributeEvent(InputEventView view) {
+        if (view.getType() == InputEvent.EV_ABS) {
+            updateAxis(view.getCode(), view.getValue());
+        }
+        for (RawInputListener listener : rawListeners) {
+            listener.event(view);
+        }
+        if (frameAssembler.hasListeners()) {
+            frameAssembler.event(view);
+        }
+        if (!listeners.isEmpty()) {
+            distributeEvent(view.copy());
+        }
+    }
+
+    private void updateAxis(short axis, int value) {
+        if (axis >= 0 && axis < InputEvent.ABS_CNT) {
+            InputAxisParameters params = axisParams.get(axis);
+            if (params != null) {
+                params.update(value);
             }
         }
     }
 
-    private boolean testBit(long[] array, int bit) {
-        return ((array[LONG(bit)] >>> OFF(bit)) & 1) != 0;
+    /**
+     * Distribute an event to all registered listeners.
+     *
+     * @param inputEvent The event to distribute.
+     */
+    void distributeEvent(InputEvent inputEvent) {
+        for (InputListener listener : listeners) {
+            listener.event(inputEvent);
+        }
     }
 
-    private int LONG(int x) {
-        return x / (64);
+    /**
+     * Decouple listeners from the reader: the reader thread (or event loop) only copies events into a lock free
+     * ring, and a dedicated dispatch thread drains the ring and runs the listeners. A slow listener then no
+     * longer delays reads; if it falls behind by more than the ring capacity, events are dropped and counted by
+     * {@link InputEventRing#getOverflowCount()}.
+     *
+     * @param capacity     Number of events the ring can hold, rounded up to a power of two.
+     * @param waitStrategy How the dispatch thread waits for events.
+     * @return the ring between the reader and the dispatch thread, to monitor overflows.
+     */
+    public synchronized InputEventRing decoupleDispatch(int capacity, final WaitStrategy waitStrategy) {
+        if (dispatchThread != null) {
+            throw new IllegalStateException("Dispatch is already decoupled for " + device);
+        }
+        final InputEventRing ring = new InputEventRing(device, capacity);
+        final RawInputListener distributor = this::distributeEvent;
+        dispatchThread = new Thread(() -> {
+            while (!terminate) {
+                if (ring.drain(distributor, ring.getCapacity()) == 0) {
+                    waitStrategy.idle();
+                }
+            }
+            ring.drain(distributor, ring.getCapacity());
+        }, "evdev-dispatch-" + device);
+        dispatchThread.setDaemon(true); /* We don't want this thread to prevent the JVM from terminating */
+        dispatchThread.start();
+        dispatcher = ring;
+        return ring;
     }
 
-    private int OFF(int x) {
-        return x % (64);
+    /**
+     * Read the pending events of a {@link #polled(File) polled} device and hand them to the sink, on the calling
+     * thread. Never blocks: returns 0 if no event is pending. The registered listeners and the axis parameters
+     * do not see the events.
+     * <p/>
+     * Must not be called from several threads at once.
+     *
+     * @param sink      Receives a view of each event, in order. The view is only valid during the call.
+     * @param maxEvents Maximum number of events read, at least 1. Events beyond it are kept for the next call.
+     * @return the number of events read, or -1 once the end of the stream is reached. It differs from the number
+     * handed out after a SYN_DROPPED: see {@link #getDropCount()}.
+     * @throws IOException If the device cannot be read.
+     */
+    public int drain(RawInputListener sink, int maxEvents) throws IOException {
+        if (!polled) {
+            throw new IllegalStateException("Only polled devices can be drained");
+        }
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("maxEvents has to be at least 1");
+        }
+        return source.read(resync.to(sink), maxEvents);
     }
 
-    private int NBITS(int x) {
-        return ((((x) - 1) / (8 * 8)) + 1);
+    /**
+     * Read the pending events of a {@link #polled(File) polled} device and distribute them to the registered
+     * listeners, on the calling thread. Never blocks.
+     *
+     * @param maxEvents Maximum number of events distributed, at least 1.
+     * @return the number of events distributed, or -1 once the end of the stream is reached.
+     * @throws IOException If the device cannot be read.
+     * @see #drain(RawInputListener, int)
+     */
+    public int drain(int maxEvents) throws IOException {
+        return drain(dispatcher, maxEvents);
     }
 
     /**
-     * Distribute an event to all registered listeners.
+     * Called by the event loop when the device is ready to be read.
      *
-     * @param inputEvent The event to distribute.
+     * @return false if the device should not be read anymore.
      */
-    private void distributeEvent(InputEvent inputEvent) {
-        for (InputListener listener : listeners) {
-            listener.event(inputEvent);
-        }
+    boolean readAvailable() {
+        return !terminate && readEvents();
     }
 
     /**
-     * Obtain an InputEvent from the input channel. Delegate to InputEvent for parsing.
+     * Read a batch of events from the input channel and distribute every complete event, in order.
      *
-     * @return
+     * @return false if the reader should stop, because the end of the stream was reached or the channel failed.
      */
-    private InputEvent readEvent() {
+    private boolean readEvents() {
         try {
-            /* Read exactly the amount of bytes specified by InputEvent.STRUCT_SIZE_BYTES (intrinsic size of inputBuffer)*/
-            inputBuffer.clear();
-            while (inputBuffer.hasRemaining()) deviceInput.read(inputBuffer);
-
-            /* We want to read now */
-            inputBuffer.flip();
-
-            /* Delegate parsing to InputEvent.parse() */
-            return InputEvent.parse(inputBuffer.asShortBuffer(), device, arch);
+            if (source.read(resync.to(dispatcher), batchSize) < 0) {
+                logger.info("End of stream reached on {}", device);
+                return false;
+            }
+            return true;
         } catch (IOException e) {
-            logger.error("Cannot read event", e);
-            return null;
+            if (!terminate) {
+                logger.error("Cannot read event", e);
+            }
+            return false;
         }
     }
 
     public void close() {
         terminate = true;
-        try {
-            readerThread.join();
-        } catch (InterruptedException e) {
-            logger.error("Interrupted in close", e);
+        if (eventLoop != null) {
+            eventLoop.unregister(this, deviceSource.getFd());
+        } else if (readerThread != null) {
+            /* Wakes up a reader waiting for input */
+            readerThread.interrupt();
+            try {
+                readerThread.join();
+            } catch (InterruptedException e) {
+                logger.error("Interrupted in close", e);
+            }
         }
+        stopDispatchThread();
         try {
-            deviceInput.close();
+            source.close();
         } catch (IOException e) {
             logger.error("Error in close", e);
         }
     }
 
+    private synchronized void stopDispatchThread() {
+        if (dispatchThread == null) return;
+        try {
+            dispatchThread.join();
+        } catch (InterruptedException e) {
+            logger.error("Interrupted in close", e);
+        }
+    }
+
     public short getBusID() {
-        return idResponse[InputEvent.ID_BUS];
+        return deviceInfo.getBusID();
     }
 
     public String getDeviceName() {
-        return deviceNameResponse;
+        return deviceInfo.getName();
     }
 
     public short getProductID() {
-        return idResponse[InputEvent.ID_PRODUCT];
+        return deviceInfo.getProductID();
     }
 
+    /**
+     * Maps supported event types (keys) to lists of supported event codes. Prefer {@link #getCapabilities()}, which
+     * answers lookups without boxing or searching.
+     */
     public Map<Integer, List<Integer>> getSupportedEvents() {
-        return supportedEvents;
+        return deviceInfo.getCapabilities().asMap();
+    }
+
+    public DeviceCapabilities getCapabilities() {
+        return deviceInfo.getCapabilities();
     }
 
     public short getVendorID() {
-        return idResponse[InputEvent.ID_VENDOR];
+        return deviceInfo.getVendorID();
     }
 
     public int getEvdevVersion() {
-        return evdevVersionResponse;
+        return deviceInfo.getEvdevVersion();
     }
 
     public short getVersionID() {
-        return idResponse[InputEvent.ID_VERSION];
+        return deviceInfo.getVersionID();
     }
 
-    public InputAxisParameters getAxisParameters(int axis) {
+    /**
+     * @return ID, name, version and capabilities of this device, as read when it was opened.
+     */
+    public DeviceInfo getDeviceInfo() {
+        return deviceInfo;
+    }
+
+    public synchronized InputAxisParameters getAxisParameters(int axis) {
+        if (axis < 0 || axis >= InputEvent.ABS_CNT) {
+            throw new IllegalArgumentException("No such axis: " + axis);
+        }
         InputAxisParameters params;
         if ((params = axisParams.get(axis)) == null) {
             params = new InputAxisParameters(this, axis);
-            axisParams.put(axis, params);
+            axisParams.set(axis, params);
         }
         return params;
     }
@@ -320,23 +602,105 @@ public class EventDevice {
         listeners.remove(listener);
     }
 
+    /**
+     * Register a listener on the allocation free delivery path. The {@link InputEventView} it receives is
+     * reused for every event.
+     *
+     * @param listener The listener to add.
+     */
+    public synchronized void addRawListener(RawInputListener listener) {
+        RawInputListener[] updated = Arrays.copyOf(rawListeners, rawListeners.length + 1);
+        updated[rawListeners.length] = listener;
+        rawListeners = updated;
+    }
+
+    /**
+     * Unregister a listener from the allocation free delivery path.
+     *
+     * @param listener The listener to remove.
+     */
+    public synchronized void removeRawListener(RawInputListener listener) {
+        List<RawInputListener> updated = new ArrayList<>(Arrays.asList(rawListeners));
+        if (updated.remove(listener)) {
+            rawListeners = updated.toArray(new RawInputListener[0]);
+        }
+    }
+
+    /**
+     * Register a listener receiving all events between two SYN_REPORTs as a single frame.
+     *
+     * @param listener The listener to add.
+     */
+    public void addFrameListener(InputFrameListener listener) {
+        frameAssembler.addListener(listener);
+    }
+
+    /**
+     * Unregister a frame listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeFrameListener(InputFrameListener listener) {
+        frameAssembler.removeListener(listener);
+    }
+
     public String getDevicePath() {
         return device;
     }
 
+    /**
+     * Number of SYN_DROPPED received, each meaning that the kernel buffer overflowed and events were lost.
+     * <p/>
+     * The listeners see the SYN_DROPPED. The events following it are discarded up to the next SYN_REPORT; then,
+     * for evdev nodes, the key, switch, LED and axis state is read from the device, and synthetic events report
+     * what changed in the meantime before that SYN_REPORT. Listeners thus stay consistent with the device.
+     */
+    public long getDropCount() {
+        return resync.getDropCount();
+    }
+
     public boolean ioctlEVIOCGABS(String device, int[] resp, int axis) {
-        return nativeEventDevice.ioctlEVIOCGABS(device, resp, axis);
+        return deviceSource != null && deviceSource.getNativeEventDevice().ioctlEVIOCGABS(device, resp, axis);
+    }
+
+    /**
+     * Read the input_absinfo struct of one axis from the open device. Sources other than a real device answer from
+     * the device info they were created with.
+     *
+     * @param resp Receives value, minimum, maximum, fuzz, flat and resolution.
+     * @return false if the ioctl failed, the device is not open or the axis is not supported.
+     */
+    public boolean ioctlEVIOCGABS(int[] resp, int axis) {
+        if (deviceSource != null) {
+            return deviceSource.ioctlEVIOCGABS(resp, axis);
+        }
+        AbsInfo info = deviceInfo.getAbsInfo(axis);
+        if (info == null) return false;
+        resp[0] = info.getValue();
+        resp[1] = info.getMin();
+        resp[2] = info.getMax();
+        resp[3] = info.getFuzz();
+        resp[4] = info.getFlat();
+        resp[5] = info.getResolution();
+        return true;
     }
 
     public void grab() {
-        if (nativeEventDevice.ioctlEVIOCGRAB(fd, 1) == 0) return;
+        if (grabDevice(1) == 0) return;
         throw new RuntimeException("Could not grab device");
     }
 
     public void unGrab() {
-        if (nativeEventDevice.ioctlEVIOCGRAB(fd, 0) == 0) return;
+        if (grabDevice(0) == 0) return;
         throw new RuntimeException("Could not ungrab device");
     }
 
+    private int grabDevice(int flags) {
+        if (deviceSource == null) {
+            throw new IllegalStateException("Only real devices can be grabbed");
+        }
+        return deviceSource.ioctlEVIOCGRAB(flags);
+    }
+
 }
 
@@ -0,0 +1,134 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Layout of the binary event logs written by {@link EventRecorder}. All values are little endian.
+ * <p/>
+ * Each segment file is self contained and starts with a header:
+ * <pre>
+ * int   magic "EVLG"
+ * short format version
+ * short flags (FLAG_DELTA)
+ * int   segment number, counted from 0
+ * int   end of the records, updated after every record so a segment is readable after a crash
+ * ...   the recorded DeviceInfo, see DeviceInfo.writeTo()
+ * </pre>
+ * followed by records. Without FLAG_DELTA each record is an input_event struct in the 64 bit layout (24 bytes).
+ * With FLAG_DELTA a record is
+ * <pre>
+ * int   microseconds since the previous record
+ * short type
+ * short code
+ * int   value
+ * </pre>
+ * unless the delta is ABSOLUTE_TIME; then a long absolute time in microseconds follows it. The first record of
+ * a segment, and any record whose delta is negative or does not fit in an int, carry an absolute time.
+ */
+final class EventLogFormat {
+
+    static final int MAGIC = 'E' | 'V' << 8 | 'L' << 16 | 'G' << 24;
+    static final short VERSION = 1;
+
+    /**
+     * Records carry delta encoded timestamps.
+     */
+    static final short FLAG_DELTA = 1;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int FLAGS_OFFSET = 6;
+    static final int SEGMENT_OFFSET = 8;
+    static final int END_OFFSET = 12;
+    static final int DEVICE_INFO_OFFSET = 16;
+
+    static final int RECORD_SIZE = InputEvent.STRUCT_SIZE_BYTES;
+    static final int DELTA_RECORD_SIZE = 12;
+    static final int ABSOLUTE_RECORD_SIZE = DELTA_RECORD_SIZE + 8;
+
+    /**
+     * Delta marking a record with an absolute time.
+     */
+    static final int ABSOLUTE_TIME = -1;
+
+    static final String SUFFIX = ".evlog";
+
+    private EventLogFormat() {
+    }
+
+    /**
+     * Write a segment header at the start of the buffer, leaving the buffer positioned at the first record.
+     */
+    static void writeHeader(ByteBuffer buffer, int segment, boolean delta, DeviceInfo deviceInfo) {
+        buffer.position(DEVICE_INFO_OFFSET);
+        deviceInfo.writeTo(buffer);
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putShort(VERSION_OFFSET, VERSION);
+        buffer.putShort(FLAGS_OFFSET, delta ? FLAG_DELTA : 0);
+        buffer.putInt(SEGMENT_OFFSET, segment);
+        buffer.putInt(END_OFFSET, buffer.position());
+    }
+
+    /**
+     * Check the segment header at the start of the buffer.
+     *
+     * @throws IllegalArgumentException If the buffer does not hold a segment of a supported version.
+     */
+    static void checkHeader(ByteBuffer buffer) {
+        if (buffer.limit() < DEVICE_INFO_OFFSET || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalArgumentException("Not an event log");
+        }
+        if (buffer.getShort(VERSION_OFFSET) != VERSION) {
+            throw new IllegalArgumentException("Unsupported event log version " + buffer.getShort(VERSION_OFFSET));
+        }
+    }
+
+    /**
+     * Size of a header recording the given device.
+     */
+    static int headerSize(DeviceInfo deviceInfo) {
+        return DEVICE_INFO_OFFSET + deviceInfo.encodedSize();
+    }
+
+    /**
+     * Unmap a segment right away rather than when its buffer is garbage collected, through the cleaner of the
+     * JDK 8 direct buffers. The buffer must not be used anymore. Left to the garbage collector on JVMs without one.
+     */
+    static void unmap(MappedByteBuffer segment) {
+        try {
+            Method cleanerMethod = segment.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(segment);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            /* The mapping stays until the buffer is collected */
+        }
+    }
+
+    /**
+     * Name of a segment file.
+     */
+    static String segmentName(String prefix, int segment) {
+        return String.format("%s-%05d%s", prefix, segment, SUFFIX);
+    }
+}
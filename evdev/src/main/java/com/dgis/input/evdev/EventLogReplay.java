@@ -0,0 +1,217 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays an event log written by {@link EventRecorder}, segment after segment, memory mapping each one.
+ * <p/>
+ * Events are delivered at their recorded pace divided by a speed factor, or as fast as possible when the speed
+ * is infinite. Nothing is allocated per event.
+ */
+final class EventLogReplay implements EventSource {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(.*)-(\\d{5})" + Pattern.quote(EventLogFormat.SUFFIX));
+
+    private final File directory;
+    private final String path;
+
+    /**
+     * Prefix of the segment names, null if the log is a single file not following the naming scheme.
+     */
+    private final String prefix;
+    private int segmentNumber;
+
+    private final double speed;
+    private final DeviceInfo deviceInfo;
+    private final ByteBuffer event = ByteBuffer.allocate(InputEvent.STRUCT_SIZE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final InputEventView view;
+
+    private MappedByteBuffer segment;
+    private boolean delta;
+    private long lastTime;
+
+    /**
+     * Recorded time of the first event and System.nanoTime() when it was replayed, -1 before the first event.
+     */
+    private long firstTime = -1;
+    private long startNanos;
+
+    /**
+     * True if a record was decoded but not delivered yet, because it was not due.
+     */
+    private boolean pending;
+
+    /**
+     * @param log   The first segment to replay. Following segments of the same name are replayed after it.
+     * @param speed Replay speed, relative to the recorded pace. Positive infinity replays as fast as possible.
+     * @throws IOException If the segment cannot be read.
+     */
+    EventLogReplay(File log, double speed) throws IOException {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed has to be positive");
+        }
+        this.speed = speed;
+        this.path = log.getAbsolutePath();
+        this.directory = log.getAbsoluteFile().getParentFile();
+        Matcher matcher = SEGMENT_NAME.matcher(log.getName());
+        if (matcher.matches()) {
+            prefix = matcher.group(1);
+            segmentNumber = Integer.parseInt(matcher.group(2));
+        } else {
+            prefix = null;
+        }
+        open(log);
+        segment.position(EventLogFormat.DEVICE_INFO_OFFSET);
+        deviceInfo = DeviceInfo.readFrom(segment);
+        this.view = new InputEventView(path, "amd64");
+    }
+
+    @Override
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return the device description recorded in the first segment.
+     */
+    @Override
+    public DeviceInfo getDeviceInfo() {
+        return deviceInfo;
+    }
+
+    private void open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            EventLogFormat.checkHeader(segment);
+        } catch (IllegalArgumentException e) {
+            release();
+            throw new IOException(file + ": " + e.getMessage());
+        }
+        delta = (segment.getShort(EventLogFormat.FLAGS_OFFSET) & EventLogFormat.FLAG_DELTA) != 0;
+        segment.limit(segment.getInt(EventLogFormat.END_OFFSET));
+        /* Skip the device description */
+        segment.position(EventLogFormat.DEVICE_INFO_OFFSET);
+        DeviceInfo.readFrom(segment);
+    }
+
+    /**
+     * Move on to the next segment, if there is one; otherwise the log is over.
+     */
+    private void nextSegment() throws IOException {
+        release();
+        if (prefix == null) return;
+        File next = new File(directory, EventLogFormat.segmentName(prefix, ++segmentNumber));
+        if (next.exists()) {
+            open(next);
+        }
+    }
+
+    /**
+     * Hand the events that are due to the listener, waiting for the first one if needed. Returns early, with the
+     * events delivered so far, rather than wait for a later event.
+     */
+    @Override
+    public int read(RawInputListener listener, int maxEvents) throws IOException {
+        int events = 0;
+        while (events < maxEvents) {
+            if (!pending) {
+                if (segment == null) {
+                    return events == 0 ? -1 : events;
+                }
+                if (!segment.hasRemaining()) {
+                    nextSegment();
+                    continue;
+                }
+                decode();
+                pending = true;
+            }
+            long wait = nanosUntilDue();
+            if (wait > 0) {
+                if (events > 0) break;
+                LockSupport.parkNanos(wait);
+                /* Interrupted when the device is closed */
+                if (Thread.currentThread().isInterrupted()) return -1;
+                continue;
+            }
+            listener.event(view);
+            pending = false;
+            events++;
+        }
+        return events;
+    }
+
+    /**
+     * Decode the next record into the event buffer, wrapped by the view.
+     */
+    private void decode() {
+        if (delta) {
+            int elapsed = segment.getInt();
+            long time = elapsed == EventLogFormat.ABSOLUTE_TIME ? segment.getLong() : lastTime + elapsed;
+            lastTime = time;
+            event.putLong(0, time / 1000000L);
+            event.putLong(8, time % 1000000L);
+        } else {
+            event.putLong(0, segment.getLong());
+            event.putLong(8, segment.getLong());
+        }
+        event.putShort(16, segment.getShort());
+        event.putShort(18, segment.getShort());
+        event.putInt(20, segment.getInt());
+        view.wrap(event, 0);
+    }
+
+    /**
+     * @return how long to wait before the decoded event is due, 0 or less if it is due.
+     */
+    private long nanosUntilDue() {
+        long time = view.getTimeSec() * 1000000L + view.getTimeMicroSec();
+        if (firstTime < 0) {
+            firstTime = time;
+            startNanos = System.nanoTime();
+        }
+        if (speed == Double.POSITIVE_INFINITY) return 0;
+        long due = startNanos + (long) ((time - firstTime) * 1000.0 / speed);
+        return due - System.nanoTime();
+    }
+
+    /**
+     * Forget the current segment. Unlike the recorder, which unmaps a finished segment from its own thread, the
+     * read only mapping is left to the garbage collector: close may run while another thread still reads it.
+     */
+    private void release() {
+        segment = null;
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+}
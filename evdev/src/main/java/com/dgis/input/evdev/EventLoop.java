@@ -0,0 +1,262 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Reads many EventDevices from a small, fixed number of threads.
+ * <p/>
+ * Each thread waits on an epoll set holding the file descriptors of its devices, reads every device that is
+ * ready and dispatches its events to the listeners of that device. Devices are spread over the threads round
+ * robin. An EventDevice attaches to a loop by being constructed with it, instead of starting its own reader
+ * thread. FIFOs work as well as evdev nodes.
+ */
+public class EventLoop implements Closeable {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * Maximum number of ready devices handled per wakeup of a loop thread.
+     */
+    private static final int MAX_READY = 64;
+
+    /**
+     * Initial size of the table of devices of a loop thread, grown when a larger descriptor is registered.
+     */
+    private static final int INITIAL_DEVICE_SLOTS = 64;
+
+    private final NativeEventDevice nativeEventDevice;
+
+    private final Worker[] workers;
+
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    private volatile boolean terminate = false;
+
+    /**
+     * Create an event loop served by a single thread.
+     *
+     * @throws IOException If the epoll set cannot be created.
+     */
+    public EventLoop() throws IOException {
+        this(1);
+    }
+
+    /**
+     * Create an event loop served by the given number of threads.
+     *
+     * @param threads Number of threads reading devices. Must be at least 1.
+     * @throws IOException If the epoll sets cannot be created.
+     */
+    public EventLoop(int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("An event loop needs at least one thread");
+        }
+        NativeLibraryLoader.load();
+        nativeEventDevice = new NativeEventDevice();
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            try {
+                workers[i] = new Worker(i);
+            } catch (IOException e) {
+                for (int j = 0; j < i; j++) {
+                    workers[j].closeFds();
+                }
+                throw e;
+            }
+        }
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+    }
+
+    /**
+     * Start reading the given device from one of the loop threads.
+     *
+     * @param device The device to read.
+     * @param fd     The file descriptor the device reads from.
+     * @throws IOException If the descriptor cannot be added to the epoll set.
+     */
+    void register(EventDevice device, int fd) throws IOException {
+        if (terminate) {
+            throw new IOException("Event loop is closed");
+        }
+        if (nativeEventDevice.setNonBlocking(fd) < 0) {
+            throw new IOException("Cannot make " + device.getDevicePath() + " non blocking");
+        }
+        Worker worker = workers[Math.abs(nextWorker.getAndIncrement() % workers.length)];
+        worker.add(fd, device);
+        if (nativeEventDevice.epollAdd(worker.epollFd, fd) < 0) {
+            worker.remove(fd, device);
+            throw new IOException("Cannot register " + device.getDevicePath() + " with the event loop");
+        }
+    }
+
+    /**
+     * Stop reading the given device. Does nothing if the device is not registered. On return no loop thread reads
+     * the descriptor anymore, so that the caller may close it.
+     *
+     * @param device The device to stop reading.
+     * @param fd     The file descriptor the device was registered with.
+     */
+    void unregister(EventDevice device, int fd) {
+        for (Worker worker : workers) {
+            if (worker.remove(fd, device) && Thread.currentThread() != worker.thread) {
+                /* A read that started before the removal may still be running */
+                while (worker.readingFd == fd) {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of devices currently read by this loop.
+     */
+    public int getDeviceCount() {
+        int count = 0;
+        for (Worker worker : workers) {
+            count += worker.deviceCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * Stop the loop threads. Registered devices stay open, but are not read anymore.
+     */
+    @Override
+    public void close() {
+        terminate = true;
+        for (Worker worker : workers) {
+            nativeEventDevice.eventfdSignal(worker.wakeupFd);
+        }
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join();
+            } catch (InterruptedException e) {
+                logger.error("Interrupted in close", e);
+                Thread.currentThread().interrupt();
+            }
+            worker.closeFds();
+        }
+    }
+
+    /**
+     * A loop thread and the epoll set it waits on.
+     */
+    private final class Worker {
+        private final int epollFd;
+        private final int wakeupFd;
+        /* Indexed by file descriptor so that dispatch neither hashes nor boxes. Written under the worker lock */
+        private volatile AtomicReferenceArray<EventDevice> devices = new AtomicReferenceArray<>(INITIAL_DEVICE_SLOTS);
+        private final AtomicInteger deviceCount = new AtomicInteger();
+        /* Descriptor being read, published before the device is looked up so that unregister can wait for it */
+        private volatile int readingFd = -1;
+        private final Thread thread;
+
+        private Worker(int index) throws IOException {
+            epollFd = nativeEventDevice.epollCreate();
+            if (epollFd < 0) {
+                throw new IOException("Cannot create epoll set");
+            }
+            wakeupFd = nativeEventDevice.eventfdCreate();
+            if (wakeupFd < 0 || nativeEventDevice.epollAdd(epollFd, wakeupFd) < 0) {
+                closeFds();
+                throw new IOException("Cannot create event loop wakeup descriptor");
+            }
+            thread = new Thread(this::run, "evdev-event-loop-" + index);
+            thread.setDaemon(true); /* We don't want this thread to prevent the JVM from terminating */
+        }
+
+        private void run() {
+            int[] ready = new int[MAX_READY];
+            while (!terminate) {
+                int count = nativeEventDevice.epollWait(epollFd, ready, -1);
+                if (count < 0) {
+                    logger.error("Event loop wait failed, stopping {}", thread.getName());
+                    return;
+                }
+                for (int i = 0; i < count; i++) {
+                    int fd = ready[i];
+                    if (fd == wakeupFd) {
+                        nativeEventDevice.eventfdClear(wakeupFd);
+                        continue;
+                    }
+                    readingFd = fd;
+                    try {
+                        EventDevice device = get(fd);
+                        if (device != null && !device.readAvailable()) {
+                            /* End of stream or read failure, the device would keep on being reported as ready */
+                            remove(fd, device);
+                        }
+                    } finally {
+                        readingFd = -1;
+                    }
+                }
+            }
+        }
+
+        private void closeFds() {
+            nativeEventDevice.closeFd(epollFd);
+            if (wakeupFd >= 0) {
+                nativeEventDevice.closeFd(wakeupFd);
+            }
+        }
+
+        private EventDevice get(int fd) {
+            AtomicReferenceArray<EventDevice> table = devices;
+            return fd < table.length() ? table.get(fd) : null;
+        }
+
+        private synchronized void add(int fd, EventDevice device) {
+            AtomicReferenceArray<EventDevice> table = devices;
+            if (fd >= table.length()) {
+                AtomicReferenceArray<EventDevice> grown =
+                        new AtomicReferenceArray<>(Math.max(fd + 1, table.length() * 2));
+                for (int i = 0; i < table.length(); i++) {
+                    grown.set(i, table.get(i));
+                }
+                devices = table = grown;
+            }
+            if (table.getAndSet(fd, device) == null) {
+                deviceCount.incrementAndGet();
+            }
+        }
+
+        /**
+         * Stop reading the given descriptor if it is still registered for the given device.
+         *
+         * @return Whether the device was registered with this worker.
+         */
+        private synchronized boolean remove(int fd, EventDevice device) {
+            AtomicReferenceArray<EventDevice> table = devices;
+            if (fd < table.length() && table.compareAndSet(fd, device, null)) {
+                deviceCount.decrementAndGet();
+                nativeEventDevice.epollRemove(epollFd, fd);
+                return true;
+            }
+            return false;
+        }
+    }
+}
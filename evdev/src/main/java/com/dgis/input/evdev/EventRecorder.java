@@ -0,0 +1,302 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the events of an EventDevice to a compact binary log, see {@link EventLogFormat}.
+ * <p/>
+ * The reader thread only copies each event into an {@link InputEventRing}. A recorder thread writes them into
+ * memory mapped segment files, and starts a new segment when the current one is full, so the reader thread never
+ * waits for the disk. If the recorder falls more than the ring capacity behind, events are dropped and counted in
+ * {@link #getDroppedCount()}, and a SYN_DROPPED record marks the gap in the log, right before the first event
+ * recorded after it.
+ */
+public final class EventRecorder implements RawInputListener, Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    public static final int DEFAULT_RING_CAPACITY = 1 << 16;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * The recorded device, null if events are fed directly.
+     */
+    private final EventDevice device;
+    private final DeviceInfo deviceInfo;
+    private final File directory;
+    private final String prefix;
+    private final int segmentSize;
+    private final boolean delta;
+
+    private final InputEventRing ring;
+    private final Thread writerThread;
+    private volatile boolean terminate = false;
+    private final AtomicLong recordedCount = new AtomicLong();
+    /* Only incremented by the reader thread, the single producer of the ring, so lazySet needs no read-modify-write */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /* Only touched by the reader thread */
+    private final ByteBuffer markerEvent = ByteBuffer.allocate(InputEvent.STRUCT_SIZE_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final InputEventView marker = new InputEventView("marker", "amd64");
+    private boolean gap;
+
+    /* Only touched by the writer thread, once started */
+    private final RawInputListener writer = this::write;
+    private int segmentNumber;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private boolean firstRecord;
+    private long lastTime;
+
+    /**
+     * Record all events of the device into segments of DEFAULT_SEGMENT_SIZE bytes, with delta encoded timestamps.
+     *
+     * @param device    The device to record.
+     * @param directory The directory the segment files are created in.
+     * @throws IOException If the first segment cannot be created.
+     */
+    public EventRecorder(EventDevice device, File directory) throws IOException {
+        this(device, directory, DEFAULT_SEGMENT_SIZE, true);
+    }
+
+    /**
+     * Record all events of the device. Segment files are named after the device node, e.g. event3-00000.evlog;
+     * numbering continues after existing segments of the same name.
+     *
+     * @param device          The device to record.
+     * @param directory       The directory the segment files are created in.
+     * @param segmentSize     Size in bytes of each segment file. Segments are truncated to their content when closed.
+     * @param deltaTimestamps Encode timestamps as deltas, which halves the size of a record.
+     * @throws IOException If the first segment cannot be created.
+     */
+    public EventRecorder(EventDevice device, File directory, int segmentSize, boolean deltaTimestamps)
+            throws IOException {
+        this(device, device.getDeviceInfo(), new File(device.getDevicePath()).getName(), directory, segmentSize,
+                deltaTimestamps, DEFAULT_RING_CAPACITY);
+        startWriter();
+        device.addRawListener(this);
+    }
+
+    /**
+     * Record the events passed to {@link #event(InputEventView)}, without attaching to a device.
+     */
+    EventRecorder(DeviceInfo deviceInfo, String prefix, File directory, int segmentSize, boolean deltaTimestamps,
+                  int ringCapacity) throws IOException {
+        this(deviceInfo, prefix, directory, segmentSize, deltaTimestamps, ringCapacity, true);
+    }
+
+    /**
+     * @param startWriter false to leave the recorder thread idle until {@link #startWriter()}, so that the ring fills.
+     */
+    EventRecorder(DeviceInfo deviceInfo, String prefix, File directory, int segmentSize, boolean deltaTimestamps,
+                  int ringCapacity, boolean startWriter) throws IOException {
+        this(null, deviceInfo, prefix, directory, segmentSize, deltaTimestamps, ringCapacity);
+        if (startWriter) {
+            startWriter();
+        }
+    }
+
+    private EventRecorder(EventDevice device, DeviceInfo deviceInfo, String prefix, File directory, int segmentSize,
+                          boolean deltaTimestamps, int ringCapacity) throws IOException {
+        int minimumSize = EventLogFormat.headerSize(deviceInfo) + EventLogFormat.ABSOLUTE_RECORD_SIZE * 2;
+        if (segmentSize < minimumSize) {
+            throw new IllegalArgumentException("Segment size has to be at least " + minimumSize);
+        }
+        this.device = device;
+        this.deviceInfo = deviceInfo;
+        this.prefix = prefix;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.delta = deltaTimestamps;
+        this.ring = new InputEventRing(prefix, ringCapacity);
+
+        while (new File(directory, EventLogFormat.segmentName(prefix, segmentNumber)).exists()) {
+            segmentNumber++;
+        }
+        startSegment();
+
+        writerThread = new Thread(this::run, "evdev-recorder-" + prefix);
+        writerThread.setDaemon(true); /* We don't want this thread to prevent the JVM from terminating */
+    }
+
+    synchronized void startWriter() {
+        if (writerThread.getState() == Thread.State.NEW) {
+            writerThread.start();
+        }
+    }
+
+    /**
+     * Called by the reader thread: queue the event for the recorder thread. Never blocks.
+     * <p/>
+     * The ring drops the newest events when full, so the events still queued all happened before the gap. The
+     * SYN_DROPPED marking the gap is queued right before the first event accepted after it.
+     */
+    @Override
+    public void event(InputEventView e) {
+        if (gap) {
+            markerEvent.putLong(0, e.getTimeSec());
+            markerEvent.putLong(8, e.getTimeMicroSec());
+            markerEvent.putShort(16, InputEvent.EV_SYN);
+            markerEvent.putShort(18, InputEvent.SYN_DROPPED);
+            markerEvent.putInt(20, 0);
+            marker.wrap(markerEvent, 0);
+            if (!ring.offer(marker)) {
+                droppedCount.lazySet(droppedCount.get() + 1);
+                return;
+            }
+            gap = false;
+        }
+        if (!ring.offer(e)) {
+            gap = true;
+            droppedCount.lazySet(droppedCount.get() + 1);
+        }
+    }
+
+    private void run() {
+        try {
+            while (!terminate) {
+                if (ring.drain(writer, ring.getCapacity()) == 0) {
+                    WaitStrategy.PARK.idle();
+                }
+            }
+            ring.drain(writer, ring.getCapacity());
+        } catch (UncheckedIOException e) {
+            logger.error("Cannot write event log, recording of {} stopped", prefix, e.getCause());
+            if (device != null) {
+                device.removeRawListener(this);
+            }
+        } finally {
+            try {
+                finishSegment();
+            } catch (IOException e) {
+                logger.error("Cannot close event log segment", e);
+            }
+        }
+    }
+
+    private void write(InputEventView e) {
+        append(e.getTimeSec(), e.getTimeMicroSec(), e.getType(), e.getCode(), e.getValue());
+        recordedCount.lazySet(recordedCount.get() + 1);
+    }
+
+    private void append(long timeSec, long timeMicroSec, short type, short code, int value) {
+        if (segment.remaining() < (delta ? EventLogFormat.ABSOLUTE_RECORD_SIZE : EventLogFormat.RECORD_SIZE)) {
+            try {
+                finishSegment();
+                segmentNumber++;
+                startSegment();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (delta) {
+            long time = timeSec * 1000000L + timeMicroSec;
+            long elapsed = time - lastTime;
+            if (firstRecord || elapsed < 0 || elapsed > Integer.MAX_VALUE) {
+                segment.putInt(EventLogFormat.ABSOLUTE_TIME);
+                segment.putLong(time);
+                firstRecord = false;
+            } else {
+                segment.putInt((int) elapsed);
+            }
+            lastTime = time;
+        } else {
+            segment.putLong(timeSec);
+            segment.putLong(timeMicroSec);
+        }
+        segment.putShort(type);
+        segment.putShort(code);
+        segment.putInt(value);
+        segment.putInt(EventLogFormat.END_OFFSET, segment.position());
+    }
+
+    private void startSegment() throws IOException {
+        File file = new File(directory, EventLogFormat.segmentName(prefix, segmentNumber));
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        EventLogFormat.writeHeader(segment, segmentNumber, delta, deviceInfo);
+        firstRecord = true;
+    }
+
+    /**
+     * Unmap the current segment and truncate its file to the records written.
+     */
+    private void finishSegment() throws IOException {
+        if (segment == null) return;
+        int end = segment.getInt(EventLogFormat.END_OFFSET);
+        EventLogFormat.unmap(segment);
+        segment = null;
+        try {
+            channel.truncate(end);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return the number of records written to the log so far, including the SYN_DROPPED marking gaps.
+     */
+    public long getRecordedCount() {
+        return recordedCount.get();
+    }
+
+    /**
+     * @return the number of events dropped because the recorder thread fell behind.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stop recording, write the pending events and close the current segment.
+     */
+    @Override
+    public void close() {
+        if (device != null) {
+            device.removeRawListener(this);
+        }
+        terminate = true;
+        startWriter(); /* Still writes what was queued if it never started */
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            logger.error("Interrupted in close", e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Recovers from SYN_DROPPED, sent by evdev when its buffer overflowed and events were lost.
+ * <p/>
+ * Sits between the source and the listeners of a device, and tracks the key, switch, LED and axis state they
+ * were told about as of the last SYN_REPORT. A SYN_DROPPED is passed on, so that listeners discard the frame in
+ * progress, and the changes of that frame are forgotten here too. Every event up to and including the next
+ * SYN_REPORT is discarded, as it may be incomplete. The current state is then read from the device, and one
+ * synthetic event is passed on for each key, switch, LED and axis that differs from the tracked state, followed by
+ * the SYN_REPORT. Sources that cannot be queried only discard.
+ * <p/>
+ * Multitouch slots are not resynced, only the axes below ABS_MT_SLOT. Not thread safe, a device is read by one
+ * thread at a time. No allocation per event.
+ */
+final class EventResync implements RawInputListener {
+
+    /**
+     * Reads the current state of a device.
+     */
+    interface DeviceState {
+        boolean readKeys(long[] bits);
+
+        boolean readSwitches(long[] bits);
+
+        boolean readLeds(long[] bits);
+
+        /**
+         * @param resp Receives value, minimum, maximum, fuzz, flat and resolution.
+         */
+        boolean readAxis(int[] resp, int axis);
+    }
+
+    private final DeviceState deviceState;
+    private final boolean hasKeys, hasSwitches, hasLeds;
+    private final int[] axes;
+
+    private final long[] keys = new long[DeviceCapabilities.BITMAP_WORDS];
+    private final long[] switches = new long[(InputEvent.SW_CNT + 63) / 64];
+    private final long[] leds = new long[(InputEvent.LED_CNT + 63) / 64];
+    private final int[] axisValues = new int[InputEvent.ABS_CNT];
+
+    /* State as of the last SYN_REPORT, restored when the frame in progress is dropped */
+    private final long[] committedKeys = new long[keys.length];
+    private final long[] committedSwitches = new long[switches.length];
+    private final long[] committedLeds = new long[leds.length];
+    private final int[] committedAxisValues = new int[axisValues.length];
+    /** The frame in progress changed the tracked state */
+    private boolean frameChanged;
+
+    private final long[] currentBits = new long[DeviceCapabilities.BITMAP_WORDS];
+    private final int[] currentAxis = new int[DeviceInfo.ABS_INFO_FIELDS];
+
+    private final ByteBuffer synthetic = ByteBuffer.allocate(InputEvent.STRUCT_SIZE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final InputEventView syntheticView;
+
+    private RawInputListener target;
+    private boolean dropping;
+    private volatile long dropCount;
+
+    /**
+     * @param deviceState Reads the state after a drop, or null if the source cannot be queried.
+     * @param deviceInfo  Capabilities, and axis values as of the opening of the device.
+     * @param source      Reported as the source of synthetic events.
+     */
+    EventResync(DeviceState deviceState, DeviceInfo deviceInfo, String source) {
+        this.deviceState = deviceState;
+        DeviceCapabilities capabilities = deviceInfo.getCapabilities();
+        hasKeys = capabilities.supports(InputEvent.EV_KEY);
+        hasSwitches = capabilities.supports(InputEvent.EV_SW);
+        hasLeds = capabilities.supports(InputEvent.EV_LED);
+        int count = 0;
+        int[] axes = capabilities.getCodes(InputEvent.EV_ABS);
+        for (int axis : axes) {
+            if (axis < InputEvent.ABS_MT_SLOT) {
+                axes[count++] = axis;
+                axisValues[axis] = deviceInfo.getAbsInfo(axis).getValue();
+            }
+        }
+        this.axes = Arrays.copyOf(axes, count);
+        System.arraycopy(axisValues, 0, committedAxisValues, 0, axisValues.length);
+        syntheticView = new InputEventView(source, null);
+        syntheticView.wrap(synthetic, 0);
+    }
+
+    /**
+     * Set the listener receiving the events of the next reads.
+     *
+     * @return this, to be handed to {@link EventSource#read(RawInputListener, int)}.
+     */
+    RawInputListener to(RawInputListener target) {
+        this.target = target;
+        return this;
+    }
+
+    /**
+     * @return the number of SYN_DROPPED seen.
+     */
+    long getDropCount() {
+        return dropCount;
+    }
+
+    @Override
+    public void event(InputEventView view) {
+        short type = view.getType();
+        short code = view.getCode();
+        if (type == InputEvent.EV_SYN && code == InputEvent.SYN_DROPPED) {
+            rollback();
+            dropping = true;
+            dropCount++;
+            target.event(view);
+            return;
+        }
+        if (dropping) {
+            if (type == InputEvent.EV_SYN && code == InputEvent.SYN_REPORT) {
+                dropping = false;
+                resync(view.getTimeSec(), view.getTimeMicroSec());
+                commit();
+                target.event(view);
+            }
+            return;
+        }
+        if (type == InputEvent.EV_SYN && code == InputEvent.SYN_REPORT) {
+            commit();
+        } else {
+            track(type, code, view.getValue());
+        }
+        target.event(view);
+    }
+
+    private void commit() {
+        if (!frameChanged) return;
+        System.arraycopy(keys, 0, committedKeys, 0, keys.length);
+        System.arraycopy(switches, 0, committedSwitches, 0, switches.length);
+        System.arraycopy(leds, 0, committedLeds, 0, leds.length);
+        System.arraycopy(axisValues, 0, committedAxisValues, 0, axisValues.length);
+        frameChanged = false;
+    }
+
+    private void rollback() {
+        if (!frameChanged) return;
+        System.arraycopy(committedKeys, 0, keys, 0, keys.length);
+        System.arraycopy(committedSwitches, 0, switches, 0, switches.length);
+        System.arraycopy(committedLeds, 0, leds, 0, leds.length);
+        System.arraycopy(committedAxisValues, 0, axisValues, 0, axisValues.length);
+        frameChanged = false;
+    }
+
+    private void track(short type, short code, int value) {
+        switch (type) {
+            case InputEvent.EV_KEY:
+                setBit(keys, code, value != 0);
+                frameChanged = true;
+                break;
+            case InputEvent.EV_SW:
+                setBit(switches, code, value != 0);
+                frameChanged = true;
+                break;
+            case InputEvent.EV_LED:
+                setBit(leds, code, value != 0);
+                frameChanged = true;
+                break;
+            case InputEvent.EV_ABS:
+                if (code >= 0 && code < InputEvent.ABS_CNT) {
+                    axisValues[code] = value;
+                    frameChanged = true;
+                }
+                break;
+            default:
+        }
+    }
+
+    private static void setBit(long[] bits, int code, boolean set) {
+        if (code < 0 || code >= bits.length * 64) return;
+        if (set) {
+            bits[code >> 6] |= 1L << code;
+        } else {
+            bits[code >> 6] &= ~(1L << code);
+        }
+    }
+
+    private void resync(long timeSec, long timeMicroSec) {
+        if (deviceState == null) return;
+        frameChanged = true;
+        synthetic.putLong(0, timeSec);
+        synthetic.putLong(8, timeMicroSec);
+        if (hasKeys && deviceState.readKeys(currentBits)) {
+            emitChanges(InputEvent.EV_KEY, keys);
+        }
+        if (hasSwitches && deviceState.readSwitches(currentBits)) {
+            emitChanges(InputEvent.EV_SW, switches);
+        }
+        if (hasLeds && deviceState.readLeds(currentBits)) {
+            emitChanges(InputEvent.EV_LED, leds);
+        }
+        for (int axis : axes) {
+            if (deviceState.readAxis(currentAxis, axis) && currentAxis[0] != axisValues[axis]) {
+                axisValues[axis] = currentAxis[0];
+                emit(InputEvent.EV_ABS, axis, currentAxis[0]);
+            }
+        }
+    }
+
+    /**
+     * Emit an event for every bit of currentBits that differs from the tracked bits, and take them over.
+     */
+    private void emitChanges(short type, long[] tracked) {
+        for (int word = 0; word < tracked.length; word++) {
+            long current = currentBits[word];
+            long changed = tracked[word] ^ current;
+            while (changed != 0) {
+                int bit = Long.numberOfTrailingZeros(changed);
+                emit(type, word * 64 + bit, (int) (current >>> bit) & 1);
+                changed &= changed - 1;
+            }
+            tracked[word] = current;
+        }
+    }
+
+    private void emit(short type, int code, int value) {
+        synthetic.putShort(16, type);
+        synthetic.putShort(18, (short) code);
+        synthetic.putInt(20, value);
+        target.event(syntheticView);
+    }
+}
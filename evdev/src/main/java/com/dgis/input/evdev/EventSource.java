@@ -0,0 +1,51 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Where an {@link EventDevice} reads its events from, and what it reports about itself.
+ * <p/>
+ * Implementations read an evdev node ({@link DeviceEventSource}), a FIFO or regular file of input_event structs
+ * ({@link FileEventSource}), or structs held in memory ({@link MemoryEventSource}). Only the first one needs the
+ * native library, the others run anywhere, e.g. in containers without input devices.
+ */
+public interface EventSource extends Closeable {
+
+    /**
+     * @return the path of the source, reported as device path and as source of the events.
+     */
+    String getPath();
+
+    /**
+     * @return ID, name, version and capabilities of the source.
+     */
+    DeviceInfo getDeviceInfo();
+
+    /**
+     * Hand at most maxEvents events to the listener, in order. Waits for the first event if the source blocks,
+     * otherwise returns 0 when no event is pending.
+     *
+     * @param listener  Receives a view of each event. The view is only valid during the call.
+     * @param maxEvents Maximum number of events dispatched, at least 1.
+     * @return the number of events dispatched, or -1 once the end of the source is reached.
+     * @throws IOException If the source cannot be read.
+     */
+    int read(RawInputListener listener, int maxEvents) throws IOException;
+}
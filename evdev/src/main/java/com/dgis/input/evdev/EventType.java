@@ -18,13 +18,15 @@ package com.dgis.input.evdev;
 
 import lombok.Getter;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import static java.lang.String.format;
+import java.util.Arrays;
 
 public enum EventType {
 
+    /**
+     * Sentinel for event types this library does not know about, for example types added by a newer kernel.
+     */
+    EV_UNKNOWN((short) -1),
+
     EV_SYN((short) 0x00),
     EV_KEY((short) 0x01),
     EV_REL((short) 0x02),
@@ -40,11 +42,17 @@ public enum EventType {
     EV_MAX((short) 0x1f),
     EV_CNT((short) (0x1f + 1));
 
-    private static final Map<Short, EventType> VALUE_LOOKUP = new HashMap<>();
+    /**
+     * Event types indexed by value, covering 0 to EV_CNT. Unassigned slots hold EV_UNKNOWN.
+     */
+    private static final EventType[] VALUE_LOOKUP = new EventType[EV_CNT.value + 1];
 
     static {
+        Arrays.fill(VALUE_LOOKUP, EV_UNKNOWN);
         for (EventType eventType : EventType.values()) {
-            VALUE_LOOKUP.put(eventType.value, eventType);
+            if (eventType != EV_UNKNOWN) {
+                VALUE_LOOKUP[eventType.value] = eventType;
+            }
         }
     }
 
@@ -55,9 +63,15 @@ public enum EventType {
         this.value = value;
     }
 
+    /**
+     * Decode an event type.
+     *
+     * @param value The type field of an input_event.
+     * @return the matching EventType, or EV_UNKNOWN if the value is not a known event type.
+     */
     public static EventType valueOf(short value) {
-        if (VALUE_LOOKUP.containsKey(value)) return VALUE_LOOKUP.get(value);
-        throw new IllegalArgumentException(format("Unknown event type: %s", value));
+        if (value < 0 || value >= VALUE_LOOKUP.length) return EV_UNKNOWN;
+        return VALUE_LOOKUP[value];
     }
 
 }
@@ -18,20 +18,32 @@ package com.dgis.input.evdev;
 
 import lombok.Getter;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import static java.lang.String.format;
+import java.util.Arrays;
 
 public enum EventValue {
 
+    /**
+     * Sentinel for values without a matching constant.
+     */
+    UNKNOWN(-1),
     TT(1);
 
-    private static final Map<Integer, EventValue> VALUE_LOOKUP = new HashMap<>();
+    /**
+     * Event values indexed by value, covering 0 to the largest value of a constant. Unassigned slots hold UNKNOWN.
+     */
+    private static final EventValue[] VALUE_LOOKUP;
 
     static {
+        int maxValue = 0;
+        for (EventValue eventValue : EventValue.values()) {
+            maxValue = Math.max(maxValue, eventValue.value);
+        }
+        VALUE_LOOKUP = new EventValue[maxValue + 1];
+        Arrays.fill(VALUE_LOOKUP, UNKNOWN);
         for (EventValue eventValue : EventValue.values()) {
-            VALUE_LOOKUP.put(eventValue.value, eventValue);
+            if (eventValue != UNKNOWN) {
+                VALUE_LOOKUP[eventValue.value] = eventValue;
+            }
         }
     }
 
@@ -42,9 +54,15 @@ public enum EventValue {
         this.value = value;
     }
 
+    /**
+     * Decode an event value.
+     *
+     * @param value The value field of an input_event.
+     * @return the matching EventValue, or UNKNOWN if there is none.
+     */
     public static EventValue valueOf(int value) {
-        if (VALUE_LOOKUP.containsKey(value)) return VALUE_LOOKUP.get(value);
-        throw new IllegalArgumentException(format("Unknown event value: %s", value));
+        if (value < 0 || value >= VALUE_LOOKUP.length) return UNKNOWN;
+        return VALUE_LOOKUP[value];
     }
 
 
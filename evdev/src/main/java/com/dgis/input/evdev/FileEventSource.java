@@ -0,0 +1,78 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads input_event structs from a FIFO or a regular file, in plain Java. Reads on a FIFO wait for its writer;
+ * the end of the source is reached when the writer closes it, or at the end of a regular file.
+ */
+public final class FileEventSource implements EventSource {
+
+    private final String path;
+    private final DeviceInfo deviceInfo;
+    private final FileChannel channel;
+    private final InputEventReader reader;
+
+    /**
+     * Read structs in the layout of the running system, reported as an unknown device with no capabilities.
+     *
+     * @param file The FIFO or file to read.
+     * @throws IOException If the file is not found, or is otherwise inaccessible.
+     */
+    public FileEventSource(File file) throws IOException {
+        this(file, DeviceInfo.unknown("Unknown Device"), System.getProperty("os.arch"));
+    }
+
+    /**
+     * @param file       The FIFO or file to read.
+     * @param deviceInfo Description reported for the source, e.g. built with {@link DeviceInfo#of(String, java.util.Map)}.
+     * @param arch       System architecture the structs were written on, selects the struct layout.
+     * @throws IOException If the file is not found, or is otherwise inaccessible.
+     */
+    public FileEventSource(File file, DeviceInfo deviceInfo, String arch) throws IOException {
+        this.path = file.getAbsolutePath();
+        this.deviceInfo = deviceInfo;
+        /* Opening a FIFO waits for a writer */
+        this.channel = new FileInputStream(path).getChannel();
+        this.reader = new InputEventReader(channel, path, arch, EventDevice.DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public DeviceInfo getDeviceInfo() {
+        return deviceInfo;
+    }
+
+    @Override
+    public int read(RawInputListener listener, int maxEvents) throws IOException {
+        return reader.read(listener, maxEvents);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
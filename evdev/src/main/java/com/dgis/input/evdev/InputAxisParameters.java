@@ -21,6 +21,10 @@ import javax.annotation.concurrent.ThreadSafe;
 /**
  * Represents configurable parameters of an input axis. set*() should affect the value in the device.
  * <p/>
+ * The static parameters (minimum, maximum, fuzz, flat and resolution) are read with a single ioctl on the open
+ * device and cached. The value follows the EV_ABS events read from the device; {@link #refresh()} reads everything
+ * again from the kernel, e.g. after events were dropped.
+ * <p/>
  * Copyright (C) 2009 Giacomo Ferrari
  *
  * @author Giacomo Ferrari
@@ -31,51 +35,75 @@ class InputAxisParameters {
     private final EventDevice device;
     private final int axis;
 
-    private static final int VALUE_INDEX = 0;
-    private static final int MIN_INDEX = 1;
-    private static final int MAX_INDEX = 2;
-    private static final int FUZZ_INDEX = 3;
-    private static final int FLAT_INDEX = 4;
+    private volatile AbsInfo absInfo;
+    private volatile int value;
 
     public InputAxisParameters(EventDevice device, int axis) {
         this.device = device;
         this.axis = axis;
+        refresh();
     }
 
-    private int readStatus(int i) {
-        if (i < 0 || i > 4) {
-            throw new IllegalArgumentException("Field index has to be between 0 and 4");
-        }
-        int[] resp = new int[5];
-        synchronized (this) {
-            device.ioctlEVIOCGABS(device.getDevicePath(), resp, axis);
+    /**
+     * Read the axis parameters and current value from the device, replacing the cached snapshot.
+     *
+     * @return false if the device could not be queried; the previous snapshot is kept.
+     */
+    public synchronized boolean refresh() {
+        int[] resp = new int[DeviceInfo.ABS_INFO_FIELDS];
+        if (!device.ioctlEVIOCGABS(resp, axis)) {
+            if (absInfo == null) {
+                absInfo = new AbsInfo(0, 0, 0, 0, 0, 0);
+            }
+            return false;
         }
-        return resp[i];
+        absInfo = AbsInfo.of(resp, 0);
+        value = absInfo.getValue();
+        return true;
+    }
+
+    /**
+     * Called by the device for each EV_ABS event of this axis.
+     */
+    void update(int value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the snapshot taken by the last refresh. Its value may be older than {@link #getValue()}.
+     */
+    public AbsInfo getAbsInfo() {
+        return absInfo;
     }
 
     public int getValue() {
-        return readStatus(VALUE_INDEX);
+        return value;
     }
 
     public int getMin() {
-        return readStatus(MIN_INDEX);
+        return absInfo.getMin();
     }
 
     public int getMax() {
-        return readStatus(MAX_INDEX);
+        return absInfo.getMax();
     }
 
     public int getFuzz() {
-        return readStatus(FUZZ_INDEX);
+        return absInfo.getFuzz();
     }
 
     public int getFlat() {
-        return readStatus(FLAT_INDEX);
+        return absInfo.getFlat();
+    }
+
+    public int getResolution() {
+        return absInfo.getResolution();
     }
 
     @Override
     public String toString() {
-        return "Value: " + getValue() + " Min: " + getMin() + " Max: "
-                + getMax() + " Fuzz: " + getFuzz() + " Flat: " + getFlat();
+        AbsInfo info = absInfo;
+        return "Value: " + value + " Min: " + info.getMin() + " Max: " + info.getMax()
+                + " Fuzz: " + info.getFuzz() + " Flat: " + info.getFlat() + " Resolution: " + info.getResolution();
     }
 }
@@ -65,6 +65,7 @@ public class InputEvent {
     public static final short SYN_REPORT = 0;
     public static final short SYN_CONFIG = 1;
     public static final short SYN_MT_REPORT = 2;
+    public static final short SYN_DROPPED = 3;
 
     /*
      * Keys and buttons
@@ -648,6 +649,13 @@ public class InputEvent {
     public static final short REL_DIAL = 0x07;
     public static final short REL_WHEEL = 0x08;
     public static final short REL_MISC = 0x09;
+    /*
+     * 0x0a is reserved and should not be used in input drivers. It was used by HID as REL_MISC+1 and userspace
+     * needs to detect if the next REL_* event is correct or is just REL_MISC + n.
+     */
+    public static final short REL_RESERVED = 0x0a;
+    public static final short REL_WHEEL_HI_RES = 0x0b;
+    public static final short REL_HWHEEL_HI_RES = 0x0c;
     public static final short REL_MAX = 0x0f;
     public static final short REL_CNT = (REL_MAX + 1);
 
@@ -680,6 +688,8 @@ public class InputEvent {
     public static final short ABS_VOLUME = 0x20;
     public static final short ABS_MISC = 0x28;
 
+    /** MT slot being modified */
+    public static final short ABS_MT_SLOT = 0x2f;
     /** Major axis of touching ellipse */
     public static final short ABS_MT_TOUCH_MAJOR = 0x30;
     /** Minor axis (omit if circular) */
@@ -700,6 +710,10 @@ public class InputEvent {
     public static final short ABS_MT_BLOB_ID = 0x38;
     /** Unique ID of initiated contact */
     public static final short ABS_MT_TRACKING_ID = 0x39;
+    /** Pressure on contact area */
+    public static final short ABS_MT_PRESSURE = 0x3a;
+    /** Contact hover distance */
+    public static final short ABS_MT_DISTANCE = 0x3b;
 
     public static final short ABS_MAX = 0x3f;
     public static final short ABS_CNT = (ABS_MAX + 1);
@@ -812,7 +826,7 @@ public class InputEvent {
     @Getter public final /*__s32*/ int value;
     @Getter public final String source;
 
-    private InputEvent(long timeSec, long timeMicroSec, EventType type, short code, int value, String source) {
+    InputEvent(long timeSec, long timeMicroSec, EventType type, short code, int value, String source) {
         this.timeSec = timeSec;
         this.timeMicroSec = timeMicroSec;
         this.type = type;
@@ -843,11 +857,12 @@ public class InputEvent {
      * @throws IOException
      */
     public static InputEvent parse(ShortBuffer shortBuffer, String source, String arch) {
+        boolean arm = "arm".equals(arch);
         short a, b, c, d;
         a = shortBuffer.get();
         b = shortBuffer.get();
         long timeSec;
-        if (arch.equals("arm")) {
+        if (arm) {
             timeSec = (b << 16) | a;
         } else {
             c = shortBuffer.get();
@@ -857,7 +872,7 @@ public class InputEvent {
         a = shortBuffer.get();
         b = shortBuffer.get();
         long timeMicroSec;
-        if (arch.equals("arm")) {
+        if (arm) {
             timeMicroSec = (b << 16) | a;
         } else {
             c = shortBuffer.get();
@@ -0,0 +1,118 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads input_event structs from a channel in batches.
+ * <p/>
+ * Each call to {@link #read(RawInputListener)} issues a single read into a buffer sized for
+ * several structs, then parses and dispatches every complete struct in order. Bytes of a
+ * trailing partial struct are kept and completed by the next read, so the channel can be
+ * an evdev node, a FIFO or a regular file of recorded events.
+ * <p/>
+ * Events are handed out through a single reusable {@link InputEventView}, nothing is allocated per event.
+ */
+class InputEventReader {
+
+    private final ReadableByteChannel channel;
+    private final int structSize;
+    private final ByteBuffer buffer;
+    private final InputEventView view;
+
+    /**
+     * @param channel   The channel to read input_event structs from.
+     * @param source    The source reported by the parsed events.
+     * @param arch      System architecture, selects the struct layout.
+     * @param batchSize Maximum number of structs fetched by a single read.
+     */
+    InputEventReader(ReadableByteChannel channel, String source, String arch, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size has to be at least 1");
+        }
+        this.channel = channel;
+        this.structSize = structSize(arch);
+        this.buffer = ByteBuffer.allocate(batchSize * structSize);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.view = new InputEventView(source, arch);
+    }
+
+    /**
+     * Size in bytes of the input_event struct on the given architecture.
+     */
+    static int structSize(String arch) {
+        return "arm".equals(arch) ? InputEvent.STRUCT_SIZE_BYTES_ARM : InputEvent.STRUCT_SIZE_BYTES;
+    }
+
+    /**
+     * Issue a single read on the channel and hand every complete event to the listener.
+     *
+     * @param listener Receives a view of each event, in order.
+     * @return the number of events dispatched, or -1 once the end of the stream is reached.
+     * @throws IOException If the channel cannot be read.
+     */
+    int read(RawInputListener listener) throws IOException {
+        return read(listener, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Hand at most maxEvents events to the listener, issuing a single read on the channel unless enough events
+     * are left over from the previous call.
+     *
+     * @param listener  Receives a view of each event, in order.
+     * @param maxEvents Maximum number of events dispatched, at least 1.
+     * @return the number of events dispatched, or -1 once the end of the stream is reached.
+     * @throws IOException If the channel cannot be read.
+     */
+    int read(RawInputListener listener, int maxEvents) throws IOException {
+        long wanted = (long) maxEvents * structSize;
+        int read = 0;
+        if (buffer.position() < wanted) {
+            buffer.limit((int) Math.min(buffer.capacity(), wanted));
+            read = channel.read(buffer);
+            buffer.limit(buffer.capacity());
+        }
+        int end = buffer.position();
+        int offset = 0;
+        int events = 0;
+        while (end - offset >= structSize && events < maxEvents) {
+            view.wrap(buffer, offset);
+            listener.event(view);
+            offset += structSize;
+            events++;
+        }
+        /* Keep the bytes of a partial struct, and any event beyond maxEvents, for the next read */
+        buffer.limit(end);
+        buffer.position(offset);
+        buffer.compact();
+        if (read < 0 && events == 0) {
+            return -1;
+        }
+        return events;
+    }
+
+    /**
+     * Close the channel.
+     */
+    void close() throws IOException {
+        channel.close();
+    }
+}
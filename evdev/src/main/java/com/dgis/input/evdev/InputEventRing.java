@@ -0,0 +1,153 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free, single producer single consumer ring of input events.
+ * <p/>
+ * Slots are preallocated, each one holding an input_event struct, so neither side allocates. The producer,
+ * usually the reader thread of an EventDevice, never waits: when the ring is full the event is dropped and
+ * counted in {@link #getOverflowCount()}. The consumer drains the ring from its own thread with
+ * {@link #drain(RawInputListener, int)}.
+ * <p/>
+ * Register the ring with {@link EventDevice#addRawListener(RawInputListener)} to feed it, or let
+ * {@link EventDevice#decoupleDispatch(int, WaitStrategy)} set it up with a dispatch thread.
+ */
+public final class InputEventRing implements RawInputListener {
+
+    private static final int SLOT_SIZE = InputEvent.STRUCT_SIZE_BYTES;
+    private static final String SLOT_LAYOUT = "amd64";
+
+    private final ByteBuffer slots;
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * Index of the next slot to write, only written by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Index of the next slot to read, only written by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Last head seen by the producer, saves reading head on every offer.
+     */
+    private long cachedHead;
+
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    /**
+     * Consumer side view of the slots.
+     */
+    private final InputEventView view;
+
+    /**
+     * @param source   The source reported by the events read from the ring.
+     * @param capacity Minimum number of slots, rounded up to a power of two.
+     */
+    public InputEventRing(String source, int capacity) {
+        if (capacity < 1 || capacity > (1 << 24)) {
+            throw new IllegalArgumentException("Capacity has to be between 1 and 2^24");
+        }
+        int slotCount = 1;
+        while (slotCount < capacity) slotCount <<= 1;
+        this.capacity = slotCount;
+        this.mask = this.capacity - 1;
+        this.slots = ByteBuffer.allocate(this.capacity * SLOT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.view = new InputEventView(source, SLOT_LAYOUT);
+    }
+
+    /**
+     * Producer side: same as {@link #offer(InputEventView)}.
+     */
+    @Override
+    public void event(InputEventView e) {
+        offer(e);
+    }
+
+    /**
+     * Producer side: copy the event into the next free slot.
+     *
+     * @param e The event to copy.
+     * @return false if the ring was full and the event was dropped.
+     */
+    public boolean offer(InputEventView e) {
+        long index = tail.get();
+        if (index - cachedHead >= capacity) {
+            cachedHead = head.get();
+            if (index - cachedHead >= capacity) {
+                overflowCount.lazySet(overflowCount.get() + 1);
+                return false;
+            }
+        }
+        int offset = (int) (index & mask) * SLOT_SIZE;
+        slots.putLong(offset, e.getTimeSec());
+        slots.putLong(offset + 8, e.getTimeMicroSec());
+        slots.putShort(offset + 16, e.getType());
+        slots.putShort(offset + 18, e.getCode());
+        slots.putInt(offset + 20, e.getValue());
+        tail.lazySet(index + 1);
+        return true;
+    }
+
+    /**
+     * Consumer side: hand up to maxEvents pending events to the sink, oldest first. Each slot is released as
+     * soon as the sink returns.
+     *
+     * @param sink      Receives the events. The view is only valid during the call.
+     * @param maxEvents Maximum number of events to drain.
+     * @return the number of events drained.
+     */
+    public int drain(RawInputListener sink, int maxEvents) {
+        long index = head.get();
+        int count = (int) Math.min(tail.get() - index, maxEvents);
+        for (int i = 0; i < count; i++) {
+            view.wrap(slots, (int) (index & mask) * SLOT_SIZE);
+            sink.event(view);
+            head.lazySet(++index);
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of slots of this ring.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of events waiting to be drained.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * @return the number of events dropped because the ring was full.
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+}
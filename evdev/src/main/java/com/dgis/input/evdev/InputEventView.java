@@ -0,0 +1,91 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable, mutable view of an input_event struct sitting in a read buffer.
+ * <p/>
+ * The view reads its fields straight from the buffer, so no object is allocated per event. It is only valid
+ * for the duration of the {@link RawInputListener#event(InputEventView)} call it is handed to; listeners
+ * that need to keep an event must call {@link #copy()}.
+ */
+public final class InputEventView {
+
+    private final String source;
+    private final boolean arm;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * @param source The source reported by the events.
+     * @param arch   System architecture, selects the struct layout.
+     */
+    InputEventView(String source, String arch) {
+        this.source = source;
+        this.arm = "arm".equals(arch);
+    }
+
+    /**
+     * Point this view at the struct starting at offset in the given little endian buffer.
+     */
+    void wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    public long getTimeSec() {
+        return arm ? buffer.getInt(offset) : buffer.getLong(offset);
+    }
+
+    public long getTimeMicroSec() {
+        return arm ? buffer.getInt(offset + 4) : buffer.getLong(offset + 8);
+    }
+
+    public short getType() {
+        return buffer.getShort(offset + (arm ? 8 : 16));
+    }
+
+    public short getCode() {
+        return buffer.getShort(offset + (arm ? 10 : 18));
+    }
+
+    public int getValue() {
+        return buffer.getInt(offset + (arm ? 12 : 20));
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Copy the current event into an immutable InputEvent that can be kept after the callback returns.
+     *
+     * @return a new InputEvent with the same content as this view.
+     */
+    public InputEvent copy() {
+        return new InputEvent(getTimeSec(), getTimeMicroSec(), EventType.valueOf(getType()), getCode(), getValue(), source);
+    }
+
+    @Override
+    public String toString() {
+        return "InputEventView(timeSec=" + getTimeSec() + ", timeMicroSec=" + getTimeMicroSec() + ", type=" + getType()
+                + ", code=" + getCode() + ", value=" + getValue() + ", source=" + source + ")";
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.util.Arrays;
+
+/**
+ * All the events reported by a device between two SYN_REPORT events, stored in primitive arrays.
+ * <p/>
+ * The same instance is refilled for every frame, so it is only valid during the
+ * {@link InputFrameListener#frame(InputFrame)} call it is handed to. The terminating SYN_REPORT is not part of
+ * the events, its timestamp is the timestamp of the frame.
+ */
+public final class InputFrame {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private final String source;
+
+    private int size;
+    private short[] types = new short[INITIAL_CAPACITY];
+    private short[] codes = new short[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private long[] timeSecs = new long[INITIAL_CAPACITY];
+    private long[] timeMicroSecs = new long[INITIAL_CAPACITY];
+
+    private long timeSec;
+    private long timeMicroSec;
+    private boolean afterDrop;
+
+    InputFrame(String source) {
+        this.source = source;
+    }
+
+    /**
+     * @return the number of events in this frame.
+     */
+    public int size() {
+        return size;
+    }
+
+    public short getType(int index) {
+        checkIndex(index);
+        return types[index];
+    }
+
+    public short getCode(int index) {
+        checkIndex(index);
+        return codes[index];
+    }
+
+    public int getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    public long getTimeSec(int index) {
+        checkIndex(index);
+        return timeSecs[index];
+    }
+
+    public long getTimeMicroSec(int index) {
+        checkIndex(index);
+        return timeMicroSecs[index];
+    }
+
+    /**
+     * @return the seconds part of the SYN_REPORT timestamp closing this frame.
+     */
+    public long getTimeSec() {
+        return timeSec;
+    }
+
+    /**
+     * @return the microseconds part of the SYN_REPORT timestamp closing this frame.
+     */
+    public long getTimeMicroSec() {
+        return timeMicroSec;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Events were dropped by the kernel (SYN_DROPPED) before this frame. The frames in between have been
+     * discarded. If the device can be queried, this frame holds the keys, switches, LEDs and axes that changed
+     * meanwhile; other state accumulated from previous frames, such as multitouch slots, may be stale.
+     *
+     * @return true for the first frame delivered after a drop.
+     */
+    public boolean isAfterDrop() {
+        return afterDrop;
+    }
+
+    /**
+     * Copy the event at the given index into an immutable InputEvent.
+     */
+    public InputEvent copy(int index) {
+        checkIndex(index);
+        return new InputEvent(timeSecs[index], timeMicroSecs[index], EventType.valueOf(types[index]), codes[index],
+                values[index], source);
+    }
+
+    void add(InputEventView event) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            values = Arrays.copyOf(values, capacity);
+            timeSecs = Arrays.copyOf(timeSecs, capacity);
+            timeMicroSecs = Arrays.copyOf(timeMicroSecs, capacity);
+        }
+        types[size] = event.getType();
+        codes[size] = event.getCode();
+        values[size] = event.getValue();
+        timeSecs[size] = event.getTimeSec();
+        timeMicroSecs[size] = event.getTimeMicroSec();
+        size++;
+    }
+
+    void complete(InputEventView synReport, boolean afterDrop) {
+        this.timeSec = synReport.getTimeSec();
+        this.timeMicroSec = synReport.getTimeMicroSec();
+        this.afterDrop = afterDrop;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder("InputFrame(source=").append(source)
+                .append(", timeSec=").append(timeSec)
+                .append(", timeMicroSec=").append(timeMicroSec)
+                .append(", afterDrop=").append(afterDrop)
+                .append(", events=[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) buf.append(", ");
+            buf.append(types[i]).append('/').append(codes[i]).append('=').append(values[i]);
+        }
+        return buf.append("])").toString();
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Buffers events until SYN_REPORT, then hands them to the frame listeners as a single {@link InputFrame}.
+ * <p/>
+ * On SYN_DROPPED, the events of the current frame are discarded. The events up to the next SYN_REPORT are
+ * those passed on by {@link EventResync}, which already discarded the incomplete ones: that frame holds the state
+ * that changed during the drop, and is flagged with {@link InputFrame#isAfterDrop()}.
+ */
+class InputFrameAssembler implements RawInputListener {
+
+    private final InputFrame frame;
+
+    private volatile InputFrameListener[] listeners = new InputFrameListener[0];
+
+    private boolean dropped = false;
+
+    InputFrameAssembler(String source) {
+        this.frame = new InputFrame(source);
+    }
+
+    @Override
+    public void event(InputEventView e) {
+        if (e.getType() == InputEvent.EV_SYN) {
+            if (e.getCode() == InputEvent.SYN_REPORT) {
+                frame.complete(e, dropped);
+                dropped = false;
+                for (InputFrameListener listener : listeners) {
+                    listener.frame(frame);
+                }
+                frame.clear();
+                return;
+            }
+            if (e.getCode() == InputEvent.SYN_DROPPED) {
+                dropped = true;
+                frame.clear();
+                return;
+            }
+        }
+        frame.add(e);
+    }
+
+    boolean hasListeners() {
+        return listeners.length > 0;
+    }
+
+    synchronized void addListener(InputFrameListener listener) {
+        InputFrameListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    synchronized void removeListener(InputFrameListener listener) {
+        List<InputFrameListener> updated = new ArrayList<>(Arrays.asList(listeners));
+        if (updated.remove(listener)) {
+            listeners = updated.toArray(new InputFrameListener[0]);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Serves input_event structs held in a buffer, e.g. synthetic events for tests, benchmarks and soak tests. Never
+ * waits: the end of the source is reached once every struct was read.
+ * <p/>
+ * Events are read in place, through a single reusable view; nothing is copied or allocated.
+ */
+public final class MemoryEventSource implements EventSource {
+
+    private final String path;
+    private final DeviceInfo deviceInfo;
+    private final ByteBuffer structs;
+    private final int structSize;
+    private final InputEventView view;
+
+    /**
+     * Serve structs in the 64 bit layout.
+     *
+     * @param path       The path reported for the source.
+     * @param structs    The structs between position and limit, read from a little endian duplicate of the buffer.
+     * @param deviceInfo Description reported for the source.
+     */
+    public MemoryEventSource(String path, ByteBuffer structs, DeviceInfo deviceInfo) {
+        this(path, structs, deviceInfo, "amd64");
+    }
+
+    /**
+     * @param path       The path reported for the source.
+     * @param structs    The structs between position and limit, read from a little endian duplicate of the buffer.
+     * @param deviceInfo Description reported for the source.
+     * @param arch       System architecture of the struct layout.
+     */
+    public MemoryEventSource(String path, ByteBuffer structs, DeviceInfo deviceInfo, String arch) {
+        this.path = path;
+        this.deviceInfo = deviceInfo;
+        this.structs = structs.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.structSize = InputEventReader.structSize(arch);
+        this.view = new InputEventView(path, arch);
+    }
+
+    @Override
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public DeviceInfo getDeviceInfo() {
+        return deviceInfo;
+    }
+
+    @Override
+    public int read(RawInputListener listener, int maxEvents) {
+        if (structs.remaining() < structSize) {
+            return -1;
+        }
+        int events = 0;
+        while (events < maxEvents && structs.remaining() >= structSize) {
+            view.wrap(structs, structs.position());
+            listener.event(view);
+            structs.position(structs.position() + structSize);
+            events++;
+        }
+        return events;
+    }
+
+    /**
+     * @return the number of events not read yet.
+     */
+    public int remaining() {
+        return structs.remaining() / structSize;
+    }
+
+    @Override
+    public void close() {
+        structs.position(structs.limit());
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Loads the native library backing {@link NativeEventDevice} once per class loader, preferring the copy embedded
+ * in the jar and falling back to java.library.path.
+ * <p/>
+ * The embedded library is extracted to a per-user directory under java.io.tmpdir, named after the SHA-256 of its
+ * content. Later runs with the same library find the file, check its content, and load it without writing. If the
+ * extracted library cannot be loaded, e.g. from a noexec java.io.tmpdir, java.library.path is tried as well.
+ */
+final class NativeLibraryLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(NativeLibraryLoader.class);
+
+    private static final String RESOURCE = "/evdev-native.so";
+    private static final String LIBRARY_NAME = "evdev-java";
+
+    private static volatile boolean loaded;
+
+    private NativeLibraryLoader() {
+    }
+
+    /**
+     * Load the native library, unless this class loader already did. Safe to call from any thread, and cheap
+     * after the first call.
+     *
+     * @throws IOException          If the embedded library cannot be read.
+     * @throws UnsatisfiedLinkError If neither the embedded library nor java.library.path can be loaded.
+     */
+    static void load() throws IOException {
+        if (loaded) return;
+        synchronized (NativeLibraryLoader.class) {
+            if (loaded) return;
+            loadOnce();
+            loaded = true;
+        }
+    }
+
+    private static void loadOnce() throws IOException {
+        byte[] library = readResource();
+        if (library == null) {
+            logger.warn("No embedded {}, falling back to java.library.path", RESOURCE);
+            System.loadLibrary(LIBRARY_NAME);
+            return;
+        }
+        File file;
+        try {
+            file = extract(library, defaultDirectory());
+        } catch (IOException e) {
+            logger.warn("Cannot extract {}, falling back to java.library.path", RESOURCE, e);
+            try {
+                System.loadLibrary(LIBRARY_NAME);
+            } catch (UnsatisfiedLinkError error) {
+                error.addSuppressed(e);
+                throw error;
+            }
+            return;
+        }
+        logger.debug("Loading {}", file);
+        try {
+            System.load(file.getAbsolutePath());
+        } catch (UnsatisfiedLinkError e) {
+            // E.g. java.io.tmpdir is mounted noexec
+            logger.warn("Cannot load {}, falling back to java.library.path", file, e);
+            try {
+                System.loadLibrary(LIBRARY_NAME);
+            } catch (UnsatisfiedLinkError error) {
+                error.addSuppressed(e);
+                throw error;
+            }
+        }
+    }
+
+    private static byte[] readResource() throws IOException {
+        try (InputStream in = NativeLibraryLoader.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) return null;
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+            byte[] buffer = new byte[8192];
+            int len;
+            while ((len = in.read(buffer)) > -1) {
+                out.write(buffer, 0, len);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static File defaultDirectory() {
+        return new File(System.getProperty("java.io.tmpdir"), LIBRARY_NAME + "-" + System.getProperty("user.name"));
+    }
+
+    /**
+     * Store the library in the given directory, under a name derived from its content, unless an identical copy
+     * is already there. A copy with other content is replaced. Concurrent extractions, also from other processes,
+     * write private temporary files and rename them into place.
+     *
+     * @return the file holding the library.
+     */
+    static File extract(byte[] library, File directory) throws IOException {
+        byte[] digest = sha256(library);
+        Path dir = createDirectory(directory.toPath());
+        Path target = dir.resolve("lib" + LIBRARY_NAME + "-" + hex(digest) + ".so");
+        if (Files.isRegularFile(target) && Arrays.equals(sha256(Files.readAllBytes(target)), digest)) {
+            return target.toFile();
+        }
+        Path temp = Files.createTempFile(dir, "lib" + LIBRARY_NAME, ".tmp");
+        try {
+            Files.write(temp, library);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return target.toFile();
+    }
+
+    /**
+     * Create the directory, or reuse it if it exists and only the current user can write to it. Its name is
+     * predictable, so in a shared java.io.tmpdir another user could create it first and swap the library between
+     * its check and its loading. A fresh directory with a random name is used then.
+     */
+    private static Path createDirectory(Path dir) throws IOException {
+        if (!dir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            try {
+                return Files.createDirectory(dir);
+            } catch (FileAlreadyExistsException e) {
+                if (!Files.isDirectory(dir)) throw e;
+                return dir;
+            }
+        }
+        FileAttribute<Set<PosixFilePermission>> ownerOnly =
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"));
+        try {
+            return Files.createDirectory(dir, ownerOnly);
+        } catch (FileAlreadyExistsException e) {
+            if (isPrivate(dir)) return dir;
+            logger.warn("{} is not private to {}, extracting to a new directory", dir,
+                    System.getProperty("user.name"));
+            return Files.createTempDirectory(dir.getParent(), dir.getFileName() + "-", ownerOnly);
+        }
+    }
+
+    private static boolean isPrivate(Path dir) throws IOException {
+        if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) return false;
+        PosixFileAttributes attributes =
+                Files.readAttributes(dir, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal user = dir.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        return attributes.owner().equals(user)
+                && attributes.permissions().equals(PosixFilePermissions.fromString("rwx------"));
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+/**
+ * Allocation free counterpart of {@link InputListener}.
+ * <p/>
+ * The same {@link InputEventView} instance is reused for every event, so it must not be kept after the call
+ * returns. Use {@link InputEventView#copy()} to keep an event.
+ */
+public interface RawInputListener {
+    /**
+     * This method is called by a EventDevice when an event is reported by
+     * the event device under its watch.
+     *
+     * @param e A view of the event, only valid during this call.
+     */
+    void event(InputEventView e);
+}
@@ -0,0 +1,64 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a consumer waits when its {@link InputEventRing} is empty.
+ */
+public enum WaitStrategy {
+
+    /**
+     * Poll again immediately. Lowest latency, burns a full core.
+     */
+    BUSY_SPIN {
+        @Override
+        void idle() {
+        }
+    },
+
+    /**
+     * Yield the processor between polls.
+     */
+    YIELD {
+        @Override
+        void idle() {
+            Thread.yield();
+        }
+    },
+
+    /**
+     * Sleep for {@link #PARK_NANOS} between polls. Adds up to that much latency, but leaves the core idle.
+     */
+    PARK {
+        @Override
+        void idle() {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    };
+
+    /**
+     * Time a parked consumer sleeps between polls.
+     */
+    public static final long PARK_NANOS = 100000L;
+
+    /**
+     * Called by the consumer each time it finds the ring empty.
+     */
+    abstract void idle();
+}
@@ -0,0 +1,105 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+/**
+ * Pointer acceleration: how much the motion of a frame is scaled, given how fast the pointer moves.
+ * <p/>
+ * Speeds and factors are 16.16 fixed point numbers, i.e. multiplied by {@link #ONE}, so that profiles are
+ * evaluated without floating point math for every frame. Speeds are in device units per millisecond. For a
+ * 1000 dpi mouse, one unit per millisecond is about 25 mm per second.
+ */
+@FunctionalInterface
+public interface AccelerationProfile {
+
+    /**
+     * 1.0 in 16.16 fixed point.
+     */
+    int ONE = 1 << 16;
+
+    /**
+     * @param speed How fast the pointer moves, in device units per millisecond, in 16.16 fixed point. Never
+     *              negative.
+     * @return The factor to scale the motion by, in 16.16 fixed point.
+     */
+    int factor(int speed);
+
+    /**
+     * Scale motion by a constant factor, whatever the speed.
+     *
+     * @param factor E.g. 2.0 to cross the screen with half the motion.
+     */
+    static AccelerationProfile flat(double factor) {
+        int fixed = toFixed(factor);
+        return speed -> fixed;
+    }
+
+    /**
+     * Leave slow motion unscaled for precision, and scale faster motion by a factor growing linearly with the
+     * speed, up to a maximum. E.g. {@code adaptive(0.4, 0.3, 4.0)} suits a 1000 dpi mouse on a 4K display.
+     *
+     * @param threshold    The speed, in device units per millisecond, up to which motion is not scaled.
+     * @param acceleration How much the factor grows per unit per millisecond above the threshold.
+     * @param maxFactor    The factor for the fastest motion.
+     */
+    static AccelerationProfile adaptive(double threshold, double acceleration, double maxFactor) {
+        int fixedThreshold = toFixed(threshold);
+        int fixedAcceleration = toFixed(acceleration);
+        int fixedMax = toFixed(maxFactor);
+        return speed -> {
+            if (speed <= fixedThreshold) return ONE;
+            long factor = ONE + (((long) (speed - fixedThreshold) * fixedAcceleration) >> 16);
+            return factor < fixedMax ? (int) factor : fixedMax;
+        };
+    }
+
+    /**
+     * Scale motion by factors interpolated linearly between points of a curve, e.g. measured to suit a device.
+     *
+     * @param step    The speed between two points, in device units per millisecond.
+     * @param factors The factors at speeds 0, step, 2 * step... Faster motion uses the last factor.
+     */
+    static AccelerationProfile custom(double step, double... factors) {
+        if (step <= 0 || factors.length == 0) {
+            throw new IllegalArgumentException("A curve needs a positive step and at least one point");
+        }
+        int fixedStep = toFixed(step);
+        if (fixedStep == 0) {
+            throw new IllegalArgumentException("Step below the fixed point resolution of 1/65536: " + step);
+        }
+        int[] fixedFactors = new int[factors.length];
+        for (int i = 0; i < factors.length; i++) {
+            fixedFactors[i] = toFixed(factors[i]);
+        }
+        return speed -> {
+            int i = speed / fixedStep;
+            if (i >= fixedFactors.length - 1) return fixedFactors[fixedFactors.length - 1];
+            long delta = fixedFactors[i + 1] - fixedFactors[i];
+            return fixedFactors[i] + (int) (delta * (speed - i * fixedStep) / fixedStep);
+        };
+    }
+
+    /**
+     * @return value in 16.16 fixed point.
+     */
+    static int toFixed(double value) {
+        if (value < 0 || value * ONE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Out of range: " + value);
+        }
+        return (int) Math.round(value * ONE);
+    }
+}
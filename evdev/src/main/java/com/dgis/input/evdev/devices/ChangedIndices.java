@@ -0,0 +1,101 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+/**
+ * The buttons or axes that changed during one frame, as a list of indices plus a bitmap for direct lookups.
+ * Marking and clearing cost is proportional to the number of changes, not to the number of inputs.
+ * <p/>
+ * Only valid during the listener call it is passed to; it is reused for the next frame.
+ */
+public final class ChangedIndices {
+
+    private final boolean[] flags;
+    private final int[] indices;
+    private int size;
+
+    ChangedIndices(int capacity) {
+        flags = new boolean[capacity];
+        indices = new int[capacity];
+    }
+
+    /**
+     * Record that the input at the given index changed. Marking an index twice has no further effect.
+     */
+    void mark(int index) {
+        if (!flags[index]) {
+            flags[index] = true;
+            indices[size++] = index;
+        }
+    }
+
+    /**
+     * Forget all changes, touching only the entries that were marked.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            flags[indices[i]] = false;
+        }
+        size = 0;
+    }
+
+    /**
+     * @return the bitmap view handed to legacy listener methods.
+     */
+    boolean[] flags() {
+        return flags;
+    }
+
+    /**
+     * @return the number of inputs that changed.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param i Position in the list, between 0 and size()-1.
+     * @return the index of the i-th changed input, in the order the changes were seen.
+     */
+    public int get(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        return indices[i];
+    }
+
+    /**
+     * @return true if the input at the given index changed.
+     */
+    public boolean contains(int index) {
+        return flags[index];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) buf.append(", ");
+            buf.append(indices[i]);
+        }
+        return buf.append("]").toString();
+    }
+}
@@ -0,0 +1,316 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers mouse notifications to a slow {@link IMouseListener} on its own thread, so that it does not hold up
+ * the thread reading the device. While the listener is busy, consecutive moves, or consecutive drags, are merged
+ * into the most recent one, and consecutive smooth scrolls add up into one; presses, releases and wheel detents are
+ * delivered in order.
+ * <pre>
+ * mouseFilter.addMouseListener(new CoalescingMouseListener(slowListener));
+ * </pre>
+ * Listeners keeping up with the device receive every frame, so only wrap the ones that fall behind.
+ * <p/>
+ * The notifying thread never blocks nor takes a lock: once the pending notifications fill the ring, those that
+ * cannot be merged are dropped and counted. Notifications must come from a single thread, as they do from one
+ * filter.
+ */
+public class CoalescingMouseListener implements IMouseListener, Closeable {
+
+    private static final int MOVED = 0;
+    private static final int DRAGGED = 1;
+    private static final int PRESSED = 2;
+    private static final int RELEASED = 3;
+    private static final int WHEEL = 4;
+    private static final int HORIZONTAL_WHEEL = 5;
+    private static final int SCROLLED = 6;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final IMouseListener delegate;
+
+    /** Pending notifications, a ring indexed by the positions below */
+    private final int[] kinds;
+    private final int[] xs;
+    private final int[] ys;
+    /** Wheel velocity or detents, or vertical scroll */
+    private final int[] values;
+    /** Horizontal scroll */
+    private final int[] horizontals;
+    private final MouseButton[] buttons;
+    private final WheelDirection[] directions;
+    private final int mask;
+
+    /**
+     * Entries claimed by the delivery thread in the high half, entries published by the notifying thread in the low
+     * half, both wrapping. Kept in one word so that the notifying thread can take back the last entry to merge into
+     * it, as long as the delivery thread has not claimed it.
+     */
+    private final AtomicLong positions = new AtomicLong();
+
+    /** Entries the delivery thread is done reading, so that their slots can be reused */
+    private final AtomicInteger released = new AtomicInteger();
+
+    /** Notifying thread's copy of {@code released}, refreshed when the ring looks full */
+    private int cachedReleased;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /** Set by the delivery thread before parking, so that the notifying thread only unparks it when needed */
+    private volatile boolean idle;
+    private volatile boolean terminate;
+
+    private final Thread deliveryThread;
+
+    /**
+     * Wrap the given listener, with room for 64 pending notifications.
+     *
+     * @param delegate the listener to deliver to
+     */
+    public CoalescingMouseListener(IMouseListener delegate) {
+        this(delegate, 64);
+    }
+
+    /**
+     * Wrap the given listener.
+     *
+     * @param delegate the listener to deliver to
+     * @param capacity the number of notifications that can be pending, rounded up to a power of two; once full,
+     *                 e.g. while buttons are clicked faster than the listener handles them, notifications that cannot
+     *                 be merged are dropped
+     */
+    public CoalescingMouseListener(IMouseListener delegate, int capacity) {
+        if (capacity < 1 || capacity > (1 << 24)) {
+            throw new IllegalArgumentException("Capacity has to be between 1 and 2^24: " + capacity);
+        }
+        int slotCount = 1;
+        while (slotCount < capacity) slotCount <<= 1;
+        this.delegate = delegate;
+        mask = slotCount - 1;
+        kinds = new int[slotCount];
+        xs = new int[slotCount];
+        ys = new int[slotCount];
+        values = new int[slotCount];
+        horizontals = new int[slotCount];
+        buttons = new MouseButton[slotCount];
+        directions = new WheelDirection[slotCount];
+        deliveryThread = new Thread(this::deliver, "evdev-mouse-delivery");
+        deliveryThread.setDaemon(true); /* We don't want this thread to prevent the JVM from terminating */
+        deliveryThread.start();
+    }
+
+    @Override
+    public void mouseMoved(int x, int y) {
+        post(MOVED, null, null, 0, 0, x, y);
+    }
+
+    @Override
+    public void mouseDragged(int x, int y) {
+        post(DRAGGED, null, null, 0, 0, x, y);
+    }
+
+    @Override
+    public void mousePressed(MouseButton btn, int x, int y) {
+        post(PRESSED, btn, null, 0, 0, x, y);
+    }
+
+    @Override
+    public void mouseReleased(MouseButton btn, int x, int y) {
+        post(RELEASED, btn, null, 0, 0, x, y);
+    }
+
+    @Override
+    public void mouseWheel(WheelDirection dir, int velocity, int x, int y) {
+        post(WHEEL, null, dir, velocity, 0, x, y);
+    }
+
+    @Override
+    public void mouseHorizontalWheel(int detents, int x, int y) {
+        post(HORIZONTAL_WHEEL, null, null, detents, 0, x, y);
+    }
+
+    @Override
+    public void mouseScrolled(int vertical, int horizontal, int x, int y) {
+        post(SCROLLED, null, null, vertical, horizontal, x, y);
+    }
+
+    /**
+     * @return the number of notifications waiting for the listener
+     */
+    public int getPendingCount() {
+        long p = positions.get();
+        return tail(p) - head(p);
+    }
+
+    /**
+     * @return the number of notifications dropped because the ring was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private static int head(long positions) {
+        return (int) (positions >>> 32);
+    }
+
+    private static int tail(long positions) {
+        return (int) positions;
+    }
+
+    private static long positions(int head, int tail) {
+        return (long) head << 32 | tail & 0xFFFFFFFFL;
+    }
+
+    private void post(int kind, MouseButton button, WheelDirection direction, int value, int horizontal, int x,
+            int y) {
+        if (terminate) {
+            return;
+        }
+        long p = positions.get();
+        int tail = tail(p);
+        if (tail != head(p) && (kind == MOVED || kind == DRAGGED || kind == SCROLLED)) {
+            int last = (tail - 1) & mask;
+            /* Taking the entry back fails if the delivery thread claimed it in the meantime */
+            if (kinds[last] == kind && positions.compareAndSet(p, positions(head(p), tail - 1))) {
+                // The listener has not seen the previous position yet, so it only needs the new one. Scrolling,
+                // relative, adds up
+                xs[last] = x;
+                ys[last] = y;
+                values[last] += value;
+                horizontals[last] += horizontal;
+                publish(tail);
+                return;
+            }
+        }
+        if (tail - cachedReleased > mask) {
+            cachedReleased = released.get();
+            if (tail - cachedReleased > mask) {
+                droppedCount.lazySet(droppedCount.get() + 1);
+                return;
+            }
+        }
+        int index = tail & mask;
+        kinds[index] = kind;
+        buttons[index] = button;
+        directions[index] = direction;
+        values[index] = value;
+        horizontals[index] = horizontal;
+        xs[index] = x;
+        ys[index] = y;
+        publish(tail + 1);
+    }
+
+    /**
+     * Make the entries up to the given tail visible to the delivery thread, whose head may move meanwhile.
+     */
+    private void publish(int tail) {
+        long p;
+        do {
+            p = positions.get();
+        } while (!positions.compareAndSet(p, positions(head(p), tail)));
+        if (idle) {
+            LockSupport.unpark(deliveryThread);
+        }
+    }
+
+    private void deliver() {
+        while (true) {
+            long p = positions.get();
+            int head = head(p);
+            if (head == tail(p)) {
+                if (terminate) {
+                    return;
+                }
+                idle = true;
+                /* Checked again after announcing the park, so that a notification published meanwhile unparks */
+                if (getPendingCount() == 0 && !terminate) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+            if (!positions.compareAndSet(p, positions(head + 1, tail(p)))) {
+                continue;
+            }
+            int index = head & mask;
+            int kind = kinds[index];
+            MouseButton button = buttons[index];
+            WheelDirection direction = directions[index];
+            int value = values[index];
+            int horizontal = horizontals[index];
+            int x = xs[index];
+            int y = ys[index];
+            buttons[index] = null;
+            directions[index] = null;
+            released.lazySet(head + 1);
+            try {
+                switch (kind) {
+                    case MOVED:
+                        delegate.mouseMoved(x, y);
+                        break;
+                    case DRAGGED:
+                        delegate.mouseDragged(x, y);
+                        break;
+                    case PRESSED:
+                        delegate.mousePressed(button, x, y);
+                        break;
+                    case RELEASED:
+                        delegate.mouseReleased(button, x, y);
+                        break;
+                    case WHEEL:
+                        delegate.mouseWheel(direction, value, x, y);
+                        break;
+                    case HORIZONTAL_WHEEL:
+                        delegate.mouseHorizontalWheel(value, x, y);
+                        break;
+                    default:
+                        delegate.mouseScrolled(value, horizontal, x, y);
+                        break;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Mouse listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Deliver the notifications still pending, then stop the delivery thread. Later notifications are ignored.
+     */
+    @Override
+    public void close() {
+        terminate = true;
+        LockSupport.unpark(deliveryThread);
+        if (Thread.currentThread() == deliveryThread) {
+            return;
+        }
+        try {
+            deliveryThread.join();
+        } catch (InterruptedException e) {
+            logger.error("Interrupted in close", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+import java.util.Arrays;
+
+/**
+ * The contacts of a multitouch device at the end of an event frame, one per protocol B slot.
+ * <p/>
+ * Contacts are kept in primitive arrays indexed by slot, sized once from the number of slots of the device. A
+ * slot is active while it holds a contact, i.e. has a tracking ID. Slots whose contact began or ended in this
+ * frame are flagged; an ended slot keeps the last values of its contact.
+ */
+public final class ContactFrame {
+
+    private static final int NO_CONTACT = -1;
+
+    private final String source;
+    private final int slotCount;
+
+    final int[] trackingId;
+    final int[] x;
+    final int[] y;
+    final int[] pressure;
+    final int[] touchMajor;
+    final int[] touchMinor;
+    final int[] toolType;
+
+    private final boolean[] began;
+    private final boolean[] ended;
+    private final int[] activeSlots;
+    private final int[] endedSlots;
+    private int activeCount;
+    private int endedCount;
+    private long timeSec;
+    private long timeMicroSec;
+
+    ContactFrame(String source, int slotCount) {
+        this.source = source;
+        this.slotCount = slotCount;
+        trackingId = new int[slotCount];
+        Arrays.fill(trackingId, NO_CONTACT);
+        x = new int[slotCount];
+        y = new int[slotCount];
+        pressure = new int[slotCount];
+        touchMajor = new int[slotCount];
+        touchMinor = new int[slotCount];
+        toolType = new int[slotCount];
+        began = new boolean[slotCount];
+        ended = new boolean[slotCount];
+        activeSlots = new int[slotCount];
+        endedSlots = new int[slotCount];
+    }
+
+    /**
+     * Take over the contacts of the given working state, and flag the slots whose contact changed since the last
+     * call.
+     */
+    void publish(ContactFrame working, long timeSec, long timeMicroSec) {
+        activeCount = 0;
+        endedCount = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int previous = trackingId[slot];
+            int current = working.trackingId[slot];
+            began[slot] = current != NO_CONTACT && current != previous;
+            ended[slot] = previous != NO_CONTACT && current != previous;
+            if (current != NO_CONTACT) activeSlots[activeCount++] = slot;
+            if (ended[slot]) endedSlots[endedCount++] = slot;
+        }
+        System.arraycopy(working.trackingId, 0, trackingId, 0, slotCount);
+        System.arraycopy(working.x, 0, x, 0, slotCount);
+        System.arraycopy(working.y, 0, y, 0, slotCount);
+        System.arraycopy(working.pressure, 0, pressure, 0, slotCount);
+        System.arraycopy(working.touchMajor, 0, touchMajor, 0, slotCount);
+        System.arraycopy(working.touchMinor, 0, touchMinor, 0, slotCount);
+        System.arraycopy(working.toolType, 0, toolType, 0, slotCount);
+        this.timeSec = timeSec;
+        this.timeMicroSec = timeMicroSec;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getTimeSec() {
+        return timeSec;
+    }
+
+    public long getTimeMicroSec() {
+        return timeMicroSec;
+    }
+
+    /**
+     * @return the number of slots of the device, the bound of every slot argument.
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * @return the number of active slots.
+     */
+    public int getContactCount() {
+        return activeCount;
+    }
+
+    /**
+     * @param i Index of the contact, from 0 to getContactCount()-1.
+     * @return the slot of the ith active contact, in ascending slot order.
+     */
+    public int getActiveSlot(int i) {
+        return activeSlots[i];
+    }
+
+    /**
+     * @return the number of contacts that ended in this frame.
+     */
+    public int getEndedCount() {
+        return endedCount;
+    }
+
+    /**
+     * @param i Index of the ended contact, from 0 to getEndedCount()-1.
+     * @return the slot of the ith ended contact, in ascending slot order.
+     */
+    public int getEndedSlot(int i) {
+        return endedSlots[i];
+    }
+
+    public boolean isActive(int slot) {
+        return trackingId[slot] != NO_CONTACT;
+    }
+
+    /**
+     * @return true if the contact of the slot began in this frame.
+     */
+    public boolean isNew(int slot) {
+        return began[slot];
+    }
+
+    /**
+     * @return true if a contact of the slot ended in this frame. A slot can end a contact and begin another one.
+     */
+    public boolean isEnded(int slot) {
+        return ended[slot];
+    }
+
+    /**
+     * @return the tracking ID of the contact, or -1 if the slot is not active.
+     */
+    public int getTrackingId(int slot) {
+        return trackingId[slot];
+    }
+
+    public int getX(int slot) {
+        return x[slot];
+    }
+
+    public int getY(int slot) {
+        return y[slot];
+    }
+
+    public int getPressure(int slot) {
+        return pressure[slot];
+    }
+
+    public int getTouchMajor(int slot) {
+        return touchMajor[slot];
+    }
+
+    public int getTouchMinor(int slot) {
+        return touchMinor[slot];
+    }
+
+    /**
+     * @return one of the MT_TOOL_* constants of InputEvent.
+     */
+    public int getToolType(int slot) {
+        return toolType[slot];
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+import static com.dgis.input.evdev.devices.Gestures.distanceSquared;
+
+/**
+ * Recognizes drags: a single finger moving further than the slop. A second finger ends the drag.
+ */
+public class DragRecognizer implements GestureRecognizer {
+
+    private final long slopSquared;
+
+    private int slot = -1;
+    private int startX, startY;
+    private int lastX, lastY;
+    private boolean dragging;
+    private boolean cancelled;
+
+    /**
+     * @param slop How far a finger has to move, in device units, to start dragging.
+     */
+    public DragRecognizer(int slop) {
+        this.slopSquared = (long) slop * slop;
+    }
+
+    @Override
+    public void frame(ContactFrame frame, long timeMicros, GestureListener listener) {
+        if (slot >= 0) {
+            if (frame.isEnded(slot)) {
+                end(listener);
+                slot = -1;
+            } else if (frame.getContactCount() > 1) {
+                end(listener);
+                cancelled = true;
+            } else if (!cancelled) {
+                move(frame.getX(slot), frame.getY(slot), listener);
+            }
+        }
+        if (slot < 0 && frame.getContactCount() == 1 && frame.isNew(frame.getActiveSlot(0))) {
+            slot = frame.getActiveSlot(0);
+            startX = lastX = frame.getX(slot);
+            startY = lastY = frame.getY(slot);
+            cancelled = false;
+        }
+    }
+
+    private void move(int x, int y, GestureListener listener) {
+        if (x == lastX && y == lastY) return;
+        lastX = x;
+        lastY = y;
+        if (dragging) {
+            listener.drag(GesturePhase.UPDATE, x, y, x - startX, y - startY);
+        } else if (distanceSquared(x - startX, y - startY) > slopSquared) {
+            dragging = true;
+            listener.drag(GesturePhase.BEGIN, x, y, x - startX, y - startY);
+        }
+    }
+
+    private void end(GestureListener listener) {
+        if (!dragging) return;
+        dragging = false;
+        listener.drag(GesturePhase.END, lastX, lastY, lastX - startX, lastY - startY);
+    }
+}
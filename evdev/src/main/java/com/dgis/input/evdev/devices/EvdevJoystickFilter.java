@@ -16,7 +16,9 @@
  */
 package com.dgis.input.evdev.devices;
 
+import com.dgis.input.evdev.DeviceCapabilities;
 import com.dgis.input.evdev.EventDevice;
+import com.dgis.input.evdev.EventSource;
 import com.dgis.input.evdev.InputEvent;
 import com.dgis.input.evdev.InputListener;
 import org.slf4j.Logger;
@@ -24,10 +26,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class simplifies using "joystick" type input device (read: anything generating absolute axis and button events)
@@ -43,24 +42,53 @@ public class EvdevJoystickFilter implements InputListener {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
     private final EventDevice device;
+
+    /**
+     * Triple buffer of joystick states. The reader thread updates the back buffer and publishes it at each
+     * SYN_REPORT by exchanging it with the middle one; poll() takes the middle one in exchange for the front one.
+     */
+    private final JoystickState[] buffers = new JoystickState[3];
+
+    /**
+     * Index of the middle buffer, or'ed with FRESH if it was published after the last poll().
+     */
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    /**
+     * Back buffer and its index, only touched by the reader thread.
+     */
     private JoystickState state;
+    private int back = 0;
 
-    private final ArrayList<JoystickListener> listeners = new ArrayList<>();
+    /**
+     * True if the back buffer changed since it was last published.
+     */
+    private boolean unpublished;
 
     /**
-     * Holds the event codes for each joystick button, in order. That is, if
-     * event code 288 is button one, it is the first entry here.
+     * Index of the front buffer, only touched by the polling thread.
      */
-    private final ArrayList<Integer> buttonEventCodes = new ArrayList<>();
+    private int front = 2;
+
+    private final ListenerRegistry<JoystickListener> listeners = new ListenerRegistry<>(JoystickListener.class);
 
     /**
-     * Holds the event codes for each joystick axis, in order. That is, if
-     * event code 0 is axis one, it is the first entry here.
+     * Maps the event code of each joystick button to its number, or -1. That is, if
+     * event code 288 is button one, entry 288 here is 0.
      */
-    private final ArrayList<Integer> axisEventCodes = new ArrayList<>();
+    private short[] buttonIndex;
 
-    private boolean[] buttonChanged, axisChanged;
+    /**
+     * Maps the event code of each joystick axis to its number, or -1. That is, if
+     * event code 0 is axis one, entry 0 here is 0.
+     */
+    private short[] axisIndex;
+
+    private ChangedIndices buttonChanged, axisChanged;
 
     /**
      * Constructs an EvdevJoystickFilter using the provided EventDevice as input.
@@ -77,23 +105,31 @@ public class EvdevJoystickFilter implements InputListener {
         this(new EventDevice(device));
     }
 
-    private void setupDevice() {
-        Map<Integer, List<Integer>> supportedEvents = device.getSupportedEvents();
-        List<Integer> supportedAxes = supportedEvents.get((int) InputEvent.EV_ABS);
-        List<Integer> supportedKeys = supportedEvents.get((int) InputEvent.EV_KEY);
+    /**
+     * Constructs an EvdevJoystickFilter reading the given source, e.g. a FIFO or recorded events in memory.
+     */
+    public EvdevJoystickFilter(EventSource source) {
+        this(new EventDevice(source));
+        device.start();
+    }
 
-        int numAxes = supportedAxes == null ? 0 : supportedAxes.size();
-        int numButtons = supportedKeys == null ? 0 : supportedKeys.size();
+    private void setupDevice() {
+        DeviceCapabilities capabilities = device.getCapabilities();
+        int numAxes = capabilities.getCodeCount(InputEvent.EV_ABS);
+        int numButtons = capabilities.getCodeCount(InputEvent.EV_KEY);
 
-        if (supportedKeys != null) buttonEventCodes.addAll(supportedKeys);
-        if (supportedAxes != null) axisEventCodes.addAll(supportedAxes);
+        buttonIndex = capabilities.getIndexTable(InputEvent.EV_KEY);
+        axisIndex = capabilities.getIndexTable(InputEvent.EV_ABS);
 
-        System.out.println("Detected " + buttonEventCodes.size() + " buttons and " + axisEventCodes.size() + " axes.");
+        logger.info("Detected {} buttons and {} axes on {}", numButtons, numAxes, device.getDevicePath());
 
-        buttonChanged = new boolean[numButtons];
-        axisChanged = new boolean[numAxes];
+        buttonChanged = new ChangedIndices(numButtons);
+        axisChanged = new ChangedIndices(numAxes);
 
-        state = new JoystickState(numButtons, numAxes);
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new JoystickState(numButtons, numAxes);
+        }
+        state = buffers[back];
         device.addListener(this);
     }
 
@@ -107,50 +143,82 @@ public class EvdevJoystickFilter implements InputListener {
                 handleAxis(e.code, e.value);
                 break;
             case EV_SYN:
-                dispatchEvents();
+                /* Changes before a drop are completed by the resynced state, reported before the next SYN_REPORT */
+                if (e.code != InputEvent.SYN_DROPPED) {
+                    dispatchEvents(e);
+                }
+                break;
             default:
                 logger.warn("Unknown event {}", e);
         }
     }
 
     /**
-     * Broadcast events for what changed since the last dispatchEvents().
+     * Broadcast events for what changed since the last dispatchEvents(), and publish the new state for poll() at
+     * the end of a frame.
      */
-    private void dispatchEvents() {
-        boolean anyAxisChanged = false;
-        boolean anyButtonChanged = false;
-        for (boolean x : buttonChanged) anyButtonChanged |= x;
-        for (boolean x : axisChanged) anyAxisChanged |= x;
+    private void dispatchEvents(InputEvent e) {
+        if (!buttonChanged.isEmpty() || !axisChanged.isEmpty()) {
+            state.setTime(e.timeSec, e.timeMicroSec);
+
+            listeners.dispatch(this, (l, f) -> {
+                if (!f.buttonChanged.isEmpty())
+                    l.buttonChanged(f.buttonChanged, f.state, f.device.getDevicePath());
+                if (!f.axisChanged.isEmpty())
+                    l.joystickMoved(f.axisChanged, f.state, f.device.getDevicePath());
+            });
 
-        for (JoystickListener l : listeners) {
-            if (anyButtonChanged)
-                l.buttonChanged(buttonChanged, state, device.getDevicePath());
-            if (anyAxisChanged)
-                l.joystickMoved(axisChanged, state, device.getDevicePath());
+            axisChanged.clear();
+            buttonChanged.clear();
+            unpublished = true;
         }
+        if (unpublished && e.code == InputEvent.SYN_REPORT) publish();
+    }
+
+    /**
+     * Hand the back buffer to pollers and continue on a copy of it.
+     */
+    private void publish() {
+        int published = back;
+        back = middle.getAndSet(published | FRESH) & INDEX_MASK;
+        state = buffers[back];
+        state.copyFrom(buffers[published]);
+        unpublished = false;
+    }
 
-        Arrays.fill(axisChanged, false);
-        Arrays.fill(buttonChanged, false);
+    /**
+     * Get the state as of the last completed frame, without locking or allocating. The returned snapshot is not
+     * modified until the next call to poll(), so it can be read at leisure, e.g. once per iteration of a game loop.
+     * <p/>
+     * poll() must be called from a single thread at a time. Its timestamp tells whether a new frame arrived.
+     *
+     * @return The latest published joystick state, all zero before the first frame.
+     */
+    public JoystickState poll() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return buffers[front];
     }
 
     private void handleAxis(short axisNumber, int value) {
-        int axisNumber2 = axisEventCodes.indexOf((int) axisNumber);
+        int axisNumber2 = axisNumber >= 0 && axisNumber < axisIndex.length ? axisIndex[axisNumber] : -1;
         if (axisNumber2 < 0) {
-            System.err.println("WARN: Couldn't find axis " + axisNumber + " in mapping! Perhaps device reported capabilities improperly!");
+            logger.warn("Couldn't find axis {} in mapping! Perhaps device reported capabilities improperly!", axisNumber);
             return;
         }
-        axisChanged[axisNumber2] = (value != state.getAxisState(axisNumber2)); //only flag as changed if _actually_ changed.
+        if (value != state.getAxisState(axisNumber2)) axisChanged.mark(axisNumber2); //only flag as changed if _actually_ changed.
         state.setAxisState(axisNumber2, value);
 
     }
 
     private void handleButton(short buttonNumber, boolean buttonState) {
-        int buttonNumber2 = buttonEventCodes.indexOf((int) buttonNumber);
+        int buttonNumber2 = buttonNumber >= 0 && buttonNumber < buttonIndex.length ? buttonIndex[buttonNumber] : -1;
         if (buttonNumber2 < 0) {
-            System.err.println("WARN: Couldn't find button " + buttonNumber + " in mapping! Perhaps device reported capabilities improperly!");
+            logger.warn("Couldn't find button {} in mapping! Perhaps device reported capabilities improperly!", buttonNumber);
             return;
         }
-        buttonChanged[buttonNumber2] = (buttonState != state.getButtonState(buttonNumber2)); //only flag as changed if _actually_ changed.
+        if (buttonState != state.getButtonState(buttonNumber2)) buttonChanged.mark(buttonNumber2); //only flag as changed if _actually_ changed.
         state.setButtonState(buttonNumber2, buttonState);
     }
 
@@ -176,6 +244,13 @@ public class EvdevJoystickFilter implements InputListener {
         listeners.remove(list);
     }
 
+    /**
+     * @return how many times a listener threw while being notified
+     */
+    public long getListenerFailureCount() {
+        return listeners.getFailureCount();
+    }
+
     public void close() {
         device.close();
     }
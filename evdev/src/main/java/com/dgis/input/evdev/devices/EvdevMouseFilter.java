@@ -24,7 +24,6 @@ import java.awt.Rectangle;
 import java.awt.Robot;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +31,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.dgis.input.evdev.EventDevice;
+import com.dgis.input.evdev.EventSource;
 import com.dgis.input.evdev.InputEvent;
 import com.dgis.input.evdev.InputListener;
 import com.dgis.input.evdev.devices.IMouseListener.MouseButton;
@@ -44,14 +44,33 @@ import com.dgis.input.evdev.devices.IMouseListener.WheelDirection;
  *
  */
 public class EvdevMouseFilter implements InputListener {
+    /** How far a wheel turns per detent, in the units of REL_WHEEL_HI_RES and REL_HWHEEL_HI_RES */
+    public static final int WHEEL_DETENT = 120;
+    /** Bounds of the time a frame of motion is assumed to span, in microseconds, to tell its speed */
+    private static final long MIN_FRAME_MICROS = 125;
+    private static final long NOMINAL_FRAME_MICROS = 8_000;
+    private static final long MAX_FRAME_MICROS = 100_000;
+
     private final static Logger logger = LoggerFactory.getLogger(EvdevMouseFilter.class);
     private EventDevice device;
 
-    private ArrayList<IMouseListener> listeners;
+    private final ListenerRegistry<IMouseListener> listeners = new ListenerRegistry<>(IMouseListener.class);
 
     private Point actualMousePosition;
 
     private boolean pressed;
+    /** Relative motion received since the last SYN_REPORT */
+    private int pendingX;
+    private int pendingY;
+    private boolean moved;
+    /** Timestamp of the last frame with motion, in microseconds, -1 before the first one */
+    private long lastMotionMicros = -1;
+    /** Scaled motion not adding up to a whole pixel yet, in 16.16 fixed point */
+    private long remainderX;
+    private long remainderY;
+    private volatile AccelerationProfile accelerationProfile = AccelerationProfile.flat(1);
+    private final Wheel verticalWheel = new Wheel();
+    private final Wheel horizontalWheel = new Wheel();
     private int maxWidth;
     private int maxHeight;
     private int minHeight;
@@ -65,7 +84,6 @@ public class EvdevMouseFilter implements InputListener {
     public EvdevMouseFilter(EventDevice dev) {
         this.device = dev;
         this.pressed = false;
-        this.listeners = new ArrayList<>();
         this.actualMousePosition = new Point(0, 0);
         setupDevice();
     }
@@ -74,6 +92,38 @@ public class EvdevMouseFilter implements InputListener {
         this(new EventDevice(new File(device)));
     }
 
+    /**
+     * Create a filter moving the pointer within the given screen bounds, starting at their top left corner.
+     * Unlike the other constructors, this one does not query AWT and works in a headless environment.
+     *
+     * @param dev          the device to read events from
+     * @param screenBounds the area the pointer is clamped to
+     */
+    public EvdevMouseFilter(EventDevice dev, Rectangle screenBounds) {
+        this.device = dev;
+        this.pressed = false;
+        this.screenBounds = new Rectangle(screenBounds);
+        this.minWidth = screenBounds.x;
+        this.minHeight = screenBounds.y;
+        this.maxWidth = screenBounds.x + screenBounds.width;
+        this.maxHeight = screenBounds.y + screenBounds.height;
+        this.actualMousePosition = new Point(minWidth, minHeight);
+        detectHighResolutionWheels();
+        this.device.addListener(this);
+    }
+
+    /**
+     * Create a filter reading the given source, e.g. a FIFO or recorded events in memory, and moving the pointer
+     * within the given screen bounds.
+     *
+     * @param source       the source to read events from
+     * @param screenBounds the area the pointer is clamped to
+     */
+    public EvdevMouseFilter(EventSource source, Rectangle screenBounds) {
+        this(new EventDevice(source), screenBounds);
+        device.start();
+    }
+
     /**
      * 
      */
@@ -104,9 +154,23 @@ public class EvdevMouseFilter implements InputListener {
                 + " Actual Mouse Position:" + actualMousePosition);
         System.out.println("Detected " + numButtons + " buttons.");
         //this.device.grab();
+        detectHighResolutionWheels();
         this.device.addListener(this);
     }
 
+    /**
+     * Devices with high resolution wheels report every turn twice, in REL_WHEEL_HI_RES and, once a detent is
+     * complete, in REL_WHEEL. Only the former are used then. Devices not reporting the capability properly are
+     * detected on their first high resolution event.
+     */
+    private void detectHighResolutionWheels() {
+        List<Integer> supportedAxes = device.getSupportedEvents().get((int) InputEvent.EV_REL);
+        if (supportedAxes != null) {
+            verticalWheel.highResolution = supportedAxes.contains((int) InputEvent.REL_WHEEL_HI_RES);
+            horizontalWheel.highResolution = supportedAxes.contains((int) InputEvent.REL_HWHEEL_HI_RES);
+        }
+    }
+
     /**
      * Retrieve the underlying {@link EventDevice}
      * 
@@ -121,7 +185,6 @@ public class EvdevMouseFilter implements InputListener {
      */
     @Override
     public void event(InputEvent e) {
-        boolean dispatchPosition = false;
         switch (e.type) {
             case EV_KEY:
                 if (e.value == 1) {
@@ -133,76 +196,158 @@ public class EvdevMouseFilter implements InputListener {
                 }
                 break;
             case EV_REL:
-                // System.out.println("Axis Parameter:"+device.getAxisParameters(e.code));
-                if (e.code == InputEvent.REL_X) {
-                    // X AXIS
-                    actualMousePosition.x += e.value;
-                    if (actualMousePosition.x > maxWidth) {
-                        actualMousePosition.x = maxWidth;
-//                        robot.mouseMove(actualMousePosition.x, actualMousePosition.y);
-                    } else if (actualMousePosition.x < minWidth) {
-                        actualMousePosition.x = minWidth;
-//                        robot.mouseMove(actualMousePosition.x, actualMousePosition.y);
-                    }
-                    dispatchPosition = true;
-                } else if (e.code == InputEvent.REL_Y) {
-                    actualMousePosition.y += e.value;
-                    if (actualMousePosition.y > maxHeight) {
-                        actualMousePosition.y = maxHeight;
-//                        robot.mouseMove(actualMousePosition.x, actualMousePosition.y);
-                    } else if (actualMousePosition.y < minHeight) {
-                        actualMousePosition.y = minHeight;
-//                        robot.mouseMove(actualMousePosition.x, actualMousePosition.y);
+                // Motion is only applied on SYN_REPORT, so that a diagonal move is one step and not two
+                switch (e.code) {
+                    case InputEvent.REL_X:
+                        pendingX += e.value;
+                        moved = true;
+                        break;
+                    case InputEvent.REL_Y:
+                        pendingY += e.value;
+                        moved = true;
+                        break;
+                    case InputEvent.REL_WHEEL:
+                        verticalWheel.legacy += e.value;
+                        break;
+                    case InputEvent.REL_WHEEL_HI_RES:
+                        verticalWheel.highResolution = true;
+                        verticalWheel.hiRes += e.value;
+                        break;
+                    case InputEvent.REL_HWHEEL:
+                        horizontalWheel.legacy += e.value;
+                        break;
+                    case InputEvent.REL_HWHEEL_HI_RES:
+                        horizontalWheel.highResolution = true;
+                        horizontalWheel.hiRes += e.value;
+                        break;
+                }
+                break;
+            case EV_SYN:
+                if (e.code == InputEvent.SYN_DROPPED) {
+                    // The kernel discarded part of this frame, so its motion is incomplete
+                    pendingX = 0;
+                    pendingY = 0;
+                    moved = false;
+                    verticalWheel.frameMotion();
+                    horizontalWheel.frameMotion();
+                } else if (e.code == InputEvent.SYN_REPORT) {
+                    if (moved) {
+                        dispatchMotion(e);
                     }
-                    dispatchPosition = true;
-                } else if (e.code == InputEvent.REL_WHEEL) {
-                    notifyMouseWheel(getDirection(e), Math.abs(e.value));
+                    dispatchScroll();
                 }
                 break;
-
         }
-        if (dispatchPosition && !pressed) {
-            notifyMousePosition(actualMousePosition);
-        } else if (dispatchPosition && pressed) {
+    }
+
+    /**
+     * Scale the motion accumulated during the current frame with the acceleration profile, clamp it once to the
+     * screen bounds and notify a single move or drag.
+     */
+    private void dispatchMotion(InputEvent e) {
+        long now = e.timeSec * 1_000_000L + e.timeMicroSec;
+        long elapsed = lastMotionMicros < 0 || now <= lastMotionMicros ? NOMINAL_FRAME_MICROS : now - lastMotionMicros;
+        elapsed = Math.max(MIN_FRAME_MICROS, Math.min(MAX_FRAME_MICROS, elapsed));
+        lastMotionMicros = now;
+
+        // Octagonal approximation of the distance, within 7%, to avoid a square root
+        long ax = Math.abs((long) pendingX);
+        long ay = Math.abs((long) pendingY);
+        long distance = Math.max(ax, ay) + (3 * Math.min(ax, ay) >> 3);
+        long speed = Math.min(Integer.MAX_VALUE, (distance << 16) * 1000 / elapsed);
+        int factor = accelerationProfile.factor((int) speed);
+
+        long scaledX = (long) pendingX * factor + remainderX;
+        long scaledY = (long) pendingY * factor + remainderY;
+        remainderX = scaledX & (AccelerationProfile.ONE - 1);
+        remainderY = scaledY & (AccelerationProfile.ONE - 1);
+        actualMousePosition.x = (int) Math.max(minWidth, Math.min(maxWidth, actualMousePosition.x + (scaledX >> 16)));
+        actualMousePosition.y = (int) Math.max(minHeight, Math.min(maxHeight, actualMousePosition.y + (scaledY >> 16)));
+        pendingX = 0;
+        pendingY = 0;
+        moved = false;
+        if (pressed) {
             notifyMouseDragged(actualMousePosition);
+        } else {
+            notifyMousePosition(actualMousePosition);
+        }
+    }
+
+    /**
+     * Notify the wheel motion of the current frame, then the detents it completes.
+     */
+    private void dispatchScroll() {
+        int vertical = verticalWheel.frameMotion();
+        int horizontal = horizontalWheel.frameMotion();
+        if (vertical == 0 && horizontal == 0) {
+            return;
+        }
+        notifyMouseScrolled(vertical, horizontal);
+        int verticalDetents = verticalWheel.detents(vertical);
+        if (verticalDetents != 0) {
+            notifyMouseWheel(getDirection(verticalDetents), Math.abs(verticalDetents));
+        }
+        int horizontalDetents = horizontalWheel.detents(horizontal);
+        if (horizontalDetents != 0) {
+            notifyMouseHorizontalWheel(horizontalDetents);
         }
+    }
+
+    /**
+     * Set how motion is scaled depending on its speed. By default, it is not scaled at all.
+     *
+     * @param accelerationProfile e.g. {@link AccelerationProfile#adaptive(double, double, double)}
+     */
+    public void setAccelerationProfile(AccelerationProfile accelerationProfile) {
+        if (accelerationProfile == null) {
+            throw new NullPointerException("accelerationProfile");
+        }
+        this.accelerationProfile = accelerationProfile;
+    }
 
+    public AccelerationProfile getAccelerationProfile() {
+        return accelerationProfile;
     }
 
     /**
      * @param Position
      */
-    private synchronized void notifyMouseDragged(Point pos) {
-        listeners.forEach((ml) -> {
-            ml.mouseDragged(pos.x, pos.y);
-        });
+    private void notifyMouseDragged(Point pos) {
+        listeners.dispatch(pos, (l, p) -> l.mouseDragged(p.x, p.y));
     }
 
     /**
      * @param actualMousePosition2
      */
-    private synchronized void notifyMousePosition(Point pos) {
-        listeners.forEach((ml) -> {
-            ml.mouseMoved(pos.x, pos.y);
-        });
+    private void notifyMousePosition(Point pos) {
+        listeners.dispatch(pos, (l, p) -> l.mouseMoved(p.x, p.y));
     }
 
     /**
      * @param direction
      * @param abs
      */
-    private synchronized void notifyMouseWheel(WheelDirection direction, int abs) {
-        listeners.forEach((ml) -> {
-            ml.mouseWheel(direction, abs, actualMousePosition.x, actualMousePosition.y);
-        });
+    private void notifyMouseWheel(WheelDirection direction, int abs) {
+        listeners.dispatch(direction, abs, actualMousePosition.x, actualMousePosition.y, 0,
+                (l, d, value, x, y, unused) -> l.mouseWheel(d, value, x, y));
+    }
+
+    private void notifyMouseHorizontalWheel(int detents) {
+        listeners.dispatch(null, detents, actualMousePosition.x, actualMousePosition.y, 0,
+                (l, none, value, x, y, unused) -> l.mouseHorizontalWheel(value, x, y));
+    }
+
+    private void notifyMouseScrolled(int vertical, int horizontal) {
+        listeners.dispatch(null, vertical, horizontal, actualMousePosition.x, actualMousePosition.y,
+                (l, none, v, h, x, y) -> l.mouseScrolled(v, h, x, y));
     }
 
     /**
-     * @param e
+     * @param detents
      * @return
      */
-    private WheelDirection getDirection(InputEvent e) {
-        if (e.value > 0)
+    private WheelDirection getDirection(int detents) {
+        if (detents > 0)
             return WheelDirection.UP;
         return WheelDirection.DOWN;
     }
@@ -210,24 +355,17 @@ public class EvdevMouseFilter implements InputListener {
     /**
      * @param mouseButton
      */
-    private synchronized void notifyMouseReleased(MouseButton mouseButton) {
-        listeners.forEach((ml) -> {
-            ml.mouseReleased(mouseButton, actualMousePosition.x, actualMousePosition.y);
-        });
+    private void notifyMouseReleased(MouseButton mouseButton) {
+        listeners.dispatch(mouseButton, actualMousePosition.x, actualMousePosition.y, 0, 0,
+                (l, button, x, y, c, d) -> l.mouseReleased(button, x, y));
     }
 
     /**
      * @param mouseButton
      */
-    private synchronized void notifyMousePressed(MouseButton mouseButton) {
-        listeners.forEach((ml) -> {
-            try {
-                ml.mousePressed(mouseButton, actualMousePosition.x, actualMousePosition.y);
-            } catch (Exception ex) {
-                ;
-            }
-        });
-
+    private void notifyMousePressed(MouseButton mouseButton) {
+        listeners.dispatch(mouseButton, actualMousePosition.x, actualMousePosition.y, 0, 0,
+                (l, button, x, y, c, d) -> l.mousePressed(button, x, y));
     }
 
     /**
@@ -251,11 +389,12 @@ public class EvdevMouseFilter implements InputListener {
     }
 
     /**
-     * Register the given {@link IMouseListener} as a listener of the underlying events
+     * Register the given {@link IMouseListener} as a listener of the underlying events. Registering it twice has
+     * no effect.
      * 
      * @param listener
      */
-    public synchronized void addMouseListener(IMouseListener listener) {
+    public void addMouseListener(IMouseListener listener) {
         listeners.add(listener);
     }
 
@@ -264,10 +403,49 @@ public class EvdevMouseFilter implements InputListener {
      * 
      * @param listener
      */
-    public synchronized void removeMouseListener(IMouseListener listener) {
+    public void removeMouseListener(IMouseListener listener) {
         listeners.remove(listener);
     }
 
+    /**
+     * @return how many times a listener threw while being notified
+     */
+    public long getListenerFailureCount() {
+        return listeners.getFailureCount();
+    }
+
+    /**
+     * The motion of one wheel within a frame, and the fraction of a detent it turned since its last whole detent.
+     */
+    private static final class Wheel {
+        boolean highResolution;
+        int legacy;
+        int hiRes;
+        int remainder;
+
+        /**
+         * @return the motion of the frame, in 1/120 of a detent, and start the next frame
+         */
+        int frameMotion() {
+            int motion = highResolution ? hiRes : legacy * WHEEL_DETENT;
+            legacy = 0;
+            hiRes = 0;
+            return motion;
+        }
+
+        /**
+         * @return the whole detents completed by the given motion, keeping the fraction left for the next frames
+         */
+        int detents(int motion) {
+            if (motion == 0) return 0;
+            // Turning back starts over, so that a fraction in one direction does not delay the other
+            remainder = (remainder ^ motion) < 0 ? motion : remainder + motion;
+            int detents = remainder / WHEEL_DETENT;
+            remainder -= detents * WHEEL_DETENT;
+            return detents;
+        }
+    }
+
     /**
      * Create a waiting thread and join to it. This is useful only if you are using this as a console application
      */
@@ -0,0 +1,184 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+import com.dgis.input.evdev.AbsInfo;
+import com.dgis.input.evdev.EventDevice;
+import com.dgis.input.evdev.EventSource;
+import com.dgis.input.evdev.InputEvent;
+import com.dgis.input.evdev.InputEventView;
+import com.dgis.input.evdev.RawInputListener;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Tracks the contacts of a multitouch device speaking protocol B, as described in input/multi-touch-protocol.txt
+ * of the Linux kernel Documentation.
+ * <p/>
+ * ABS_MT_SLOT selects the slot the following ABS_MT_* events apply to; ABS_MT_TRACKING_ID starts a contact in
+ * the slot, or ends it with -1. Position, pressure, touch major and minor, and tool type are kept per slot in
+ * preallocated arrays sized from the ABS_MT_SLOT maximum. At each SYN_REPORT that changed a slot, the listeners
+ * receive a {@link ContactFrame}; nothing is allocated per event or per contact.
+ * <p/>
+ * Slots are not resynced after SYN_DROPPED: a contact ended during a drop stays active until its slot is reused.
+ */
+public class EvdevMultitouchFilter implements RawInputListener {
+
+    private final EventDevice device;
+
+    private final int slotCount;
+
+    /**
+     * The slots as updated by the events of the current frame.
+     */
+    private final ContactFrame working;
+
+    /**
+     * The slots as of the last SYN_REPORT, handed to the listeners.
+     */
+    private final ContactFrame frame;
+
+    private final ListenerRegistry<MultitouchListener> listeners = new ListenerRegistry<>(MultitouchListener.class);
+
+    /**
+     * Slot the ABS_MT_* events apply to, -1 if the device selected a slot out of range.
+     */
+    private int slot;
+
+    private boolean changed;
+
+    /**
+     * Constructs an EvdevMultitouchFilter using the provided EventDevice as input.
+     *
+     * @throws IllegalArgumentException If the device does not report ABS_MT_SLOT, i.e. does not speak protocol B.
+     */
+    public EvdevMultitouchFilter(EventDevice dev) {
+        this.device = dev;
+        AbsInfo slots = dev.getDeviceInfo().getAbsInfo(InputEvent.ABS_MT_SLOT);
+        if (slots == null) {
+            throw new IllegalArgumentException(dev.getDevicePath() + " is not a multitouch protocol B device");
+        }
+        slotCount = Math.max(1, slots.getMax() + 1);
+        slot = slots.getValue() < slotCount ? slots.getValue() : -1;
+        working = new ContactFrame(dev.getDevicePath(), slotCount);
+        frame = new ContactFrame(dev.getDevicePath(), slotCount);
+        device.addRawListener(this);
+    }
+
+    /**
+     * Constructs an EvdevMultitouchFilter using the provided event device as input.
+     */
+    public EvdevMultitouchFilter(File device) throws IOException {
+        this(new EventDevice(device));
+    }
+
+    /**
+     * Constructs an EvdevMultitouchFilter reading the given source, e.g. a FIFO or recorded events in memory.
+     */
+    public EvdevMultitouchFilter(EventSource source) {
+        this(new EventDevice(source));
+        device.start();
+    }
+
+    /**
+     * @return the number of slots, i.e. the maximum number of contacts tracked at once.
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    @Override
+    public void event(InputEventView e) {
+        short type = e.getType();
+        if (type == InputEvent.EV_ABS) {
+            handleAxis(e.getCode(), e.getValue());
+        } else if (type == InputEvent.EV_SYN && e.getCode() == InputEvent.SYN_REPORT && changed) {
+            changed = false;
+            frame.publish(working, e.getTimeSec(), e.getTimeMicroSec());
+            listeners.dispatch(frame, MultitouchListener::contactsChanged);
+        }
+    }
+
+    private void handleAxis(short code, int value) {
+        if (code == InputEvent.ABS_MT_SLOT) {
+            slot = value >= 0 && value < slotCount ? value : -1;
+            return;
+        }
+        if (slot < 0) return;
+        switch (code) {
+            case InputEvent.ABS_MT_TRACKING_ID:
+                working.trackingId[slot] = value < 0 ? -1 : value;
+                break;
+            case InputEvent.ABS_MT_POSITION_X:
+                working.x[slot] = value;
+                break;
+            case InputEvent.ABS_MT_POSITION_Y:
+                working.y[slot] = value;
+                break;
+            case InputEvent.ABS_MT_PRESSURE:
+                working.pressure[slot] = value;
+                break;
+            case InputEvent.ABS_MT_TOUCH_MAJOR:
+                working.touchMajor[slot] = value;
+                break;
+            case InputEvent.ABS_MT_TOUCH_MINOR:
+                working.touchMinor[slot] = value;
+                break;
+            case InputEvent.ABS_MT_TOOL_TYPE:
+                working.toolType[slot] = value;
+                break;
+            default:
+                return;
+        }
+        changed = true;
+    }
+
+    /**
+     * Adds a listener to this device.
+     * If the listener is already on the listener list,
+     * this method has no effect.
+     *
+     * @param listener The listener to add. Must not be null.
+     */
+    public void addListener(MultitouchListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener from this device.
+     * If the listener is not on the listener list,
+     * this method has no effect.
+     *
+     * @param listener The listener to remove. Must not be null.
+     */
+    public void removeListener(MultitouchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return how many times a listener threw while being notified
+     */
+    public long getListenerFailureCount() {
+        return listeners.getFailureCount();
+    }
+
+    public void close() {
+        device.removeRawListener(this);
+        device.close();
+    }
+}
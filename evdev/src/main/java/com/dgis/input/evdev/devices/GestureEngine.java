@@ -0,0 +1,134 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+/**
+ * Recognizes gestures in the contact frames of an {@link EvdevMultitouchFilter}, on the thread delivering the
+ * frames, without a detour through a UI thread.
+ * <p/>
+ * Every frame is fed to every recognizer. The recognizers are independent state machines, so several gestures
+ * can be recognized from the same frames, e.g. a pinch and a rotation at once. Recognizers do constant work per
+ * frame and do not allocate.
+ * <pre>
+ * GestureEngine engine = GestureEngine.standard(touchSlop);
+ * engine.addListener(myListener);
+ * multitouchFilter.addListener(engine);
+ * </pre>
+ */
+public class GestureEngine implements MultitouchListener {
+
+    private final GestureRecognizer[] recognizers;
+
+    private final ListenerRegistry<GestureListener> listeners = new ListenerRegistry<>(GestureListener.class);
+
+    private final GestureListener dispatcher = new Dispatcher();
+
+    /**
+     * @param recognizers The recognizers fed with every frame.
+     */
+    public GestureEngine(GestureRecognizer... recognizers) {
+        this.recognizers = recognizers.clone();
+    }
+
+    /**
+     * An engine recognizing taps, double taps, long presses, drags, pinches, rotations and three finger swipes,
+     * with the default thresholds.
+     *
+     * @param slop How far a finger may move, in device units, and still tap or press. Swipes need ten times
+     *             that distance. About 1% of the range of ABS_MT_POSITION_X is a sensible value.
+     */
+    public static GestureEngine standard(int slop) {
+        return new GestureEngine(new TapRecognizer(slop), new LongPressRecognizer(slop), new DragRecognizer(slop),
+                new PinchRecognizer(), new RotateRecognizer(), new SwipeRecognizer(3, 10 * slop));
+    }
+
+    @Override
+    public synchronized void contactsChanged(ContactFrame frame) {
+        long timeMicros = frame.getTimeSec() * 1_000_000L + frame.getTimeMicroSec();
+        for (GestureRecognizer recognizer : recognizers) {
+            recognizer.frame(frame, timeMicros, dispatcher);
+        }
+    }
+
+    /**
+     * Let time pass without a frame, to recognize gestures such as long presses, which a still finger does not
+     * report. Call it periodically, e.g. from a timer.
+     *
+     * @param timeMicros Current time in microseconds, on the clock of the event timestamps: by default the wall
+     *                   clock, {@code System.currentTimeMillis() * 1000}.
+     */
+    public synchronized void tick(long timeMicros) {
+        for (GestureRecognizer recognizer : recognizers) {
+            recognizer.tick(timeMicros, dispatcher);
+        }
+    }
+
+    public void addListener(GestureListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GestureListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return how many times a listener threw while being notified
+     */
+    public long getListenerFailureCount() {
+        return listeners.getFailureCount();
+    }
+
+    /**
+     * Hands the gestures to every listener.
+     */
+    private final class Dispatcher implements GestureListener {
+        @Override
+        public void tap(int x, int y) {
+            listeners.dispatch(null, x, y, 0, 0, (l, none, tx, ty, c, d) -> l.tap(tx, ty));
+        }
+
+        @Override
+        public void doubleTap(int x, int y) {
+            listeners.dispatch(null, x, y, 0, 0, (l, none, tx, ty, c, d) -> l.doubleTap(tx, ty));
+        }
+
+        @Override
+        public void longPress(int x, int y) {
+            listeners.dispatch(null, x, y, 0, 0, (l, none, px, py, c, d) -> l.longPress(px, py));
+        }
+
+        @Override
+        public void drag(GesturePhase phase, int x, int y, int dx, int dy) {
+            listeners.dispatch(phase, x, y, dx, dy, GestureListener::drag);
+        }
+
+        @Override
+        public void pinch(GesturePhase phase, double scale) {
+            listeners.dispatch(phase, scale, GestureListener::pinch);
+        }
+
+        @Override
+        public void rotate(GesturePhase phase, double angle) {
+            listeners.dispatch(phase, angle, GestureListener::rotate);
+        }
+
+        @Override
+        public void swipe(int fingers, SwipeDirection direction) {
+            listeners.dispatch(direction, fingers, 0, 0, 0, (l, sd, n, b, c, d) -> l.swipe(n, sd));
+        }
+    }
+}
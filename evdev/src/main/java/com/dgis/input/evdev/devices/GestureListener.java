@@ -0,0 +1,77 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+/**
+ * Receives the gestures recognized by a {@link GestureEngine}. Coordinates and distances are in device units, as
+ * reported by ABS_MT_POSITION_X and ABS_MT_POSITION_Y. All methods do nothing by default.
+ */
+public interface GestureListener {
+
+    /**
+     * A finger touched and lifted without moving.
+     */
+    default void tap(int x, int y) {
+    }
+
+    /**
+     * A second tap followed a first one closely, at about the same place. Reported after the second tap.
+     */
+    default void doubleTap(int x, int y) {
+    }
+
+    /**
+     * A finger stayed down without moving. Reported once per touch.
+     */
+    default void longPress(int x, int y) {
+    }
+
+    /**
+     * A single finger moves.
+     *
+     * @param x  Current position.
+     * @param y  Current position.
+     * @param dx Displacement since the finger touched.
+     * @param dy Displacement since the finger touched.
+     */
+    default void drag(GesturePhase phase, int x, int y, int dx, int dy) {
+    }
+
+    /**
+     * Two fingers move apart or together.
+     *
+     * @param scale Current distance between the fingers divided by their initial distance.
+     */
+    default void pinch(GesturePhase phase, double scale) {
+    }
+
+    /**
+     * Two fingers turn around each other.
+     *
+     * @param angle Rotation since the fingers touched, in radians, clockwise on screen.
+     */
+    default void rotate(GesturePhase phase, double angle) {
+    }
+
+    /**
+     * Several fingers moved quickly in one direction, and lifted.
+     *
+     * @param fingers Number of fingers.
+     */
+    default void swipe(int fingers, SwipeDirection direction) {
+    }
+}
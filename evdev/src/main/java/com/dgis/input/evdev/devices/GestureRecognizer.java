@@ -0,0 +1,44 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+/**
+ * A state machine recognizing one kind of gesture in a stream of contact frames.
+ * <p/>
+ * The {@link GestureEngine} feeds every frame to every recognizer, so recognizers neither see nor depend on
+ * each other. Implementations should do constant work per frame and not allocate.
+ */
+public interface GestureRecognizer {
+
+    /**
+     * Advance with a new frame.
+     *
+     * @param frame      The contacts, only valid during this call.
+     * @param timeMicros Time of the frame in microseconds.
+     * @param listener   Receives the recognized gestures.
+     */
+    void frame(ContactFrame frame, long timeMicros, GestureListener listener);
+
+    /**
+     * Advance the clock without a new frame, for gestures that complete while nothing moves.
+     *
+     * @param timeMicros Current time in microseconds, on the clock of the event timestamps.
+     * @param listener   Receives the recognized gestures.
+     */
+    default void tick(long timeMicros, GestureListener listener) {
+    }
+}
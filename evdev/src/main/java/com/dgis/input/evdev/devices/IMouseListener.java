@@ -38,4 +38,23 @@ public interface IMouseListener {
     public void mousePressed(MouseButton btn,int x, int y);
     public void mouseReleased(MouseButton btn,int x,int y);
     public void mouseWheel(WheelDirection dir,int velocity,int x, int y);
+
+    /**
+     * The horizontal wheel, or a tilting vertical wheel, turned by whole detents.
+     *
+     * @param detents how far it turned, positive to the right
+     */
+    default void mouseHorizontalWheel(int detents, int x, int y) {
+    }
+
+    /**
+     * The wheels turned, in 1/120 of a detent, for smooth scrolling. High resolution wheels report fractions of a
+     * detent, other wheels multiples of 120. Notified once per frame, before the whole detents it completes, if
+     * any, are notified to {@link #mouseWheel} and {@link #mouseHorizontalWheel}.
+     *
+     * @param vertical   how far the vertical wheel turned, positive up
+     * @param horizontal how far the horizontal wheel turned, positive to the right
+     */
+    default void mouseScrolled(int vertical, int horizontal, int x, int y) {
+    }
 }
@@ -40,4 +40,26 @@ public interface JoystickListener {
      * @param state          The updated joystick state.
      */
     void buttonChanged(boolean[] buttonsChanged, JoystickState state, String source);
+
+    /**
+     * Called whenever a joystick's axis changes state. Override to iterate only the axes that changed; by default
+     * calls {@link #joystickMoved(boolean[], JoystickState, String)}.
+     *
+     * @param axesChanged The axes that changed state.
+     * @param state       The updated joystick state.
+     */
+    default void joystickMoved(ChangedIndices axesChanged, JoystickState state, String source) {
+        joystickMoved(axesChanged.flags(), state, source);
+    }
+
+    /**
+     * Called whenever a joystick's button changes state. Override to iterate only the buttons that changed; by
+     * default calls {@link #buttonChanged(boolean[], JoystickState, String)}.
+     *
+     * @param buttonsChanged The buttons that changed state.
+     * @param state          The updated joystick state.
+     */
+    default void buttonChanged(ChangedIndices buttonsChanged, JoystickState state, String source) {
+        buttonChanged(buttonsChanged.flags(), state, source);
+    }
 }
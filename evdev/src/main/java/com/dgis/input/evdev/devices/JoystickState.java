@@ -19,6 +19,8 @@ package com.dgis.input.evdev.devices;
 /**
  * Represents the state of a joystick (buttons and axes)
  * <p/>
+ * Instances returned by {@link EvdevJoystickFilter#poll()} are consistent snapshots of one event frame.
+ * <p/>
  * Copyright (C) 2009 Giacomo Ferrari
  *
  * @author Giacomo Ferrari
@@ -31,6 +33,8 @@ public class JoystickState {
     private final int axisStates[];
     private final int axisMinValue[];
     private final int axisMaxValue[];
+    private long timeSec;
+    private long timeMicroSec;
 
     JoystickState(int numButtons, int numAxes) {
         this.numButtons = numButtons;
@@ -101,6 +105,38 @@ public class JoystickState {
         return axisMaxValue[axis];
     }
 
+    /**
+     * Gets the time of the event frame that produced this state.
+     *
+     * @return Seconds part of the timestamp, 0 before the first frame.
+     */
+    public long getTimeSec() {
+        return timeSec;
+    }
+
+    /**
+     * Gets the time of the event frame that produced this state.
+     *
+     * @return Microseconds part of the timestamp, 0 before the first frame.
+     */
+    public long getTimeMicroSec() {
+        return timeMicroSec;
+    }
+
+    void setTime(long timeSec, long timeMicroSec) {
+        this.timeSec = timeSec;
+        this.timeMicroSec = timeMicroSec;
+    }
+
+    void copyFrom(JoystickState other) {
+        System.arraycopy(other.buttonStates, 0, buttonStates, 0, numButtons);
+        System.arraycopy(other.axisStates, 0, axisStates, 0, numAxes);
+        System.arraycopy(other.axisMinValue, 0, axisMinValue, 0, numAxes);
+        System.arraycopy(other.axisMaxValue, 0, axisMaxValue, 0, numAxes);
+        timeSec = other.timeSec;
+        timeMicroSec = other.timeMicroSec;
+    }
+
     void setButtonState(int button, boolean state) {
         buttonStates[button] = state;
     }
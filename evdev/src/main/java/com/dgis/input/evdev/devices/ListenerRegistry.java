@@ -0,0 +1,258 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The listeners of a filter, copied on write so that dispatch iterates over a plain array snapshot without taking
+ * a lock, while listeners are added and removed from other threads. Registration is lock free too.
+ * <p/>
+ * A listener throwing must not keep the others from being notified, so {@link #dispatch(Object, Notification)}
+ * reports failures instead of propagating them. Failures are counted per listener, and the first failure of each
+ * listener is logged.
+ * <pre>
+ * listeners.dispatch(position, (l, p) -> l.mouseMoved(p.x, p.y));
+ * </pre>
+ *
+ * @param <L> the listener type
+ */
+public final class ListenerRegistry<L> {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * Listeners and their failure counters at one point in time, replaced as a whole on registration.
+     */
+    private static final class State<L> {
+        final L[] listeners;
+        final AtomicLong[] failures;
+
+        State(L[] listeners, AtomicLong[] failures) {
+            this.listeners = listeners;
+            this.failures = failures;
+        }
+    }
+
+    /**
+     * Notifies one listener. Implementations should only use their arguments, so that the lambda does not capture
+     * anything and dispatch does not allocate.
+     *
+     * @param <L> the listener type
+     * @param <S> the state the notification is taken from
+     */
+    @FunctionalInterface
+    public interface Notification<L, S> {
+        void notify(L listener, S state);
+    }
+
+    /**
+     * A {@link Notification} also taking up to four int arguments, unused ones being 0.
+     *
+     * @param <L> the listener type
+     * @param <S> the state the notification is taken from
+     */
+    @FunctionalInterface
+    public interface IntNotification<L, S> {
+        void notify(L listener, S state, int a, int b, int c, int d);
+    }
+
+    /**
+     * A {@link Notification} also taking a double argument.
+     *
+     * @param <L> the listener type
+     * @param <S> the state the notification is taken from
+     */
+    @FunctionalInterface
+    public interface DoubleNotification<L, S> {
+        void notify(L listener, S state, double value);
+    }
+
+    private final AtomicReference<State<L>> state;
+
+    private final AtomicLong failureCount = new AtomicLong();
+
+    /**
+     * @param type the listener type, so that {@link #snapshot()} returns an array of it
+     */
+    @SuppressWarnings("unchecked")
+    public ListenerRegistry(Class<L> type) {
+        state = new AtomicReference<>(new State<>((L[]) Array.newInstance(type, 0), new AtomicLong[0]));
+    }
+
+    /**
+     * Register a listener. Registering a listener already registered has no effect.
+     *
+     * @param listener the listener to add. Must not be null.
+     * @return true if the listener was added
+     */
+    public boolean add(L listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener");
+        }
+        while (true) {
+            State<L> current = state.get();
+            if (indexOf(current, listener) >= 0) {
+                return false;
+            }
+            int n = current.listeners.length;
+            L[] listeners = Arrays.copyOf(current.listeners, n + 1);
+            AtomicLong[] failures = Arrays.copyOf(current.failures, n + 1);
+            listeners[n] = listener;
+            failures[n] = new AtomicLong();
+            if (state.compareAndSet(current, new State<>(listeners, failures))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Unregister a listener. Unregistering a listener not registered has no effect. A dispatch already in progress
+     * may still notify it.
+     *
+     * @param listener the listener to remove
+     * @return true if the listener was removed
+     */
+    public boolean remove(L listener) {
+        while (true) {
+            State<L> current = state.get();
+            int index = indexOf(current, listener);
+            if (index < 0) {
+                return false;
+            }
+            if (state.compareAndSet(current,
+                    new State<>(without(current.listeners, index), without(current.failures, index)))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Notify every listener registered, in registration order. What a listener throws is reported to
+     * {@link #failed(Object, RuntimeException)} and does not keep the next listeners from being notified.
+     *
+     * @param state        passed to the notification, e.g. the notifier or the event
+     * @param notification how to notify one listener
+     */
+    public <S> void dispatch(S state, Notification<? super L, ? super S> notification) {
+        for (L listener : snapshot()) {
+            try {
+                notification.notify(listener, state);
+            } catch (RuntimeException ex) {
+                failed(listener, ex);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #dispatch(Object, Notification)}, passing int arguments along without boxing them.
+     */
+    public <S> void dispatch(S state, int a, int b, int c, int d, IntNotification<? super L, ? super S> notification) {
+        for (L listener : snapshot()) {
+            try {
+                notification.notify(listener, state, a, b, c, d);
+            } catch (RuntimeException ex) {
+                failed(listener, ex);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #dispatch(Object, Notification)}, passing a double argument along without boxing it.
+     */
+    public <S> void dispatch(S state, double value, DoubleNotification<? super L, ? super S> notification) {
+        for (L listener : snapshot()) {
+            try {
+                notification.notify(listener, state, value);
+            } catch (RuntimeException ex) {
+                failed(listener, ex);
+            }
+        }
+    }
+
+    /**
+     * The listeners registered, to iterate over on dispatch. The array must not be modified.
+     *
+     * @return the listeners registered at the time of the call
+     */
+    public L[] snapshot() {
+        return state.get().listeners;
+    }
+
+    /**
+     * @return true if no listener is registered
+     */
+    public boolean isEmpty() {
+        return state.get().listeners.length == 0;
+    }
+
+    /**
+     * Report that a listener threw during dispatch.
+     *
+     * @param listener the listener that threw
+     * @param failure  what it threw
+     */
+    public void failed(L listener, RuntimeException failure) {
+        failureCount.incrementAndGet();
+        State<L> current = state.get();
+        int index = indexOf(current, listener);
+        long count = index < 0 ? 1 : current.failures[index].incrementAndGet();
+        if (count == 1) {
+            logger.error("Listener {} failed, further failures of it are only counted", listener, failure);
+        } else {
+            logger.debug("Listener {} failed", listener, failure);
+        }
+    }
+
+    /**
+     * @return how many times any listener threw during dispatch, including listeners since removed
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * @param listener a registered listener
+     * @return how many times the listener threw during dispatch, 0 if it is not registered
+     */
+    public long getFailureCount(L listener) {
+        State<L> current = state.get();
+        int index = indexOf(current, listener);
+        return index < 0 ? 0 : current.failures[index].get();
+    }
+
+    private static <L> int indexOf(State<L> state, L listener) {
+        for (int i = 0; i < state.listeners.length; i++) {
+            if (state.listeners[i].equals(listener)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static <T> T[] without(T[] array, int index) {
+        T[] updated = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, updated, index, array.length - index - 1);
+        return updated;
+    }
+}
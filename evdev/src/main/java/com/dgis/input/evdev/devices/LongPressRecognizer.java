@@ -0,0 +1,82 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+import static com.dgis.input.evdev.devices.Gestures.distanceSquared;
+
+/**
+ * Recognizes long presses: a single finger staying down without moving.
+ * <p/>
+ * A finger that does not move produces no frames, so the press is also detected by
+ * {@link GestureEngine#tick(long)}.
+ */
+public class LongPressRecognizer implements GestureRecognizer {
+
+    public static final long DEFAULT_PRESS_MICROS = 500_000;
+
+    private final long slopSquared;
+    private final long pressMicros;
+
+    private int slot = -1;
+    private int startX, startY;
+    private long startTime;
+    private boolean done;
+
+    /**
+     * @param slop How far a finger may move, in device units, and still press.
+     */
+    public LongPressRecognizer(int slop) {
+        this(slop, DEFAULT_PRESS_MICROS);
+    }
+
+    /**
+     * @param slop        How far a finger may move, in device units, and still press.
+     * @param pressMicros How long the finger has to stay down.
+     */
+    public LongPressRecognizer(int slop, long pressMicros) {
+        this.slopSquared = (long) slop * slop;
+        this.pressMicros = pressMicros;
+    }
+
+    @Override
+    public void frame(ContactFrame frame, long timeMicros, GestureListener listener) {
+        if (slot >= 0) {
+            if (frame.isEnded(slot)) {
+                slot = -1;
+            } else if (frame.getContactCount() > 1
+                    || distanceSquared(frame.getX(slot) - startX, frame.getY(slot) - startY) > slopSquared) {
+                done = true;
+            }
+        }
+        if (slot < 0 && frame.getContactCount() == 1 && frame.isNew(frame.getActiveSlot(0))) {
+            slot = frame.getActiveSlot(0);
+            startX = frame.getX(slot);
+            startY = frame.getY(slot);
+            startTime = timeMicros;
+            done = false;
+        }
+        tick(timeMicros, listener);
+    }
+
+    @Override
+    public void tick(long timeMicros, GestureListener listener) {
+        if (slot >= 0 && !done && timeMicros - startTime >= pressMicros) {
+            done = true;
+            listener.longPress(startX, startY);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+/**
+ * Recognizes pinches: two fingers moving apart or together.
+ */
+public class PinchRecognizer extends TwoFingerRecognizer {
+
+    public static final double DEFAULT_SCALE_THRESHOLD = 0.1;
+
+    private final double scaleThreshold;
+
+    private double startDistance;
+    private double scale;
+    private boolean pinching;
+
+    public PinchRecognizer() {
+        this(DEFAULT_SCALE_THRESHOLD);
+    }
+
+    /**
+     * @param scaleThreshold How much the distance between the fingers has to change, relative to the initial
+     *                       distance, to start pinching.
+     */
+    public PinchRecognizer(double scaleThreshold) {
+        this.scaleThreshold = scaleThreshold;
+    }
+
+    @Override
+    void start(int dx, int dy) {
+        startDistance = Math.hypot(dx, dy);
+        scale = 1;
+    }
+
+    @Override
+    void move(int dx, int dy, GestureListener listener) {
+        if (startDistance < 1) return;
+        double current = Math.hypot(dx, dy) / startDistance;
+        if (current == scale) return;
+        scale = current;
+        if (pinching) {
+            listener.pinch(GesturePhase.UPDATE, scale);
+        } else if (Math.abs(scale - 1) >= scaleThreshold) {
+            pinching = true;
+            listener.pinch(GesturePhase.BEGIN, scale);
+        }
+    }
+
+    @Override
+    void end(GestureListener listener) {
+        if (!pinching) return;
+        pinching = false;
+        listener.pinch(GesturePhase.END, scale);
+    }
+}
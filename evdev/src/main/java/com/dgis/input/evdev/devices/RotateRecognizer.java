@@ -0,0 +1,76 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+/**
+ * Recognizes rotations: two fingers turning around each other. Turns beyond half a circle are followed.
+ */
+public class RotateRecognizer extends TwoFingerRecognizer {
+
+    public static final double DEFAULT_ANGLE_THRESHOLD = Math.toRadians(10);
+
+    private final double angleThreshold;
+
+    private double lastAngle;
+    private double angle;
+    private boolean rotating;
+
+    public RotateRecognizer() {
+        this(DEFAULT_ANGLE_THRESHOLD);
+    }
+
+    /**
+     * @param angleThreshold How far the fingers have to turn, in radians, to start rotating.
+     */
+    public RotateRecognizer(double angleThreshold) {
+        this.angleThreshold = angleThreshold;
+    }
+
+    @Override
+    void start(int dx, int dy) {
+        lastAngle = Math.atan2(dy, dx);
+        angle = 0;
+    }
+
+    @Override
+    void move(int dx, int dy, GestureListener listener) {
+        if (dx == 0 && dy == 0) return;
+        double current = Math.atan2(dy, dx);
+        double step = current - lastAngle;
+        if (step > Math.PI) {
+            step -= 2 * Math.PI;
+        } else if (step <= -Math.PI) {
+            step += 2 * Math.PI;
+        }
+        lastAngle = current;
+        if (step == 0) return;
+        angle += step;
+        if (rotating) {
+            listener.rotate(GesturePhase.UPDATE, angle);
+        } else if (Math.abs(angle) >= angleThreshold) {
+            rotating = true;
+            listener.rotate(GesturePhase.BEGIN, angle);
+        }
+    }
+
+    @Override
+    void end(GestureListener listener) {
+        if (!rotating) return;
+        rotating = false;
+        listener.rotate(GesturePhase.END, angle);
+    }
+}
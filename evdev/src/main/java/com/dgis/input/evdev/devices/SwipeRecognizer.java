@@ -0,0 +1,111 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+import static com.dgis.input.evdev.devices.Gestures.distanceSquared;
+
+/**
+ * Recognizes swipes of a given number of fingers: the fingers touch, their centroid moves far enough quickly,
+ * and they lift. The swipe is reported when the first of them lifts; more fingers cancel it.
+ */
+public class SwipeRecognizer implements GestureRecognizer {
+
+    public static final long DEFAULT_SWIPE_MICROS = 500_000;
+
+    private final int fingers;
+    private final long minDistanceSquared;
+    private final long maxSwipeMicros;
+
+    private boolean tracking;
+    private long startX, startY;
+    private long lastX, lastY;
+    private long startTime;
+
+    /**
+     * @param fingers     Number of fingers of the swipe, at least 1.
+     * @param minDistance How far the centroid of the fingers has to move, in device units.
+     */
+    public SwipeRecognizer(int fingers, int minDistance) {
+        this(fingers, minDistance, DEFAULT_SWIPE_MICROS);
+    }
+
+    /**
+     * @param fingers        Number of fingers of the swipe, at least 1.
+     * @param minDistance    How far the centroid of the fingers has to move, in device units.
+     * @param maxSwipeMicros How long the fingers may stay down.
+     */
+    public SwipeRecognizer(int fingers, int minDistance, long maxSwipeMicros) {
+        if (fingers < 1) {
+            throw new IllegalArgumentException("A swipe needs at least one finger");
+        }
+        this.fingers = fingers;
+        this.minDistanceSquared = (long) minDistance * minDistance;
+        this.maxSwipeMicros = maxSwipeMicros;
+    }
+
+    @Override
+    public void frame(ContactFrame frame, long timeMicros, GestureListener listener) {
+        int count = frame.getContactCount();
+        if (tracking) {
+            if (count == fingers && frame.getEndedCount() == 0) {
+                lastX = centroid(frame, true);
+                lastY = centroid(frame, false);
+                return;
+            }
+            tracking = false;
+            if (count < fingers || frame.getEndedCount() > 0) {
+                lifted(timeMicros, listener);
+            }
+        }
+        if (count == fingers && hasNewContact(frame)) {
+            tracking = true;
+            startX = lastX = centroid(frame, true);
+            startY = lastY = centroid(frame, false);
+            startTime = timeMicros;
+        }
+    }
+
+    private void lifted(long timeMicros, GestureListener listener) {
+        long dx = lastX - startX;
+        long dy = lastY - startY;
+        if (timeMicros - startTime > maxSwipeMicros || distanceSquared(dx, dy) < minDistanceSquared) return;
+        SwipeDirection direction;
+        if (Math.abs(dx) >= Math.abs(dy)) {
+            direction = dx > 0 ? SwipeDirection.RIGHT : SwipeDirection.LEFT;
+        } else {
+            direction = dy > 0 ? SwipeDirection.DOWN : SwipeDirection.UP;
+        }
+        listener.swipe(fingers, direction);
+    }
+
+    private static boolean hasNewContact(ContactFrame frame) {
+        for (int i = 0; i < frame.getContactCount(); i++) {
+            if (frame.isNew(frame.getActiveSlot(i))) return true;
+        }
+        return false;
+    }
+
+    private static long centroid(ContactFrame frame, boolean x) {
+        long sum = 0;
+        int count = frame.getContactCount();
+        for (int i = 0; i < count; i++) {
+            int slot = frame.getActiveSlot(i);
+            sum += x ? frame.getX(slot) : frame.getY(slot);
+        }
+        return sum / count;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+import static com.dgis.input.evdev.devices.Gestures.distanceSquared;
+
+/**
+ * Recognizes taps and double taps: a single finger touching and lifting quickly without moving.
+ */
+public class TapRecognizer implements GestureRecognizer {
+
+    public static final long DEFAULT_TAP_MICROS = 250_000;
+    public static final long DEFAULT_DOUBLE_TAP_MICROS = 300_000;
+
+    private final long slopSquared;
+    private final long maxTapMicros;
+    private final long doubleTapMicros;
+
+    /**
+     * Slot of the finger being watched, -1 if none.
+     */
+    private int slot = -1;
+    private int startX, startY;
+    private long startTime;
+    private boolean cancelled;
+
+    private boolean tapped;
+    private int tapX, tapY;
+    private long tapTime;
+
+    /**
+     * @param slop How far a finger may move, in device units, and still tap.
+     */
+    public TapRecognizer(int slop) {
+        this(slop, DEFAULT_TAP_MICROS, DEFAULT_DOUBLE_TAP_MICROS);
+    }
+
+    /**
+     * @param slop            How far a finger may move, in device units, and still tap. Also how far apart the
+     *                        taps of a double tap may be.
+     * @param maxTapMicros    How long a finger may stay down and still tap.
+     * @param doubleTapMicros Maximum time between the ends of the two taps of a double tap.
+     */
+    public TapRecognizer(int slop, long maxTapMicros, long doubleTapMicros) {
+        this.slopSquared = (long) slop * slop;
+        this.maxTapMicros = maxTapMicros;
+        this.doubleTapMicros = doubleTapMicros;
+    }
+
+    @Override
+    public void frame(ContactFrame frame, long timeMicros, GestureListener listener) {
+        if (slot >= 0) {
+            if (frame.isEnded(slot)) {
+                lifted(frame, timeMicros, listener);
+            } else if (frame.getContactCount() > 1
+                    || distanceSquared(frame.getX(slot) - startX, frame.getY(slot) - startY) > slopSquared) {
+                cancelled = true;
+            }
+        }
+        if (slot < 0 && frame.getContactCount() == 1 && frame.isNew(frame.getActiveSlot(0))) {
+            slot = frame.getActiveSlot(0);
+            startX = frame.getX(slot);
+            startY = frame.getY(slot);
+            startTime = timeMicros;
+            cancelled = false;
+        }
+    }
+
+    private void lifted(ContactFrame frame, long timeMicros, GestureListener listener) {
+        int x = frame.getX(slot);
+        int y = frame.getY(slot);
+        slot = -1;
+        if (cancelled || timeMicros - startTime > maxTapMicros
+                || distanceSquared(x - startX, y - startY) > slopSquared) {
+            tapped = false;
+            return;
+        }
+        listener.tap(startX, startY);
+        if (tapped && timeMicros - tapTime <= doubleTapMicros
+                && distanceSquared(startX - tapX, startY - tapY) <= slopSquared) {
+            tapped = false;
+            listener.doubleTap(startX, startY);
+        } else {
+            tapped = true;
+            tapX = startX;
+            tapY = startY;
+            tapTime = timeMicros;
+        }
+    }
+}
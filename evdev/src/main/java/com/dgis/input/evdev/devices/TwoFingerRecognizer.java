@@ -0,0 +1,59 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev.devices;
+
+/**
+ * Follows the vector between two fingers, from the frame where exactly two fingers are down to the frame where
+ * one of them lifts or a third one touches.
+ */
+abstract class TwoFingerRecognizer implements GestureRecognizer {
+
+    private int first = -1, second = -1;
+
+    @Override
+    public final void frame(ContactFrame frame, long timeMicros, GestureListener listener) {
+        if (first >= 0) {
+            if (frame.isEnded(first) || frame.isEnded(second) || frame.getContactCount() != 2) {
+                first = second = -1;
+                end(listener);
+            } else {
+                move(frame.getX(second) - frame.getX(first), frame.getY(second) - frame.getY(first), listener);
+            }
+        }
+        if (first < 0 && frame.getContactCount() == 2
+                && (frame.isNew(frame.getActiveSlot(0)) || frame.isNew(frame.getActiveSlot(1)))) {
+            first = frame.getActiveSlot(0);
+            second = frame.getActiveSlot(1);
+            start(frame.getX(second) - frame.getX(first), frame.getY(second) - frame.getY(first));
+        }
+    }
+
+    /**
+     * Two fingers touched, dx and dy being the vector from the first one to the second one.
+     */
+    abstract void start(int dx, int dy);
+
+    /**
+     * The fingers moved.
+     */
+    abstract void move(int dx, int dy, GestureListener listener);
+
+    /**
+     * A finger lifted, or another one touched.
+     */
+    abstract void end(GestureListener listener);
+}
@@ -0,0 +1,103 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeviceCapabilitiesTest {
+
+    private final DeviceCapabilities capabilities = DeviceCapabilities.of(supportedEvents());
+
+    @Test
+    public void supportsReportedTypesAndCodes() {
+        assertThat(capabilities.supports(InputEvent.EV_ABS)).isTrue();
+        assertThat(capabilities.supports(InputEvent.EV_REL)).isFalse();
+        assertThat(capabilities.supports(InputEvent.EV_ABS, InputEvent.ABS_Y)).isTrue();
+        assertThat(capabilities.supports(InputEvent.EV_ABS, InputEvent.ABS_RX)).isFalse();
+        assertThat(capabilities.supports(InputEvent.EV_KEY, InputEvent.BTN_TRIGGER)).isTrue();
+    }
+
+    @Test
+    public void outOfRangeLookupsAreUnsupported() {
+        assertThat(capabilities.supports(InputEvent.EV_ABS, -1)).isFalse();
+        assertThat(capabilities.supports(InputEvent.EV_ABS, DeviceCapabilities.CODE_CNT)).isFalse();
+        assertThat(capabilities.supports(InputEvent.EV_CNT, 0)).isFalse();
+        assertThat(capabilities.indexOf(InputEvent.EV_KEY, 0x7fff)).isEqualTo(-1);
+    }
+
+    @Test
+    public void indexesCodesInAscendingOrder() {
+        short[] table = capabilities.getIndexTable(InputEvent.EV_KEY);
+        assertThat(table.length).isEqualTo(DeviceCapabilities.CODE_CNT);
+        assertThat((int) table[InputEvent.BTN_TRIGGER]).isEqualTo(0);
+        assertThat((int) table[InputEvent.BTN_THUMB2]).isEqualTo(1);
+        assertThat((int) table[InputEvent.BTN_THUMB]).isEqualTo(-1);
+        assertThat(capabilities.getCodes(InputEvent.EV_KEY)).isEqualTo(
+                new int[]{InputEvent.BTN_TRIGGER, InputEvent.BTN_THUMB2});
+        assertThat(capabilities.getCodeCount(InputEvent.EV_ABS)).isEqualTo(3);
+        assertThat(capabilities.indexOf(InputEvent.EV_ABS, InputEvent.ABS_Z)).isEqualTo(2);
+    }
+
+    @Test
+    public void unsupportedTypeHasEmptyIndexTable() {
+        short[] table = capabilities.getIndexTable(InputEvent.EV_REL);
+        for (short index : table) {
+            assertThat((int) index).isEqualTo(-1);
+        }
+        assertThat(capabilities.getCodes(InputEvent.EV_REL).length).isEqualTo(0);
+    }
+
+    @Test
+    public void mapViewMatchesBitmaps() {
+        assertThat(capabilities.asMap()).isEqualTo(supportedEvents());
+        assertThat(capabilities.asMap()).isSameAs(capabilities.asMap());
+    }
+
+    @Test
+    public void synEntryDoesNotAlterSupportedTypes() {
+        Map<Integer, List<Integer>> supportedEvents = supportedEvents();
+        supportedEvents.put((int) InputEvent.EV_SYN, Arrays.asList((int) InputEvent.SYN_REPORT, (int) InputEvent.EV_REL));
+        DeviceCapabilities withSyn = DeviceCapabilities.of(supportedEvents);
+        assertThat(withSyn.supports(InputEvent.EV_REL)).isFalse();
+        assertThat(withSyn.asMap()).isEqualTo(supportedEvents());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void mapViewCannotBeModified() {
+        capabilities.asMap().remove((int) InputEvent.EV_KEY);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void mapViewListsCannotBeModified() {
+        capabilities.asMap().get((int) InputEvent.EV_ABS).add((int) InputEvent.ABS_RX);
+    }
+
+    private static Map<Integer, List<Integer>> supportedEvents() {
+        Map<Integer, List<Integer>> supportedEvents = new HashMap<>();
+        supportedEvents.put((int) InputEvent.EV_KEY, Arrays.asList((int) InputEvent.BTN_TRIGGER, (int) InputEvent.BTN_THUMB2));
+        supportedEvents.put((int) InputEvent.EV_ABS,
+                Arrays.asList((int) InputEvent.ABS_X, (int) InputEvent.ABS_Y, (int) InputEvent.ABS_Z));
+        return supportedEvents;
+    }
+}
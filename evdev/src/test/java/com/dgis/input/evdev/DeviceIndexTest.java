@@ -0,0 +1,109 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DeviceIndexTest {
+
+    private static final File TOUCHSCREEN = new File("/dev/input/event10");
+    private static final File KEYBOARD = new File("/dev/input/event2");
+    private static final File JOYSTICK = new File("/dev/input/event3");
+
+    private final DeviceIndex index = new DeviceIndex(devices());
+
+    @Test
+    public void ordersNodesByName() {
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.getNodes()).containsExactly(KEYBOARD, JOYSTICK, TOUCHSCREEN);
+        assertThat(index.getDeviceInfo(JOYSTICK).getName()).isEqualTo("joystick");
+        assertThat(index.getDeviceInfo(new File("/dev/input/event4"))).isNull();
+    }
+
+    @Test
+    public void intersectsTypesAndCodes() {
+        assertThat(index.query().supporting(InputEvent.EV_ABS).list()).containsExactly(JOYSTICK, TOUCHSCREEN);
+        assertThat(index.query()
+                .supporting(InputEvent.EV_ABS)
+                .supporting(InputEvent.EV_KEY, InputEvent.BTN_TOUCH)
+                .list()).containsExactly(TOUCHSCREEN);
+        assertThat(index.query().supporting(InputEvent.EV_KEY, InputEvent.KEY_A).count()).isEqualTo(1);
+        assertThat(index.query().supporting(InputEvent.EV_REL).count()).isEqualTo(0);
+        assertThat(index.query().supporting(InputEvent.EV_KEY, -1).count()).isEqualTo(0);
+    }
+
+    @Test
+    public void queriesDoNotChangeEachOther() {
+        DeviceIndex.Query abs = index.query().supporting(InputEvent.EV_ABS);
+        DeviceIndex.Query named = abs.matching(DeviceManager.name("^touch"));
+        assertThat(named.list()).containsExactly(TOUCHSCREEN);
+        assertThat(abs.count()).isEqualTo(2);
+    }
+
+    @Test
+    public void probeLeavesOutNonEvdevNodes() throws IOException {
+        File directory = Files.createTempDirectory("evdev-probe").toFile();
+        List<File> files = Arrays.asList(new File(directory, "event0"), new File(directory, "event1"),
+                new File(directory, "mice"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (File file : files) {
+                assertThat(file.createNewFile()).isTrue();
+            }
+            assertThat(DeviceProbe.probe(files.get(0))).isNull();
+            assertThat(DeviceProbe.probeAll(directory).size()).isEqualTo(0);
+            assertThat(DeviceProbe.probeAll(directory, executor).size()).isEqualTo(0);
+            assertThatThrownBy(() -> DeviceProbe.probe(new File(directory, "event9"))).isInstanceOf(IOException.class);
+        } finally {
+            executor.shutdown();
+            for (File file : files) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    private static Map<File, DeviceInfo> devices() {
+        Map<Integer, List<Integer>> touchscreen = new HashMap<>();
+        touchscreen.put((int) InputEvent.EV_ABS, Arrays.asList((int) InputEvent.ABS_X, (int) InputEvent.ABS_Y));
+        touchscreen.put((int) InputEvent.EV_KEY, Collections.singletonList((int) InputEvent.BTN_TOUCH));
+        Map<Integer, List<Integer>> joystick = new HashMap<>();
+        joystick.put((int) InputEvent.EV_ABS, Arrays.asList((int) InputEvent.ABS_X, (int) InputEvent.ABS_Y));
+        joystick.put((int) InputEvent.EV_KEY, Collections.singletonList((int) InputEvent.BTN_TRIGGER));
+        Map<File, DeviceInfo> devices = new LinkedHashMap<>();
+        devices.put(TOUCHSCREEN, DeviceInfo.of("touchscreen", touchscreen));
+        devices.put(KEYBOARD, DeviceInfo.of("keyboard",
+                Collections.singletonMap((int) InputEvent.EV_KEY, Collections.singletonList((int) InputEvent.KEY_A))));
+        devices.put(JOYSTICK, DeviceInfo.of("joystick", joystick));
+        return devices;
+    }
+}
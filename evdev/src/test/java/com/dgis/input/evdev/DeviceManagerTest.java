@@ -0,0 +1,158 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeviceManagerTest {
+
+    private File directory;
+    private EventLoop eventLoop;
+    private DeviceManager manager;
+    private final List<RandomAccessFile> writers = new ArrayList<>();
+    private final BlockingQueue<EventDevice> added = new LinkedBlockingQueue<>();
+    private final BlockingQueue<EventDevice> removed = new LinkedBlockingQueue<>();
+    private final BlockingQueue<InputEvent> events = new LinkedBlockingQueue<>();
+
+    private final DeviceListener listener = new DeviceListener() {
+        @Override
+        public void deviceAdded(EventDevice device) {
+            device.addListener(events::add);
+            added.add(device);
+        }
+
+        @Override
+        public void deviceRemoved(EventDevice device) {
+            removed.add(device);
+        }
+    };
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("evdev-device-manager").toFile();
+        eventLoop = new EventLoop();
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        if (manager != null) {
+            manager.close();
+        }
+        eventLoop.close();
+        for (RandomAccessFile writer : writers) {
+            writer.close();
+        }
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void opensPresentAndAddedNodes() throws Exception {
+        RandomAccessFile first = fifo("event0");
+        manager = new DeviceManager(directory, eventLoop, DeviceManager.name("^Unknown"), listener);
+        EventDevice firstDevice = added.poll(5, TimeUnit.SECONDS);
+        assertThat(firstDevice.getDevicePath()).isEqualTo(new File(directory, "event0").getAbsolutePath());
+
+        RandomAccessFile second = fifo("event1");
+        EventDevice secondDevice = added.poll(5, TimeUnit.SECONDS);
+        assertThat(secondDevice.getDevicePath()).isEqualTo(new File(directory, "event1").getAbsolutePath());
+        assertThat(manager.getDevices()).containsOnly(firstDevice, secondDevice);
+
+        second.write(event(InputEvent.KEY_B));
+        first.write(event(InputEvent.KEY_A));
+        InputEvent event = events.poll(5, TimeUnit.SECONDS);
+        InputEvent other = events.poll(5, TimeUnit.SECONDS);
+        assertThat(event.code + other.code).isEqualTo(InputEvent.KEY_A + InputEvent.KEY_B);
+    }
+
+    @Test
+    public void closesRemovedNodes() throws Exception {
+        fifo("event0");
+        manager = new DeviceManager(directory, eventLoop, info -> true, listener);
+        EventDevice device = added.poll(5, TimeUnit.SECONDS);
+
+        assertThat(new File(directory, "event0").delete()).isTrue();
+        assertThat(removed.poll(5, TimeUnit.SECONDS)).isSameAs(device);
+        assertThat(manager.getDevices()).isEmpty();
+        assertThat(eventLoop.getDeviceCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void inspectsEachNodeOnce() throws Exception {
+        AtomicInteger inspected = new AtomicInteger();
+        fifo("event0");
+        manager = new DeviceManager(directory, eventLoop, info -> {
+            inspected.incrementAndGet();
+            return DeviceManager.vendor(0x046d).test(info);
+        }, listener);
+        assertThat(inspected.get()).isEqualTo(1);
+
+        fifo("event1");
+        assertThat(new File(directory, "mice").createNewFile()).isTrue();
+        for (int i = 0; i < 50 && inspected.get() < 2; i++) {
+            Thread.sleep(100);
+        }
+        manager.rescan();
+        assertThat(inspected.get()).isEqualTo(2);
+        assertThat(added).isEmpty();
+        assertThat(manager.getDevices()).isEmpty();
+    }
+
+    @Test
+    public void closeClosesDevices() throws Exception {
+        fifo("event0");
+        manager = new DeviceManager(directory, eventLoop, info -> true, listener);
+        EventDevice device = added.poll(5, TimeUnit.SECONDS);
+        manager.close();
+        manager = null;
+        assertThat(removed.poll(5, TimeUnit.SECONDS)).isSameAs(device);
+        assertThat(eventLoop.getDeviceCount()).isEqualTo(0);
+    }
+
+    /**
+     * Create a FIFO, and open it read-write so that opening it for reading does not wait.
+     */
+    private RandomAccessFile fifo(String name) throws IOException, InterruptedException {
+        File fifo = new File(directory, name);
+        Process mkfifo = new ProcessBuilder("mkfifo", fifo.getAbsolutePath()).start();
+        assertThat(mkfifo.waitFor()).isEqualTo(0);
+        RandomAccessFile writer = new RandomAccessFile(fifo, "rw");
+        writers.add(writer);
+        return writer;
+    }
+
+    private static byte[] event(short code) {
+        return TestEvents.struct(1L, 2L, InputEvent.EV_KEY, code, 1);
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import com.dgis.input.evdev.devices.ChangedIndices;
+import com.dgis.input.evdev.devices.EvdevJoystickFilter;
+import com.dgis.input.evdev.devices.JoystickListener;
+import com.dgis.input.evdev.devices.JoystickState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EvdevJoystickFilterTest {
+
+    private EventDevice device;
+    private EvdevJoystickFilter filter;
+    private final List<Integer> movedAxes = new ArrayList<>();
+    private final List<Integer> changedButtons = new ArrayList<>();
+    private boolean[] legacyButtons;
+
+    @Before
+    public void setUp() {
+        Map<Integer, List<Integer>> supportedEvents = new HashMap<>();
+        supportedEvents.put((int) InputEvent.EV_KEY,
+                Arrays.asList((int) InputEvent.BTN_TRIGGER, (int) InputEvent.BTN_THUMB, (int) InputEvent.BTN_THUMB2));
+        supportedEvents.put((int) InputEvent.EV_ABS, Arrays.asList((int) InputEvent.ABS_X, (int) InputEvent.ABS_Y));
+        device = new EventDevice("joystick", supportedEvents);
+
+        filter = new EvdevJoystickFilter(device);
+        filter.addListener(new JoystickListener() {
+            @Override
+            public void joystickMoved(ChangedIndices axesChanged, JoystickState state, String source) {
+                for (int i = 0; i < axesChanged.size(); i++) movedAxes.add(axesChanged.get(i));
+            }
+
+            @Override
+            public void joystickMoved(boolean[] axesChanged, JoystickState state, String source) {
+            }
+
+            @Override
+            public void buttonChanged(boolean[] buttonsChanged, JoystickState state, String source) {
+                legacyButtons = buttonsChanged.clone();
+                for (int i = 0; i < buttonsChanged.length; i++) if (buttonsChanged[i]) changedButtons.add(i);
+            }
+        });
+    }
+
+    @Test
+    public void reportsOnlyChangedAxes() {
+        send(InputEvent.EV_ABS, InputEvent.ABS_Y, 100);
+        send(InputEvent.EV_ABS, InputEvent.ABS_X, 0);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(movedAxes).containsExactly(1);
+    }
+
+    @Test
+    public void dropDefersChangesToNextReport() {
+        send(InputEvent.EV_ABS, InputEvent.ABS_X, 10);
+        send(InputEvent.EV_SYN, InputEvent.SYN_DROPPED, 0);
+        assertThat(movedAxes).isEmpty();
+
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        assertThat(movedAxes).containsExactly(0);
+    }
+
+    @Test
+    public void legacyListenersSeeBitmap() {
+        send(InputEvent.EV_KEY, InputEvent.BTN_THUMB2, 1);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(legacyButtons).isEqualTo(new boolean[]{false, false, true});
+    }
+
+    @Test
+    public void changesAreClearedAfterEachFrame() {
+        send(InputEvent.EV_KEY, InputEvent.BTN_TRIGGER, 1);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        send(InputEvent.EV_KEY, InputEvent.BTN_THUMB, 1);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        send(InputEvent.EV_KEY, InputEvent.BTN_THUMB, 1);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(changedButtons).containsExactly(0, 1);
+    }
+
+    @Test
+    public void pollReturnsLastCompletedFrame() {
+        assertThat(filter.poll().getTimeSec()).isEqualTo(0L);
+
+        send(InputEvent.EV_ABS, InputEvent.ABS_X, 10, 1);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0, 1);
+        send(InputEvent.EV_ABS, InputEvent.ABS_X, 20, 2);
+
+        JoystickState snapshot = filter.poll();
+        assertThat(snapshot.getAxisState(0)).isEqualTo(10);
+        assertThat(snapshot.getTimeSec()).isEqualTo(1L);
+    }
+
+    @Test
+    public void polledSnapshotIsStableUntilNextPoll() {
+        send(InputEvent.EV_KEY, InputEvent.BTN_TRIGGER, 1, 1);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0, 1);
+        JoystickState snapshot = filter.poll();
+
+        for (int frame = 2; frame < 6; frame++) {
+            send(InputEvent.EV_KEY, InputEvent.BTN_TRIGGER, frame % 2, frame);
+            send(InputEvent.EV_ABS, InputEvent.ABS_Y, frame, frame);
+            send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0, frame);
+        }
+        assertThat(snapshot.getButtonState(0)).isTrue();
+        assertThat(snapshot.getAxisState(1)).isEqualTo(0);
+
+        JoystickState latest = filter.poll();
+        assertThat(latest.getButtonState(0)).isTrue();
+        assertThat(latest.getAxisState(1)).isEqualTo(5);
+        assertThat(latest.getTimeSec()).isEqualTo(5L);
+        assertThat(filter.poll()).isSameAs(latest);
+    }
+
+    private void send(short type, short code, int value) {
+        send(type, code, value, 0);
+    }
+
+    private void send(short type, short code, int value, long timeSec) {
+        device.distributeEvent(new InputEvent(timeSec, 0, EventType.valueOf(type), code, value, "joystick"));
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import com.dgis.input.evdev.devices.AccelerationProfile;
+import com.dgis.input.evdev.devices.CoalescingMouseListener;
+import com.dgis.input.evdev.devices.EvdevMouseFilter;
+import com.dgis.input.evdev.devices.IMouseListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EvdevMouseFilterTest {
+
+    private EventDevice device;
+    private final List<String> notifications = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        device = new EventDevice("mouse", new HashMap<>());
+    }
+
+    @Test
+    public void diagonalMoveIsOneNotification() {
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 100, 100));
+        filter.addMouseListener(new RecordingListener(notifications, null));
+
+        send(InputEvent.EV_REL, InputEvent.REL_X, 10);
+        send(InputEvent.EV_REL, InputEvent.REL_Y, 5);
+        assertThat(notifications).isEmpty();
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(notifications).containsExactly("moved 10,5");
+    }
+
+    @Test
+    public void accumulatedMotionIsClampedOnce() {
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 100, 100));
+        filter.addMouseListener(new RecordingListener(notifications, null));
+
+        // Past the left edge and back within one frame ends where the sum of the motion lands
+        send(InputEvent.EV_REL, InputEvent.REL_X, -20);
+        send(InputEvent.EV_REL, InputEvent.REL_X, 30);
+        send(InputEvent.EV_REL, InputEvent.REL_Y, 500);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(notifications).containsExactly("moved 10,100");
+    }
+
+    @Test
+    public void motionWhilePressedIsDrag() {
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 100, 100));
+        filter.addMouseListener(new RecordingListener(notifications, null));
+
+        send(InputEvent.EV_KEY, InputEvent.BTN_LEFT, 1);
+        send(InputEvent.EV_REL, InputEvent.REL_X, 3);
+        send(InputEvent.EV_REL, InputEvent.REL_Y, 4);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        send(InputEvent.EV_KEY, InputEvent.BTN_LEFT, 0);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(notifications).containsExactly("pressed LEFT 0,0", "dragged 3,4", "released LEFT 3,4");
+    }
+
+    @Test
+    public void droppedFrameMotionIsDiscarded() {
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 100, 100));
+        filter.addMouseListener(new RecordingListener(notifications, null));
+
+        send(InputEvent.EV_REL, InputEvent.REL_X, 10);
+        send(InputEvent.EV_SYN, InputEvent.SYN_DROPPED, 0);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        send(InputEvent.EV_REL, InputEvent.REL_X, 1);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(notifications).containsExactly("moved 1,0");
+    }
+
+    @Test
+    public void flatProfileScalesAndKeepsFractions() {
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 100, 100));
+        filter.addMouseListener(new RecordingListener(notifications, null));
+        filter.setAccelerationProfile(AccelerationProfile.flat(0.5));
+
+        move(1);
+        move(1);
+        move(-1);
+        move(-1);
+
+        assertThat(notifications).containsExactly("moved 0,0", "moved 1,1", "moved 0,0", "moved 0,0");
+    }
+
+    @Test
+    public void adaptiveProfileScalesFastMotion() {
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 1000, 1000));
+        filter.addMouseListener(new RecordingListener(notifications, null));
+        filter.setAccelerationProfile(AccelerationProfile.adaptive(1.0, 0.5, 3.0));
+
+        // The first frame is assumed to span 8 ms, so it is slow. Then 4 units in 1 ms are scaled by 2.5, and
+        // 20 units in 1 ms by at most 3
+        moveX(4, 0);
+        moveX(4, 1_000);
+        moveX(20, 2_000);
+
+        assertThat(notifications).containsExactly("moved 4,0", "moved 14,0", "moved 74,0");
+    }
+
+    @Test
+    public void customProfileInterpolates() {
+        AccelerationProfile profile = AccelerationProfile.custom(1.0, 1.0, 2.0, 4.0);
+
+        assertThat(profile.factor(0)).isEqualTo(AccelerationProfile.ONE);
+        assertThat(profile.factor(AccelerationProfile.ONE * 3 / 2)).isEqualTo(3 * AccelerationProfile.ONE);
+        assertThat(profile.factor(10 * AccelerationProfile.ONE)).isEqualTo(4 * AccelerationProfile.ONE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void customProfileRejectsStepBelowResolution() {
+        AccelerationProfile.custom(1e-6, 1.0, 2.0);
+    }
+
+    @Test
+    public void highResolutionWheelAccumulatesDetents() {
+        Map<Integer, List<Integer>> supportedEvents = new HashMap<>();
+        supportedEvents.put((int) InputEvent.EV_REL, Arrays.asList((int) InputEvent.REL_X, (int) InputEvent.REL_Y,
+                (int) InputEvent.REL_WHEEL, (int) InputEvent.REL_WHEEL_HI_RES));
+        device = new EventDevice("mouse", supportedEvents);
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 100, 100));
+        filter.addMouseListener(new RecordingListener(notifications, null));
+
+        send(InputEvent.EV_REL, InputEvent.REL_WHEEL_HI_RES, 60);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        // The legacy event completing the detent duplicates the high resolution one
+        send(InputEvent.EV_REL, InputEvent.REL_WHEEL, 1);
+        send(InputEvent.EV_REL, InputEvent.REL_WHEEL_HI_RES, 60);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        send(InputEvent.EV_REL, InputEvent.REL_WHEEL_HI_RES, 60);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        send(InputEvent.EV_REL, InputEvent.REL_WHEEL_HI_RES, -90);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(notifications).containsExactly("scrolled 60,0", "scrolled 60,0", "wheel UP 1 0,0",
+                "scrolled 60,0", "scrolled -90,0");
+    }
+
+    @Test
+    public void legacyWheelsScrollWholeDetents() {
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 100, 100));
+        filter.addMouseListener(new RecordingListener(notifications, null));
+
+        send(InputEvent.EV_REL, InputEvent.REL_WHEEL, -2);
+        send(InputEvent.EV_REL, InputEvent.REL_HWHEEL, 1);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(notifications).containsExactly("scrolled -240,120", "wheel DOWN 2 0,0", "hwheel 1 0,0");
+    }
+
+    @Test
+    public void highResolutionHorizontalWheelDetectedFromEvents() {
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 100, 100));
+        filter.addMouseListener(new RecordingListener(notifications, null));
+
+        send(InputEvent.EV_REL, InputEvent.REL_HWHEEL, -1);
+        send(InputEvent.EV_REL, InputEvent.REL_HWHEEL_HI_RES, -120);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        send(InputEvent.EV_REL, InputEvent.REL_HWHEEL_HI_RES, -30);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(notifications).containsExactly("scrolled 0,-120", "hwheel -1 0,0", "scrolled 0,-30");
+    }
+
+    @Test
+    public void failingListenerDoesNotStopOthers() {
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 100, 100));
+        filter.addMouseListener(new RecordingListener(new ArrayList<>(), () -> {
+            throw new IllegalStateException("test");
+        }));
+        filter.addMouseListener(new RecordingListener(notifications, null));
+
+        move(1);
+        move(1);
+
+        assertThat(notifications).containsExactly("moved 1,1", "moved 2,2");
+        assertThat(filter.getListenerFailureCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void slowListenerReceivesLatestPosition() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EvdevMouseFilter filter = new EvdevMouseFilter(device, new Rectangle(0, 0, 100, 100));
+        CoalescingMouseListener coalescing = new CoalescingMouseListener(new RecordingListener(notifications, () -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        filter.addMouseListener(coalescing);
+
+        move(1);
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        move(1);
+        move(1);
+        send(InputEvent.EV_KEY, InputEvent.BTN_LEFT, 1);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        move(1);
+        move(1);
+        send(InputEvent.EV_REL, InputEvent.REL_WHEEL, 1);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        send(InputEvent.EV_REL, InputEvent.REL_HWHEEL, -1);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        assertThat(coalescing.getPendingCount()).isEqualTo(7);
+        release.countDown();
+        coalescing.close();
+
+        assertThat(notifications).containsExactly("moved 1,1", "moved 3,3", "pressed LEFT 3,3", "dragged 5,5",
+                "scrolled 120,0", "wheel UP 1 5,5", "scrolled 0,-120", "hwheel -1 5,5");
+    }
+
+    @Test
+    public void fullQueueDropsInsteadOfBlocking() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CoalescingMouseListener coalescing = new CoalescingMouseListener(new RecordingListener(notifications, () -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }), 2);
+
+        coalescing.mouseMoved(1, 1);
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 2; i <= 5; i++) {
+            coalescing.mousePressed(IMouseListener.MouseButton.LEFT, i, i);
+        }
+        assertThat(coalescing.getPendingCount()).isEqualTo(2);
+        assertThat(coalescing.getDroppedCount()).isEqualTo(2);
+        release.countDown();
+        coalescing.close();
+
+        assertThat(notifications).containsExactly("moved 1,1", "pressed LEFT 2,2", "pressed LEFT 3,3");
+    }
+
+    private void move(int delta) {
+        send(InputEvent.EV_REL, InputEvent.REL_X, delta);
+        send(InputEvent.EV_REL, InputEvent.REL_Y, delta);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+    }
+
+    private void moveX(int delta, long micros) {
+        send(InputEvent.EV_REL, InputEvent.REL_X, delta, micros);
+        send(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0, micros);
+    }
+
+    private void send(short type, short code, int value) {
+        send(type, code, value, 0);
+    }
+
+    private void send(short type, short code, int value, long micros) {
+        device.distributeEvent(new InputEvent(micros / 1_000_000, micros % 1_000_000, EventType.valueOf(type), code,
+                value, "mouse"));
+    }
+
+    private static class RecordingListener implements IMouseListener {
+
+        private final List<String> notifications;
+        private final Runnable onMove;
+
+        RecordingListener(List<String> notifications, Runnable onMove) {
+            this.notifications = notifications;
+            this.onMove = onMove;
+        }
+
+        @Override
+        public void mouseMoved(int x, int y) {
+            notifications.add("moved " + x + "," + y);
+            if (onMove != null) {
+                onMove.run();
+            }
+        }
+
+        @Override
+        public void mouseDragged(int x, int y) {
+            notifications.add("dragged " + x + "," + y);
+        }
+
+        @Override
+        public void mousePressed(MouseButton btn, int x, int y) {
+            notifications.add("pressed " + btn + " " + x + "," + y);
+        }
+
+        @Override
+        public void mouseReleased(MouseButton btn, int x, int y) {
+            notifications.add("released " + btn + " " + x + "," + y);
+        }
+
+        @Override
+        public void mouseWheel(WheelDirection dir, int velocity, int x, int y) {
+            notifications.add("wheel " + dir + " " + velocity + " " + x + "," + y);
+        }
+
+        @Override
+        public void mouseHorizontalWheel(int detents, int x, int y) {
+            notifications.add("hwheel " + detents + " " + x + "," + y);
+        }
+
+        @Override
+        public void mouseScrolled(int vertical, int horizontal, int x, int y) {
+            notifications.add("scrolled " + vertical + "," + horizontal);
+        }
+    }
+}
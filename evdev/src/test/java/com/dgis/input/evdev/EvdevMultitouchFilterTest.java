@@ -0,0 +1,133 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import com.dgis.input.evdev.devices.ContactFrame;
+import com.dgis.input.evdev.devices.EvdevMultitouchFilter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EvdevMultitouchFilterTest {
+
+    private final ByteBuffer events = TestEvents.allocate(64);
+    private final List<String> frames = new ArrayList<>();
+
+    @Test
+    public void sizesSlotsFromDevice() throws IOException {
+        EvdevMultitouchFilter filter = new EvdevMultitouchFilter(EventDevice.polled(source(10)));
+        assertThat(filter.getSlotCount()).isEqualTo(10);
+    }
+
+    @Test
+    public void rejectsDevicesWithoutSlots() {
+        EventDevice device = new EventDevice("touch", Collections.emptyMap());
+        assertThatThrownBy(() -> new EvdevMultitouchFilter(device)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void tracksContactsPerSlot() throws IOException {
+        /* First finger in slot 0 */
+        abs(InputEvent.ABS_MT_TRACKING_ID, 45);
+        abs(InputEvent.ABS_MT_POSITION_X, 100);
+        abs(InputEvent.ABS_MT_POSITION_Y, 200);
+        abs(InputEvent.ABS_MT_PRESSURE, 30);
+        report(1);
+        /* Second finger in slot 1, first one moves */
+        abs(InputEvent.ABS_MT_POSITION_X, 110);
+        abs(InputEvent.ABS_MT_SLOT, 1);
+        abs(InputEvent.ABS_MT_TRACKING_ID, 46);
+        abs(InputEvent.ABS_MT_POSITION_X, 300);
+        abs(InputEvent.ABS_MT_POSITION_Y, 400);
+        abs(InputEvent.ABS_MT_TOUCH_MAJOR, 7);
+        report(2);
+        /* Nothing changed: no frame */
+        report(3);
+        /* First finger lifts */
+        abs(InputEvent.ABS_MT_SLOT, 0);
+        abs(InputEvent.ABS_MT_TRACKING_ID, -1);
+        report(4);
+        /* Slot out of range is ignored */
+        abs(InputEvent.ABS_MT_SLOT, 12);
+        abs(InputEvent.ABS_MT_TRACKING_ID, 47);
+        report(5);
+
+        EventDevice device = EventDevice.polled(source(4));
+        EvdevMultitouchFilter filter = new EvdevMultitouchFilter(device);
+        filter.addListener(this::describe);
+        device.drain(1000);
+
+        assertThat(frames).containsExactly(
+                "1: 0(45 new 100,200 p30)",
+                "2: 0(45 110,200 p30) 1(46 new 300,400 p0 m7)",
+                "4: 1(46 300,400 p0 m7) ended 0(110,200)");
+    }
+
+    private void describe(ContactFrame frame) {
+        StringBuilder sb = new StringBuilder().append(frame.getTimeMicroSec()).append(':');
+        for (int i = 0; i < frame.getContactCount(); i++) {
+            int slot = frame.getActiveSlot(i);
+            sb.append(' ').append(slot).append('(').append(frame.getTrackingId(slot))
+                    .append(frame.isNew(slot) ? " new " : " ")
+                    .append(frame.getX(slot)).append(',').append(frame.getY(slot))
+                    .append(" p").append(frame.getPressure(slot))
+                    .append(frame.getTouchMajor(slot) > 0 ? " m" + frame.getTouchMajor(slot) : "").append(')');
+        }
+        for (int i = 0; i < frame.getEndedCount(); i++) {
+            int slot = frame.getEndedSlot(i);
+            assertThat(frame.isEnded(slot)).isTrue();
+            assertThat(frame.isActive(slot)).isFalse();
+            sb.append(" ended ").append(slot).append('(').append(frame.getX(slot)).append(',')
+                    .append(frame.getY(slot)).append(')');
+        }
+        frames.add(sb.toString());
+    }
+
+    private MemoryEventSource source(int slots) {
+        long[] bits = new long[InputEvent.EV_CNT * DeviceCapabilities.BITMAP_WORDS];
+        bits[0] = 1L << InputEvent.EV_ABS;
+        for (short axis : new short[]{InputEvent.ABS_MT_SLOT, InputEvent.ABS_MT_TOUCH_MAJOR,
+                InputEvent.ABS_MT_POSITION_X, InputEvent.ABS_MT_POSITION_Y, InputEvent.ABS_MT_TRACKING_ID,
+                InputEvent.ABS_MT_PRESSURE}) {
+            bits[InputEvent.EV_ABS * DeviceCapabilities.BITMAP_WORDS] |= 1L << axis;
+        }
+        int[] absInfo = new int[InputEvent.ABS_CNT * DeviceInfo.ABS_INFO_FIELDS];
+        absInfo[InputEvent.ABS_MT_SLOT * DeviceInfo.ABS_INFO_FIELDS + 2] = slots - 1;
+        DeviceInfo info = new DeviceInfo(new short[4], "touch", 0x10001, bits, absInfo);
+        events.flip();
+        return new MemoryEventSource("touch", events, info);
+    }
+
+    private void abs(short code, int value) {
+        put(InputEvent.EV_ABS, code, value, 0);
+    }
+
+    private void report(long timeMicroSec) {
+        put(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0, timeMicroSec);
+    }
+
+    private void put(short type, short code, int value, long timeMicroSec) {
+        TestEvents.put(events, 1L, timeMicroSec, type, code, value);
+    }
+}
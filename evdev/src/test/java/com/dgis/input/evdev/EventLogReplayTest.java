@@ -0,0 +1,137 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventLogReplayTest {
+
+    private File directory;
+    private DeviceInfo deviceInfo;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("evdev-replay").toFile();
+        Map<Integer, List<Integer>> supportedEvents = new HashMap<>();
+        supportedEvents.put((int) InputEvent.EV_REL, Arrays.asList((int) InputEvent.REL_X, (int) InputEvent.REL_Y));
+        deviceInfo = DeviceInfo.of("Recorded mouse", supportedEvents);
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void replaysAllSegmentsInOrder() throws IOException {
+        int segmentSize = EventLogFormat.headerSize(deviceInfo) + 8 * EventLogFormat.ABSOLUTE_RECORD_SIZE;
+        record(segmentSize, true, 30, 1000);
+
+        List<InputEvent> events = new ArrayList<>();
+        EventLogReplay replay = new EventLogReplay(new File(directory, "event0-00000.evlog"),
+                EventDevice.AS_FAST_AS_POSSIBLE);
+        while (replay.read(e -> events.add(e.copy()), 7) >= 0) {
+            assertThat(events.size()).isLessThanOrEqualTo(30);
+        }
+        replay.close();
+
+        assertThat(new File(directory, "event0-00002.evlog").exists()).isTrue();
+        assertThat(events).hasSize(30);
+        for (int i = 0; i < 30; i++) {
+            InputEvent event = events.get(i);
+            assertThat(event.timeSec).isEqualTo(1000L);
+            assertThat(event.timeMicroSec).isEqualTo(i * 1000L);
+            assertThat(event.value).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void replayedDeviceReportsRecordedDescription() throws Exception {
+        record(1 << 20, false, 5, 1000);
+
+        EventDevice device = EventDevice.replay(new File(directory, "event0-00000.evlog"), EventDevice.AS_FAST_AS_POSSIBLE);
+        assertThat(device.getDeviceName()).isEqualTo("Recorded mouse");
+        assertThat(device.getCapabilities().supports(InputEvent.EV_REL, InputEvent.REL_Y)).isTrue();
+        assertThat(device.getCapabilities().supports(InputEvent.EV_KEY)).isFalse();
+
+        BlockingQueue<InputEvent> events = new LinkedBlockingQueue<>();
+        device.addListener(events::add);
+        device.startReplay();
+        for (int i = 0; i < 5; i++) {
+            assertThat(events.poll(5, TimeUnit.SECONDS).value).isEqualTo(i);
+        }
+        device.close();
+    }
+
+    @Test
+    public void scaledTimingKeepsTheRecordedPace() throws Exception {
+        /* 20 events, 10 ms apart: 190 ms of recording, 19 ms at ten times the speed */
+        record(1 << 20, true, 20, 10000);
+        File log = new File(directory, "event0-00000.evlog");
+
+        BlockingQueue<InputEvent> events = new LinkedBlockingQueue<>();
+        long start = System.nanoTime();
+        EventDevice device = EventDevice.replay(log, 10);
+        device.addListener(events::add);
+        device.startReplay();
+        for (int i = 0; i < 20; i++) {
+            assertThat(events.poll(5, TimeUnit.SECONDS)).isNotNull();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        device.close();
+
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(19L);
+        assertThat(elapsedMillis).isLessThan(190L);
+    }
+
+    /**
+     * Record REL_X events, intervalMicros apart, with the event number as value.
+     */
+    private void record(int segmentSize, boolean delta, int count, long intervalMicros) throws IOException {
+        EventRecorder recorder = new EventRecorder(deviceInfo, "event0", directory, segmentSize, delta, 64);
+        ByteBuffer event = TestEvents.allocate(1);
+        InputEventView view = new InputEventView("test", "amd64");
+        for (int i = 0; i < count; i++) {
+            long micros = 1000000000L + i * intervalMicros;
+            event.clear();
+            TestEvents.put(event, micros / 1000000L, micros % 1000000L, InputEvent.EV_REL, InputEvent.REL_X, i);
+            view.wrap(event, 0);
+            recorder.event(view);
+        }
+        recorder.close();
+    }
+}
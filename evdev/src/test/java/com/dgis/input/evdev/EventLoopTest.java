@@ -0,0 +1,108 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventLoopTest {
+
+    private File directory;
+    private EventLoop eventLoop;
+
+    @Before
+    public void createEventLoop() throws IOException {
+        directory = Files.createTempDirectory("evdev-event-loop").toFile();
+        eventLoop = new EventLoop();
+    }
+
+    @After
+    public void closeEventLoop() {
+        eventLoop.close();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void readsSeveralFifosFromASingleThread() throws Exception {
+        File first = fifo("event0");
+        File second = fifo("event1");
+        /* Opening read-write does not wait for a reader, and keeps the FIFOs open for the devices */
+        try (RandomAccessFile firstWriter = new RandomAccessFile(first, "rw");
+             RandomAccessFile secondWriter = new RandomAccessFile(second, "rw")) {
+            EventDevice firstDevice = new EventDevice(first, eventLoop);
+            EventDevice secondDevice = new EventDevice(second, eventLoop);
+            BlockingQueue<InputEvent> firstEvents = new LinkedBlockingQueue<>();
+            BlockingQueue<InputEvent> secondEvents = new LinkedBlockingQueue<>();
+            firstDevice.addListener(firstEvents::add);
+            secondDevice.addListener(secondEvents::add);
+            assertThat(eventLoop.getDeviceCount()).isEqualTo(2);
+
+            firstWriter.write(event(InputEvent.KEY_A, 1));
+            secondWriter.write(event(InputEvent.KEY_B, 1));
+            firstWriter.write(event(InputEvent.KEY_A, 0));
+
+            assertThat(firstEvents.poll(5, TimeUnit.SECONDS).code).isEqualTo(InputEvent.KEY_A);
+            assertThat(firstEvents.poll(5, TimeUnit.SECONDS).value).isEqualTo(0);
+            InputEvent event = secondEvents.poll(5, TimeUnit.SECONDS);
+            assertThat(event.code).isEqualTo(InputEvent.KEY_B);
+            assertThat(event.source).isEqualTo(second.getAbsolutePath());
+
+            firstDevice.close();
+            secondDevice.close();
+            assertThat(eventLoop.getDeviceCount()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void endOfStreamUnregistersDevice() throws Exception {
+        File fifo = fifo("event0");
+        RandomAccessFile writer = new RandomAccessFile(fifo, "rw");
+        EventDevice device = new EventDevice(fifo, eventLoop);
+        /* Closing the only writer ends the stream */
+        writer.close();
+        for (int i = 0; i < 50 && eventLoop.getDeviceCount() > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(eventLoop.getDeviceCount()).isEqualTo(0);
+        device.close();
+    }
+
+    private File fifo(String name) throws IOException, InterruptedException {
+        File fifo = new File(directory, name);
+        Process mkfifo = new ProcessBuilder("mkfifo", fifo.getAbsolutePath()).start();
+        assertThat(mkfifo.waitFor()).isEqualTo(0);
+        return fifo;
+    }
+
+    private static byte[] event(short code, int value) {
+        return TestEvents.struct(1L, 2L, InputEvent.EV_KEY, code, value);
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventRecorderTest {
+
+    private File directory;
+    private DeviceInfo deviceInfo;
+    private final InputEventView view = new InputEventView("test", "amd64");
+    private final ByteBuffer event = TestEvents.allocate(1);
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("evdev-recorder").toFile();
+        Map<Integer, List<Integer>> supportedEvents = new HashMap<>();
+        supportedEvents.put((int) InputEvent.EV_KEY, Arrays.asList((int) InputEvent.KEY_A, (int) InputEvent.KEY_B));
+        deviceInfo = DeviceInfo.of("Recorded keyboard", supportedEvents);
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void writesHeaderAndRawRecords() throws IOException {
+        EventRecorder recorder = new EventRecorder(deviceInfo, "event0", directory, 1 << 20, false, 64);
+        record(recorder, 5, 250, InputEvent.KEY_A, 1);
+        record(recorder, 5, 260, InputEvent.SYN_REPORT, 0);
+        recorder.close();
+        assertThat(recorder.getRecordedCount()).isEqualTo(2L);
+
+        ByteBuffer segment = read("event0-00000.evlog");
+        EventLogFormat.checkHeader(segment);
+        assertThat(segment.getShort(EventLogFormat.FLAGS_OFFSET)).isEqualTo((short) 0);
+        segment.position(EventLogFormat.DEVICE_INFO_OFFSET);
+        assertThat(DeviceInfo.readFrom(segment)).isEqualTo(deviceInfo);
+        assertThat(segment.getInt(EventLogFormat.END_OFFSET)).isEqualTo(segment.limit());
+        assertThat(segment.remaining()).isEqualTo(2 * EventLogFormat.RECORD_SIZE);
+
+        assertThat(segment.getLong()).isEqualTo(5L);
+        assertThat(segment.getLong()).isEqualTo(250L);
+        assertThat(segment.getShort()).isEqualTo(InputEvent.EV_KEY);
+        assertThat(segment.getShort()).isEqualTo(InputEvent.KEY_A);
+        assertThat(segment.getInt()).isEqualTo(1);
+    }
+
+    @Test
+    public void deltaRecordsAreSmaller() throws IOException {
+        EventRecorder recorder = new EventRecorder(deviceInfo, "event0", directory, 1 << 20, true, 64);
+        record(recorder, 5, 999990, InputEvent.KEY_A, 1);
+        record(recorder, 6, 10, InputEvent.KEY_A, 0);
+        record(recorder, 4, 0, InputEvent.KEY_B, 1);
+        recorder.close();
+
+        ByteBuffer segment = read("event0-00000.evlog");
+        assertThat(segment.getShort(EventLogFormat.FLAGS_OFFSET)).isEqualTo(EventLogFormat.FLAG_DELTA);
+        segment.position(EventLogFormat.headerSize(deviceInfo));
+        assertThat(segment.remaining()).isEqualTo(2 * EventLogFormat.ABSOLUTE_RECORD_SIZE
+                + EventLogFormat.DELTA_RECORD_SIZE);
+
+        assertThat(segment.getInt()).isEqualTo(EventLogFormat.ABSOLUTE_TIME);
+        assertThat(segment.getLong()).isEqualTo(5999990L);
+        segment.position(segment.position() + 8);
+        /* 20 microseconds later */
+        assertThat(segment.getInt()).isEqualTo(20);
+        segment.position(segment.position() + 8);
+        /* Going back in time needs an absolute record */
+        assertThat(segment.getInt()).isEqualTo(EventLogFormat.ABSOLUTE_TIME);
+        assertThat(segment.getLong()).isEqualTo(4000000L);
+    }
+
+    @Test
+    public void rotatesSegmentsBySize() throws IOException {
+        int segmentSize = EventLogFormat.headerSize(deviceInfo) + 10 * EventLogFormat.RECORD_SIZE;
+        EventRecorder recorder = new EventRecorder(deviceInfo, "event0", directory, segmentSize, false, 64);
+        for (int i = 0; i < 25; i++) {
+            record(recorder, i, 0, InputEvent.KEY_A, i % 2);
+        }
+        recorder.close();
+
+        assertThat(read("event0-00000.evlog").getInt(EventLogFormat.SEGMENT_OFFSET)).isEqualTo(0);
+        assertThat(read("event0-00001.evlog").getInt(EventLogFormat.SEGMENT_OFFSET)).isEqualTo(1);
+        ByteBuffer last = read("event0-00002.evlog");
+        last.position(EventLogFormat.headerSize(deviceInfo));
+        assertThat(last.remaining()).isEqualTo(5 * EventLogFormat.RECORD_SIZE);
+        assertThat(last.getLong()).isEqualTo(20L);
+    }
+
+    @Test
+    public void continuesAfterExistingSegments() throws IOException {
+        new EventRecorder(deviceInfo, "event0", directory, 1 << 20, true, 64).close();
+        new EventRecorder(deviceInfo, "event0", directory, 1 << 20, true, 64).close();
+
+        assertThat(new File(directory, "event0-00001.evlog").exists()).isTrue();
+    }
+
+    @Test
+    public void marksGapBeforeFirstEventAfterIt() throws Exception {
+        EventRecorder recorder = new EventRecorder(deviceInfo, "event0", directory, 1 << 20, false, 4, false);
+        for (int i = 0; i < 6; i++) {
+            record(recorder, i, 0, InputEvent.KEY_A, i % 2);
+        }
+        assertThat(recorder.getDroppedCount()).isEqualTo(2L);
+
+        recorder.startWriter();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (recorder.getRecordedCount() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        record(recorder, 6, 0, InputEvent.KEY_B, 1);
+        recorder.close();
+
+        ByteBuffer segment = read("event0-00000.evlog");
+        segment.position(EventLogFormat.headerSize(deviceInfo));
+        assertThat(segment.remaining()).isEqualTo(6 * EventLogFormat.RECORD_SIZE);
+        for (int i = 0; i < 4; i++) {
+            assertThat(segment.getLong(segment.position())).isEqualTo((long) i);
+            assertThat(segment.getShort(segment.position() + 18)).isEqualTo(InputEvent.KEY_A);
+            segment.position(segment.position() + EventLogFormat.RECORD_SIZE);
+        }
+        /* The events queued before the overflow come first, the marker precedes the first event after it */
+        assertThat(segment.getLong()).isEqualTo(6L);
+        segment.getLong();
+        assertThat(segment.getShort()).isEqualTo(InputEvent.EV_SYN);
+        assertThat(segment.getShort()).isEqualTo(InputEvent.SYN_DROPPED);
+        segment.getInt();
+        assertThat(segment.getLong()).isEqualTo(6L);
+        segment.getLong();
+        segment.getShort();
+        assertThat(segment.getShort()).isEqualTo(InputEvent.KEY_B);
+    }
+
+    private void record(EventRecorder recorder, long timeSec, long timeMicroSec, short code, int value) {
+        short type = code == InputEvent.SYN_REPORT ? InputEvent.EV_SYN : InputEvent.EV_KEY;
+        event.clear();
+        TestEvents.put(event, timeSec, timeMicroSec, type, code, value);
+        view.wrap(event, 0);
+        recorder.event(view);
+    }
+
+    private ByteBuffer read(String name) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(new File(directory, name).toPath())).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventResyncTest {
+
+    private final List<InputEvent> events = new ArrayList<>();
+    private final FakeState state = new FakeState();
+    private final EventResync resync = new EventResync(state, info(), "device");
+
+    @Test
+    public void passesEventsOn() {
+        feed(event(InputEvent.EV_KEY, InputEvent.BTN_TRIGGER, 1), report());
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).code).isEqualTo(InputEvent.BTN_TRIGGER);
+        assertThat(resync.getDropCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void discardsUpToReportAndEmitsChanges() {
+        feed(event(InputEvent.EV_KEY, InputEvent.BTN_TRIGGER, 1),
+                event(InputEvent.EV_ABS, InputEvent.ABS_X, 10),
+                report());
+        events.clear();
+
+        /* The trigger was released and the stick moved while events were lost */
+        state.axes[InputEvent.ABS_X] = 42;
+        state.axes[InputEvent.ABS_Y] = 5;
+        state.keys[InputEvent.BTN_THUMB >> 6] |= 1L << InputEvent.BTN_THUMB;
+        state.switches[0] = 1L << InputEvent.SW_LID;
+        feed(event(InputEvent.EV_SYN, InputEvent.SYN_DROPPED, 0),
+                event(InputEvent.EV_ABS, InputEvent.ABS_X, 30),
+                event(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0, 7));
+
+        assertThat(events).hasSize(7);
+        assertThat(events.get(0).code).isEqualTo(InputEvent.SYN_DROPPED);
+        assertEvent(events.get(1), InputEvent.EV_KEY, InputEvent.BTN_TRIGGER, 0);
+        assertEvent(events.get(2), InputEvent.EV_KEY, InputEvent.BTN_THUMB, 1);
+        assertEvent(events.get(3), InputEvent.EV_SW, InputEvent.SW_LID, 1);
+        assertEvent(events.get(4), InputEvent.EV_ABS, InputEvent.ABS_X, 42);
+        assertEvent(events.get(5), InputEvent.EV_ABS, InputEvent.ABS_Y, 5);
+        assertEvent(events.get(6), InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        assertThat(events.get(4).timeMicroSec).isEqualTo(7);
+        assertThat(events.get(4).source).isEqualTo("device");
+        assertThat(resync.getDropCount()).isEqualTo(1);
+
+        /* The synthetic events are tracked as well */
+        events.clear();
+        feed(event(InputEvent.EV_SYN, InputEvent.SYN_DROPPED, 0), report());
+        assertThat(events).hasSize(2);
+    }
+
+    @Test
+    public void forgetsChangesOfTheDroppedFrame() {
+        /* Passed on, then invalidated by the SYN_DROPPED: listeners discard it along with the frame */
+        feed(event(InputEvent.EV_KEY, InputEvent.BTN_TRIGGER, 1));
+        events.clear();
+
+        state.keys[InputEvent.BTN_TRIGGER >> 6] |= 1L << InputEvent.BTN_TRIGGER;
+        feed(event(InputEvent.EV_SYN, InputEvent.SYN_DROPPED, 0), report());
+
+        assertThat(events).hasSize(3);
+        assertThat(events.get(0).code).isEqualTo(InputEvent.SYN_DROPPED);
+        assertEvent(events.get(1), InputEvent.EV_KEY, InputEvent.BTN_TRIGGER, 1);
+        assertEvent(events.get(2), InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+    }
+
+    @Test
+    public void onlyDiscardsWithoutDeviceState() throws IOException {
+        ByteBuffer structs = TestEvents.structs(event(InputEvent.EV_KEY, InputEvent.BTN_TRIGGER, 1),
+                event(InputEvent.EV_SYN, InputEvent.SYN_DROPPED, 0),
+                event(InputEvent.EV_KEY, InputEvent.BTN_TRIGGER, 0),
+                report(),
+                event(InputEvent.EV_KEY, InputEvent.BTN_THUMB, 1));
+        EventDevice device = EventDevice.polled(new MemoryEventSource("memory", structs, info()));
+        assertThat(device.drain(e -> events.add(e.copy()), 16)).isEqualTo(5);
+        device.close();
+
+        assertThat(events).hasSize(4);
+        assertThat(events.get(1).code).isEqualTo(InputEvent.SYN_DROPPED);
+        assertThat(events.get(2).code).isEqualTo(InputEvent.SYN_REPORT);
+        assertThat(events.get(3).code).isEqualTo(InputEvent.BTN_THUMB);
+        assertThat(device.getDropCount()).isEqualTo(1);
+    }
+
+    private static void assertEvent(InputEvent event, short type, short code, int value) {
+        assertThat(event.type.getValue()).isEqualTo(type);
+        assertThat(event.code).isEqualTo(code);
+        assertThat(event.value).isEqualTo(value);
+    }
+
+    private void feed(byte[]... structs) {
+        ByteBuffer buffer = TestEvents.structs(structs);
+        InputEventView view = new InputEventView("device", null);
+        RawInputListener listener = resync.to(e -> events.add(e.copy()));
+        for (int offset = 0; offset < buffer.limit(); offset += InputEvent.STRUCT_SIZE_BYTES) {
+            view.wrap(buffer, offset);
+            listener.event(view);
+        }
+    }
+
+    private static byte[] report() {
+        return event(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+    }
+
+    private static byte[] event(short type, short code, int value) {
+        return event(type, code, value, 0);
+    }
+
+    private static byte[] event(short type, short code, int value, long timeMicroSec) {
+        return TestEvents.struct(1L, timeMicroSec, type, code, value);
+    }
+
+    private static DeviceInfo info() {
+        Map<Integer, List<Integer>> supportedEvents = new HashMap<>();
+        supportedEvents.put((int) InputEvent.EV_KEY,
+                Arrays.asList((int) InputEvent.BTN_TRIGGER, (int) InputEvent.BTN_THUMB));
+        supportedEvents.put((int) InputEvent.EV_ABS, Arrays.asList((int) InputEvent.ABS_X, (int) InputEvent.ABS_Y));
+        supportedEvents.put((int) InputEvent.EV_SW, Arrays.asList((int) InputEvent.SW_LID));
+        return DeviceInfo.of("joystick", supportedEvents);
+    }
+
+    private static final class FakeState implements EventResync.DeviceState {
+        private final long[] keys = new long[DeviceCapabilities.BITMAP_WORDS];
+        private final long[] switches = new long[1];
+        private final int[] axes = new int[InputEvent.ABS_CNT];
+
+        @Override
+        public boolean readKeys(long[] bits) {
+            System.arraycopy(keys, 0, bits, 0, keys.length);
+            return true;
+        }
+
+        @Override
+        public boolean readSwitches(long[] bits) {
+            Arrays.fill(bits, 0L);
+            bits[0] = switches[0];
+            return true;
+        }
+
+        @Override
+        public boolean readLeds(long[] bits) {
+            return false;
+        }
+
+        @Override
+        public boolean readAxis(int[] resp, int axis) {
+            resp[0] = axes[axis];
+            return true;
+        }
+    }
+}
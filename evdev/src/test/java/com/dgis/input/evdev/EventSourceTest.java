@@ -0,0 +1,118 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EventSourceTest {
+
+    private static final DeviceInfo INFO = DeviceInfo.of("memory",
+            Collections.singletonMap((int) InputEvent.EV_KEY, Collections.singletonList((int) InputEvent.KEY_A)));
+
+    @Test
+    public void memorySourceFeedsThreadedDevice() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(3);
+        List<InputEvent> events = Collections.synchronizedList(new ArrayList<>());
+        EventSource source = new MemoryEventSource("memory", events(3), INFO);
+        EventDevice device = new EventDevice(source);
+        device.addListener(e -> {
+            events.add(e);
+            done.countDown();
+        });
+        device.start();
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        device.close();
+
+        assertThat(device.getDevicePath()).isEqualTo("memory");
+        assertThat(device.getCapabilities().supports(InputEvent.EV_KEY, InputEvent.KEY_A)).isTrue();
+        assertThat(values(events)).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void memorySourceCanBeDrained() throws IOException {
+        List<InputEvent> events = new ArrayList<>();
+        MemoryEventSource source = new MemoryEventSource("memory", events(3), INFO);
+        EventDevice device = EventDevice.polled(source);
+        assertThat(device.drain(e -> events.add(e.copy()), 2)).isEqualTo(2);
+        assertThat(source.remaining()).isEqualTo(1);
+        assertThat(device.drain(e -> events.add(e.copy()), 2)).isEqualTo(1);
+        assertThat(device.drain(e -> events.add(e.copy()), 2)).isEqualTo(-1);
+        device.close();
+
+        assertThat(values(events)).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void fileSourceReadsRecordedStructs() throws IOException {
+        File file = File.createTempFile("evdev-source", ".bin");
+        try {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                ByteBuffer structs = events(4);
+                out.write(structs.array(), 0, structs.limit());
+            }
+            List<InputEvent> events = new ArrayList<>();
+            try (FileEventSource source = new FileEventSource(file)) {
+                assertThat(source.getPath()).isEqualTo(file.getAbsolutePath());
+                assertThat(source.getDeviceInfo().getName()).isEqualTo("Unknown Device");
+                int read;
+                while ((read = source.read(e -> events.add(e.copy()), 3)) >= 0) {
+                    assertThat(read).isLessThanOrEqualTo(3);
+                }
+            }
+            assertThat(values(events)).containsExactly(0, 1, 2, 3);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void onlyDevicesCanBeGrabbed() {
+        EventDevice device = new EventDevice(new MemoryEventSource("memory", events(0), INFO));
+        assertThatThrownBy(device::grab).isInstanceOf(IllegalStateException.class);
+        device.close();
+    }
+
+    private static List<Integer> values(List<InputEvent> events) {
+        List<Integer> values = new ArrayList<>();
+        for (InputEvent e : events) {
+            values.add(e.value);
+        }
+        return values;
+    }
+
+    private static ByteBuffer events(int count) {
+        ByteBuffer buffer = TestEvents.allocate(count);
+        for (int i = 0; i < count; i++) {
+            TestEvents.put(buffer, 1L, i, InputEvent.EV_KEY, InputEvent.KEY_A, i);
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
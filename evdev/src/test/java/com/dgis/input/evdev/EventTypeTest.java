@@ -0,0 +1,44 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventTypeTest {
+
+    @Test
+    public void decodesKnownTypes() {
+        for (EventType eventType : EventType.values()) {
+            if (eventType == EventType.EV_UNKNOWN) continue;
+            assertThat(EventType.valueOf(eventType.getValue())).isSameAs(eventType);
+        }
+    }
+
+    @Test
+    public void unassignedTypeIsUnknown() {
+        assertThat(EventType.valueOf((short) 0x06)).isSameAs(EventType.EV_UNKNOWN);
+    }
+
+    @Test
+    public void outOfRangeTypeIsUnknown() {
+        assertThat(EventType.valueOf((short) 0x21)).isSameAs(EventType.EV_UNKNOWN);
+        assertThat(EventType.valueOf((short) -1)).isSameAs(EventType.EV_UNKNOWN);
+    }
+
+}
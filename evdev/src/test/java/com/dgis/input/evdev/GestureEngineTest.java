@@ -0,0 +1,218 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import com.dgis.input.evdev.devices.EvdevMultitouchFilter;
+import com.dgis.input.evdev.devices.GestureEngine;
+import com.dgis.input.evdev.devices.GestureListener;
+import com.dgis.input.evdev.devices.GesturePhase;
+import com.dgis.input.evdev.devices.SwipeDirection;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GestureEngineTest {
+
+    private static final int SLOP = 10;
+
+    private final ByteBuffer events = TestEvents.allocate(1024);
+    private final List<String> gestures = new ArrayList<>();
+    private final GestureEngine engine = GestureEngine.standard(SLOP);
+    private EvdevMultitouchFilter filter;
+
+    public GestureEngineTest() {
+        engine.addListener(new GestureListener() {
+            @Override
+            public void tap(int x, int y) {
+                gestures.add("tap " + x + "," + y);
+            }
+
+            @Override
+            public void doubleTap(int x, int y) {
+                gestures.add("doubleTap " + x + "," + y);
+            }
+
+            @Override
+            public void longPress(int x, int y) {
+                gestures.add("longPress " + x + "," + y);
+            }
+
+            @Override
+            public void drag(GesturePhase phase, int x, int y, int dx, int dy) {
+                gestures.add("drag " + phase + " " + dx + "," + dy);
+            }
+
+            @Override
+            public void pinch(GesturePhase phase, double scale) {
+                gestures.add(String.format("pinch %s %.1f", phase, scale));
+            }
+
+            @Override
+            public void rotate(GesturePhase phase, double angle) {
+                gestures.add(String.format("rotate %s %.0f", phase, Math.toDegrees(angle)));
+            }
+
+            @Override
+            public void swipe(int fingers, SwipeDirection direction) {
+                gestures.add("swipe " + fingers + " " + direction);
+            }
+        });
+    }
+
+    @Test
+    public void tapsAndDoubleTaps() throws IOException {
+        down(0, 1, 100, 100, 0);
+        up(0, 50);
+        down(0, 2, 103, 98, 200);
+        up(0, 250);
+        down(0, 3, 500, 500, 1000);
+        up(0, 1050);
+        run();
+
+        assertThat(gestures).containsExactly("tap 100,100", "tap 103,98", "doubleTap 103,98", "tap 500,500");
+    }
+
+    @Test
+    public void longPressNeedsNoFrame() throws IOException {
+        down(0, 1, 100, 100, 0);
+        run();
+        engine.tick(400_000);
+        assertThat(gestures).isEmpty();
+        engine.tick(600_000);
+        assertThat(gestures).containsExactly("longPress 100,100");
+
+        up(0, 700);
+        run();
+        assertThat(gestures).containsExactly("longPress 100,100");
+    }
+
+    @Test
+    public void dragsSingleFinger() throws IOException {
+        down(0, 1, 100, 100, 0);
+        move(0, 105, 100, 10);
+        move(0, 150, 100, 20);
+        move(0, 200, 120, 30);
+        up(0, 40);
+        run();
+
+        assertThat(gestures).containsExactly("drag BEGIN 50,0", "drag UPDATE 100,20", "drag END 100,20");
+    }
+
+    @Test
+    public void pinchesAndRotatesTwoFingers() throws IOException {
+        down(0, 1, 100, 100, 0);
+        down(1, 2, 200, 100, 0);
+        move(1, 300, 100, 10);
+        up(1, 20);
+        run();
+        assertThat(gestures).containsExactly("pinch BEGIN 2.0", "pinch END 2.0");
+
+        gestures.clear();
+        down(1, 3, 200, 100, 1000);
+        move(1, 100, 200, 1010);
+        move(1, 0, 100, 1020);
+        up(1, 1030);
+        up(0, 1030);
+        run();
+        assertThat(gestures).containsExactly("rotate BEGIN 90", "rotate UPDATE 180", "rotate END 180");
+    }
+
+    @Test
+    public void swipesThreeFingers() throws IOException {
+        down(0, 1, 100, 100, 0);
+        down(1, 2, 100, 200, 0);
+        down(2, 3, 100, 300, 0);
+        report(0);
+        for (int slot = 0; slot < 3; slot++) {
+            select(slot);
+            abs(InputEvent.ABS_MT_POSITION_X, 250);
+        }
+        report(100);
+        up(0, 150);
+        up(1, 160);
+        up(2, 160);
+        run();
+
+        assertThat(gestures).containsExactly("swipe 3 RIGHT");
+    }
+
+    private void run() throws IOException {
+        long[] bits = new long[InputEvent.EV_CNT * DeviceCapabilities.BITMAP_WORDS];
+        bits[0] = 1L << InputEvent.EV_ABS;
+        bits[InputEvent.EV_ABS * DeviceCapabilities.BITMAP_WORDS] = 1L << InputEvent.ABS_MT_SLOT
+                | 1L << InputEvent.ABS_MT_POSITION_X | 1L << InputEvent.ABS_MT_POSITION_Y
+                | 1L << InputEvent.ABS_MT_TRACKING_ID;
+        int[] absInfo = new int[InputEvent.ABS_CNT * DeviceInfo.ABS_INFO_FIELDS];
+        absInfo[InputEvent.ABS_MT_SLOT * DeviceInfo.ABS_INFO_FIELDS + 2] = 9;
+        events.flip();
+        ByteBuffer structs = ByteBuffer.allocate(events.remaining()).put(events);
+        structs.flip();
+        events.clear();
+        EventDevice device = EventDevice.polled(new MemoryEventSource("touch", structs,
+                new DeviceInfo(new short[4], "touch", 0x10001, bits, absInfo)));
+        if (filter == null) {
+            filter = new EvdevMultitouchFilter(device);
+            filter.addListener(engine);
+        } else {
+            /* Keep the slots of the previous run */
+            device.addRawListener(filter);
+        }
+        device.drain(Integer.MAX_VALUE);
+    }
+
+    private void down(int slot, int trackingId, int x, int y, long timeMillis) {
+        select(slot);
+        abs(InputEvent.ABS_MT_TRACKING_ID, trackingId);
+        abs(InputEvent.ABS_MT_POSITION_X, x);
+        abs(InputEvent.ABS_MT_POSITION_Y, y);
+        report(timeMillis);
+    }
+
+    private void move(int slot, int x, int y, long timeMillis) {
+        select(slot);
+        abs(InputEvent.ABS_MT_POSITION_X, x);
+        abs(InputEvent.ABS_MT_POSITION_Y, y);
+        report(timeMillis);
+    }
+
+    private void up(int slot, long timeMillis) {
+        select(slot);
+        abs(InputEvent.ABS_MT_TRACKING_ID, -1);
+        report(timeMillis);
+    }
+
+    private void select(int slot) {
+        abs(InputEvent.ABS_MT_SLOT, slot);
+    }
+
+    private void abs(short code, int value) {
+        put(InputEvent.EV_ABS, code, value, 0);
+    }
+
+    private void report(long timeMillis) {
+        put(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0, timeMillis * 1000);
+    }
+
+    private void put(short type, short code, int value, long timeMicroSec) {
+        TestEvents.put(events, 0L, timeMicroSec, type, code, value);
+    }
+}
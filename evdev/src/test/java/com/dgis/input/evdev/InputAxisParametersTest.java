@@ -22,6 +22,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class InputAxisParametersTest {
@@ -61,11 +63,38 @@ public class InputAxisParametersTest {
         assertThat(axisParameters.getFlat()).isEqualTo(8);
     }
 
+    @Test
+    public void readResolution() {
+        EventDevice eventDevice = mockEventDevice(5, 9);
+        InputAxisParameters axisParameters = new InputAxisParameters(eventDevice, 0);
+        assertThat(axisParameters.getResolution()).isEqualTo(9);
+    }
+
+    @Test
+    public void cachesParametersFromOneIoctl() {
+        EventDevice eventDevice = mockEventDevice(2, 6);
+        InputAxisParameters axisParameters = new InputAxisParameters(eventDevice, 0);
+        axisParameters.getMin();
+        axisParameters.getMax();
+        axisParameters.toString();
+        verify(eventDevice, times(1)).ioctlEVIOCGABS(any(int[].class), anyInt());
+    }
+
+    @Test
+    public void valueFollowsEventsUntilRefresh() {
+        EventDevice eventDevice = mockEventDevice(0, 4);
+        InputAxisParameters axisParameters = new InputAxisParameters(eventDevice, 0);
+        axisParameters.update(42);
+        assertThat(axisParameters.getValue()).isEqualTo(42);
+        assertThat(axisParameters.refresh()).isTrue();
+        assertThat(axisParameters.getValue()).isEqualTo(4);
+    }
+
     private EventDevice mockEventDevice(final int position, final int value) {
         EventDevice eventDevice = mock(EventDevice.class);
-        when(eventDevice.ioctlEVIOCGABS(any(), any(int[].class), anyInt()))
+        when(eventDevice.ioctlEVIOCGABS(any(int[].class), anyInt()))
                 .thenAnswer(invocation -> {
-                    int[] response = invocation.getArgument(1);
+                    int[] response = invocation.getArgument(0);
                     response[position] = value;
                     return true;
                 });
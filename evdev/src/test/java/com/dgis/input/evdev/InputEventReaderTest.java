@@ -0,0 +1,168 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputEventReaderTest {
+
+    private static final String ARCH = "amd64";
+
+    @Test
+    public void readsAllRecordedEventsWithASingleRead() throws IOException {
+        File recording = File.createTempFile("evdev-recording", ".bin");
+        recording.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(recording)) {
+            out.write(recordedEvents(3).array());
+        }
+
+        List<InputEvent> events = new ArrayList<>();
+        RawInputListener collector = e -> events.add(e.copy());
+        try (FileChannel channel = FileChannel.open(recording.toPath(), StandardOpenOption.READ)) {
+            InputEventReader reader = new InputEventReader(channel, "recording", ARCH, 64);
+            assertThat(reader.read(collector)).isEqualTo(3);
+            assertThat(reader.read(collector)).isEqualTo(-1);
+        }
+
+        assertThat(events).hasSize(3);
+        for (int i = 0; i < 3; i++) {
+            assertThat(events.get(i).timeSec).isEqualTo(100L + i);
+            assertThat(events.get(i).code).isEqualTo((short) i);
+            assertThat(events.get(i).value).isEqualTo(i * 10);
+            assertThat(events.get(i).source).isEqualTo("recording");
+        }
+    }
+
+    @Test
+    public void readIsLimitedByBatchSize() throws IOException {
+        InputEventReader reader = new InputEventReader(new ChunkedChannel(recordedEvents(5), 1024), "chunks", ARCH, 2);
+        List<InputEvent> events = new ArrayList<>();
+        RawInputListener collector = e -> events.add(e.copy());
+
+        assertThat(reader.read(collector)).isEqualTo(2);
+        assertThat(reader.read(collector)).isEqualTo(2);
+        assertThat(reader.read(collector)).isEqualTo(1);
+        assertThat(reader.read(collector)).isEqualTo(-1);
+        assertThat(events).hasSize(5);
+    }
+
+    @Test
+    public void readIsLimitedByMaxEvents() throws IOException {
+        InputEventReader reader = new InputEventReader(new ChunkedChannel(recordedEvents(5), 1024), "chunks", ARCH, 64);
+        List<InputEvent> events = new ArrayList<>();
+        RawInputListener collector = e -> events.add(e.copy());
+
+        assertThat(reader.read(collector, 3)).isEqualTo(3);
+        assertThat(reader.read(collector, 1)).isEqualTo(1);
+        assertThat(reader.read(collector, 64)).isEqualTo(1);
+        assertThat(reader.read(collector, 64)).isEqualTo(-1);
+        assertThat(events).hasSize(5);
+        for (int i = 0; i < 5; i++) {
+            assertThat(events.get(i).timeSec).isEqualTo(100L + i);
+        }
+    }
+
+    @Test
+    public void partialStructsAreKeptForTheNextRead() throws IOException {
+        /* 10 bytes per read splits every 24 byte struct across reads */
+        InputEventReader reader = new InputEventReader(new ChunkedChannel(recordedEvents(4), 10), "chunks", ARCH, 64);
+        List<InputEvent> events = new ArrayList<>();
+        RawInputListener collector = e -> events.add(e.copy());
+
+        while (reader.read(collector) >= 0) {
+            assertThat(events.size()).isLessThanOrEqualTo(4);
+        }
+
+        assertThat(events).hasSize(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(events.get(i).timeSec).isEqualTo(100L + i);
+            assertThat(events.get(i).value).isEqualTo(i * 10);
+        }
+    }
+
+    @Test
+    public void readsArmLayout() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(InputEvent.STRUCT_SIZE_BYTES_ARM).order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(100);
+        data.putInt(250);
+        data.putShort(InputEvent.EV_ABS);
+        data.putShort(InputEvent.ABS_Y);
+        data.putInt(-42);
+        data.flip();
+        InputEventReader reader = new InputEventReader(new ChunkedChannel(data, 1024), "arm", "arm", 64);
+
+        assertThat(reader.read(e -> {
+            assertThat(e.getTimeSec()).isEqualTo(100L);
+            assertThat(e.getTimeMicroSec()).isEqualTo(250L);
+            assertThat(e.getType()).isEqualTo(InputEvent.EV_ABS);
+            assertThat(e.getCode()).isEqualTo(InputEvent.ABS_Y);
+            assertThat(e.getValue()).isEqualTo(-42);
+        })).isEqualTo(1);
+    }
+
+    private static ByteBuffer recordedEvents(int count) {
+        ByteBuffer buffer = TestEvents.allocate(count);
+        for (int i = 0; i < count; i++) {
+            TestEvents.put(buffer, 100L + i, 0L, InputEvent.EV_KEY, (short) i, i * 10);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Channel returning at most chunkSize bytes per read, like a FIFO fed by a slow writer.
+     */
+    private static final class ChunkedChannel implements ReadableByteChannel {
+        private final ByteBuffer data;
+        private final int chunkSize;
+
+        private ChunkedChannel(ByteBuffer data, int chunkSize) {
+            this.data = data;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (!data.hasRemaining()) return -1;
+            int count = Math.min(chunkSize, Math.min(dst.remaining(), data.remaining()));
+            for (int i = 0; i < count; i++) dst.put(data.get());
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputEventRingTest {
+
+    private final ByteBuffer struct = TestEvents.allocate(1);
+    private final InputEventView event = new InputEventView("test", "amd64");
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        assertThat(new InputEventRing("test", 1).getCapacity()).isEqualTo(1);
+        assertThat(new InputEventRing("test", 100).getCapacity()).isEqualTo(128);
+        assertThat(new InputEventRing("test", 128).getCapacity()).isEqualTo(128);
+    }
+
+    @Test
+    public void drainsInOrder() {
+        InputEventRing ring = new InputEventRing("test", 4);
+        for (int i = 0; i < 3; i++) {
+            assertThat(ring.offer(event(i))).isTrue();
+        }
+        List<InputEvent> events = new ArrayList<>();
+
+        assertThat(ring.drain(e -> events.add(e.copy()), 2)).isEqualTo(2);
+        assertThat(ring.size()).isEqualTo(1);
+        assertThat(ring.drain(e -> events.add(e.copy()), 10)).isEqualTo(1);
+
+        assertThat(events).hasSize(3);
+        for (int i = 0; i < 3; i++) {
+            assertThat(events.get(i).value).isEqualTo(i);
+            assertThat(events.get(i).timeMicroSec).isEqualTo((long) i);
+            assertThat(events.get(i).source).isEqualTo("test");
+        }
+    }
+
+    @Test
+    public void countsOverflows() {
+        InputEventRing ring = new InputEventRing("test", 2);
+        assertThat(ring.offer(event(0))).isTrue();
+        assertThat(ring.offer(event(1))).isTrue();
+        assertThat(ring.offer(event(2))).isFalse();
+        assertThat(ring.getOverflowCount()).isEqualTo(1L);
+
+        ring.drain(e -> { }, 1);
+        assertThat(ring.offer(event(3))).isTrue();
+        List<Integer> values = new ArrayList<>();
+        ring.drain(e -> values.add(e.getValue()), 10);
+        assertThat(values).containsExactly(1, 3);
+    }
+
+    @Test
+    public void handsEventsOverToAnotherThread() throws InterruptedException {
+        final int count = 100000;
+        final InputEventRing ring = new InputEventRing("test", 64);
+        final int[] received = new int[1];
+        final boolean[] ordered = {true};
+        Thread consumer = new Thread(() -> {
+            while (received[0] < count) {
+                if (ring.drain(e -> ordered[0] &= e.getValue() == received[0]++, 16) == 0) {
+                    WaitStrategy.YIELD.idle();
+                }
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < count; i++) {
+            while (!ring.offer(event(i))) {
+                Thread.yield();
+            }
+        }
+        consumer.join(10000);
+
+        assertThat(received[0]).isEqualTo(count);
+        assertThat(ordered[0]).isTrue();
+    }
+
+    private InputEventView event(int value) {
+        struct.clear();
+        TestEvents.put(struct, 1L, value, InputEvent.EV_ABS, InputEvent.ABS_X, value);
+        event.wrap(struct, 0);
+        return event;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputFrameAssemblerTest {
+
+    private InputFrameAssembler assembler;
+    private final List<String> frames = new ArrayList<>();
+    private final List<InputFrame> instances = new ArrayList<>();
+
+    @Before
+    public void createAssembler() {
+        assembler = new InputFrameAssembler("test");
+        assembler.addListener(frame -> {
+            frames.add(describe(frame));
+            instances.add(frame);
+        });
+    }
+
+    @Test
+    public void groupsEventsUntilSynReport() {
+        feed(InputEvent.EV_ABS, InputEvent.ABS_X, 10);
+        feed(InputEvent.EV_ABS, InputEvent.ABS_Y, 20);
+        assertThat(frames).isEmpty();
+        feed(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        feed(InputEvent.EV_KEY, InputEvent.BTN_TOUCH, 1);
+        feed(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(frames).containsExactly("3/0=10 3/1=20", "1/330=1");
+        assertThat(instances.get(0)).isSameAs(instances.get(1));
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        List<Integer> lastValues = new ArrayList<>();
+        assembler.addListener(frame -> lastValues.add(frame.getValue(frame.size() - 1)));
+        for (int i = 0; i < 100; i++) {
+            feed(InputEvent.EV_ABS, InputEvent.ABS_MT_POSITION_X, i);
+        }
+        feed(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(lastValues).containsExactly(99);
+        assertThat(frames.get(0).split(" ").length).isEqualTo(100);
+    }
+
+    @Test
+    public void discardsFrameInterruptedBySynDropped() {
+        feed(InputEvent.EV_ABS, InputEvent.ABS_X, 10);
+        feed(InputEvent.EV_SYN, InputEvent.SYN_DROPPED, 0);
+        /* The resynced state, as passed on by EventResync */
+        feed(InputEvent.EV_ABS, InputEvent.ABS_X, 11);
+        feed(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+        feed(InputEvent.EV_ABS, InputEvent.ABS_X, 12);
+        feed(InputEvent.EV_SYN, InputEvent.SYN_REPORT, 0);
+
+        assertThat(frames).containsExactly("dropped 3/0=11", "3/0=12");
+    }
+
+    private void feed(short type, short code, int value) {
+        ByteBuffer buffer = TestEvents.put(TestEvents.allocate(1), 1L, 2L, type, code, value);
+        InputEventView view = new InputEventView("test", "amd64");
+        view.wrap(buffer, 0);
+        assembler.event(view);
+    }
+
+    private static String describe(InputFrame frame) {
+        StringBuilder description = new StringBuilder(frame.isAfterDrop() ? "dropped" : "");
+        for (int i = 0; i < frame.size(); i++) {
+            if (description.length() > 0) description.append(' ');
+            description.append(frame.getType(i)).append('/').append(frame.getCode(i)).append('=').append(frame.getValue(i));
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import com.dgis.input.evdev.devices.ListenerRegistry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ListenerRegistryTest {
+
+    private final ListenerRegistry<Runnable> registry = new ListenerRegistry<>(Runnable.class);
+
+    @Test
+    public void snapshotKeepsRegistrationOrder() {
+        Runnable first = () -> { };
+        Runnable second = () -> { };
+        assertThat(registry.add(first)).isTrue();
+        assertThat(registry.add(second)).isTrue();
+        assertThat(registry.add(first)).isFalse();
+
+        assertThat(registry.snapshot()).containsExactly(first, second);
+        assertThat(registry.snapshot()).isInstanceOf(Runnable[].class);
+    }
+
+    @Test
+    public void removalDoesNotAffectSnapshotsTaken() {
+        Runnable first = () -> { };
+        Runnable second = () -> { };
+        registry.add(first);
+        registry.add(second);
+        Runnable[] before = registry.snapshot();
+
+        assertThat(registry.remove(first)).isTrue();
+        assertThat(registry.remove(first)).isFalse();
+
+        assertThat(before).containsExactly(first, second);
+        assertThat(registry.snapshot()).containsExactly(second);
+        assertThat(registry.isEmpty()).isFalse();
+        registry.remove(second);
+        assertThat(registry.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void registrationDuringDispatch() {
+        List<String> calls = new ArrayList<>();
+        Runnable late = () -> calls.add("late");
+        registry.add(() -> {
+            calls.add("first");
+            registry.add(late);
+        });
+
+        for (Runnable l : registry.snapshot()) l.run();
+        for (Runnable l : registry.snapshot()) l.run();
+
+        assertThat(calls).containsExactly("first", "first", "late");
+    }
+
+    @Test
+    public void failuresAreCountedPerListener() {
+        Runnable failing = () -> {
+            throw new IllegalStateException("test");
+        };
+        Runnable working = () -> { };
+        registry.add(failing);
+        registry.add(working);
+
+        List<Runnable> notified = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            registry.dispatch(notified, (l, n) -> {
+                l.run();
+                n.add(l);
+            });
+        }
+
+        assertThat(notified).containsExactly(working, working, working);
+
+        assertThat(registry.getFailureCount(failing)).isEqualTo(3);
+        assertThat(registry.getFailureCount(working)).isEqualTo(0);
+        registry.remove(failing);
+        assertThat(registry.getFailureCount()).isEqualTo(3);
+        assertThat(registry.getFailureCount(failing)).isEqualTo(0);
+    }
+
+    @Test
+    public void argumentsArePassedToEveryListener() {
+        registry.add(() -> { });
+        registry.add(() -> { });
+
+        List<String> notified = new ArrayList<>();
+        registry.dispatch(notified, 1, 2, 3, 4, (l, n, a, b, c, d) -> n.add(a + "," + b + "," + c + "," + d));
+        registry.dispatch(notified, 0.5, (l, n, value) -> n.add(String.valueOf(value)));
+
+        assertThat(notified).containsExactly("1,2,3,4", "1,2,3,4", "0.5", "0.5");
+    }
+}
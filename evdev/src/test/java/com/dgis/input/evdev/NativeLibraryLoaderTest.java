@@ -0,0 +1,108 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NativeLibraryLoaderTest {
+
+    private static final byte[] LIBRARY = "not really a shared object".getBytes(StandardCharsets.US_ASCII);
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = new File(Files.createTempDirectory("evdev-loader").toFile(), "lib");
+    }
+
+    @After
+    public void deleteDirectory() {
+        delete(directory.getParentFile());
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    @Test
+    public void extractsOnceForSameContent() throws IOException {
+        File first = NativeLibraryLoader.extract(LIBRARY, directory);
+        assertThat(Files.readAllBytes(first.toPath())).isEqualTo(LIBRARY);
+        assertThat(first.setLastModified(1000L)).isTrue();
+
+        File second = NativeLibraryLoader.extract(LIBRARY, directory);
+        assertThat(second).isEqualTo(first);
+        assertThat(second.lastModified()).isEqualTo(1000L);
+        assertThat(directory.list()).hasSize(1);
+    }
+
+    @Test
+    public void otherContentGetsOtherPath() throws IOException {
+        File first = NativeLibraryLoader.extract(LIBRARY, directory);
+        File second = NativeLibraryLoader.extract("another library".getBytes(StandardCharsets.US_ASCII), directory);
+        assertThat(second).isNotEqualTo(first);
+        assertThat(directory.list()).hasSize(2);
+    }
+
+    @Test
+    public void replacesDamagedCopy() throws IOException {
+        File file = NativeLibraryLoader.extract(LIBRARY, directory);
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+
+        assertThat(NativeLibraryLoader.extract(LIBRARY, directory)).isEqualTo(file);
+        assertThat(Files.readAllBytes(file.toPath())).isEqualTo(LIBRARY);
+        assertThat(directory.list()).hasSize(1);
+    }
+
+    @Test
+    public void createsPrivateDirectory() throws IOException {
+        NativeLibraryLoader.extract(LIBRARY, directory);
+
+        assertThat(Files.getPosixFilePermissions(directory.toPath()))
+                .isEqualTo(PosixFilePermissions.fromString("rwx------"));
+    }
+
+    @Test
+    public void avoidsDirectoryOthersCanWrite() throws IOException {
+        Files.createDirectory(directory.toPath());
+        Files.setPosixFilePermissions(directory.toPath(), PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        File file = NativeLibraryLoader.extract(LIBRARY, directory);
+
+        assertThat(file.getParentFile()).isNotEqualTo(directory);
+        assertThat(file.getParentFile().getParentFile()).isEqualTo(directory.getParentFile());
+        assertThat(Files.getPosixFilePermissions(file.toPath().getParent()))
+                .isEqualTo(PosixFilePermissions.fromString("rwx------"));
+        assertThat(directory.list()).isEmpty();
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PolledEventDeviceTest {
+
+    private File directory;
+    private File fifo;
+
+    @Before
+    public void createFifo() throws IOException, InterruptedException {
+        directory = Files.createTempDirectory("evdev-polled").toFile();
+        fifo = new File(directory, "event0");
+        Process mkfifo = new ProcessBuilder("mkfifo", fifo.getAbsolutePath()).start();
+        assertThat(mkfifo.waitFor()).isEqualTo(0);
+    }
+
+    @After
+    public void deleteFifo() {
+        fifo.delete();
+        directory.delete();
+    }
+
+    @Test
+    public void drainsPendingEventsWithoutBlocking() throws IOException {
+        List<InputEvent> events = new ArrayList<>();
+        RawInputListener collector = e -> events.add(e.copy());
+        EventDevice device;
+        /* Opening read-write does not wait for a reader */
+        try (RandomAccessFile writer = new RandomAccessFile(fifo, "rw")) {
+            device = EventDevice.polled(fifo);
+            assertThat(device.drain(collector, 16)).isEqualTo(0);
+
+            for (int i = 0; i < 3; i++) {
+                writer.write(event(InputEvent.KEY_A, i));
+            }
+            assertThat(device.drain(collector, 2)).isEqualTo(2);
+            assertThat(device.drain(collector, 16)).isEqualTo(1);
+            assertThat(device.drain(collector, 16)).isEqualTo(0);
+        }
+        assertThat(device.drain(collector, 16)).isEqualTo(-1);
+        device.close();
+
+        assertThat(events).hasSize(3);
+        assertThat(events.get(2).value).isEqualTo(2);
+    }
+
+    @Test
+    public void drainDistributesToListeners() throws IOException {
+        List<InputEvent> events = new ArrayList<>();
+        try (RandomAccessFile writer = new RandomAccessFile(fifo, "rw")) {
+            EventDevice device = EventDevice.polled(fifo);
+            device.addListener(events::add);
+            writer.write(event(InputEvent.KEY_B, 1));
+            assertThat(device.drain(16)).isEqualTo(1);
+            device.close();
+        }
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).code).isEqualTo(InputEvent.KEY_B);
+    }
+
+    @Test
+    public void threadedDeviceCannotBeDrained() throws IOException {
+        EventDevice device;
+        try (RandomAccessFile writer = new RandomAccessFile(fifo, "rw")) {
+            device = new EventDevice(fifo);
+            assertThatThrownBy(() -> device.drain(16)).isInstanceOf(IllegalStateException.class);
+        }
+        /* The reader thread has seen the end of stream once the writer is closed */
+        device.close();
+    }
+
+    private static byte[] event(short code, int value) {
+        return TestEvents.struct(1L, 2L, InputEvent.EV_KEY, code, value);
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * This file is part of evdev-java - Java implementation.
+ *
+ * evdev-java - Java implementation is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * evdev-java - Java implementation is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with evdev-java - Java implementation.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dgis.input.evdev;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes amd64 input_event structs, as read from an evdev node, for the tests.
+ */
+final class TestEvents {
+
+    private TestEvents() {
+    }
+
+    /**
+     * A little endian buffer with room for the given number of structs.
+     */
+    static ByteBuffer allocate(int count) {
+        return ByteBuffer.allocate(count * InputEvent.STRUCT_SIZE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Append one struct at the position of the given little endian buffer.
+     *
+     * @return The buffer.
+     */
+    static ByteBuffer put(ByteBuffer buffer, long timeSec, long timeMicroSec, short type, short code, int value) {
+        return buffer.putLong(timeSec).putLong(timeMicroSec).putShort(type).putShort(code).putInt(value);
+    }
+
+    /**
+     * A single struct.
+     */
+    static byte[] struct(long timeSec, long timeMicroSec, short type, short code, int value) {
+        return put(allocate(1), timeSec, timeMicroSec, type, code, value).array();
+    }
+
+    /**
+     * The given structs one after the other, ready to be read.
+     */
+    static ByteBuffer structs(byte[]... structs) {
+        ByteBuffer buffer = allocate(structs.length);
+        for (byte[] struct : structs) {
+            buffer.put(struct);
+        }
+        buffer.flip();
+        return buffer;
+    }
+}